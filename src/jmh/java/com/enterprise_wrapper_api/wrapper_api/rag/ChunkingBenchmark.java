@@ -0,0 +1,71 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunking of extracted text with the default 800/100 character settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ChunkingBenchmark {
+
+    private static final String[] WORDS = {
+            "revenue", "quarter", "growth", "operating", "margin", "customer", "contract", "pipeline",
+            "forecast", "segment", "regional", "the", "of", "and", "increased", "declined"};
+
+    @Param({"65536", "1048576"})
+    int textChars;
+
+    private PdfService pdfService;
+    private TextChunkService chunkService;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        pdfService = new PdfService(8);
+        chunkService = new TextChunkService();
+        text = prose(new Random(42), textChars);
+    }
+
+    @Benchmark
+    public List<String> pdfChunkText() {
+        return pdfService.chunkText(text);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public List<String> splitText() {
+        return chunkService.splitText(text, 800);
+    }
+
+    // Sentences of 8-20 words with the odd paragraph break, like PDFBox output
+    static String prose(Random random, int chars) {
+        StringBuilder out = new StringBuilder(chars + 200);
+        while (out.length() < chars) {
+            int words = 8 + random.nextInt(13);
+            for (int w = 0; w < words; w++) {
+                out.append(w == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            out.append(random.nextInt(10) == 0 ? ".\n\n" : ". ");
+        }
+        return out.substring(0, chars);
+    }
+}
@@ -0,0 +1,53 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedding of one default-sized chunk, with the cache disabled so every
+ * call computes, and of a short query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class EmbeddingBenchmark {
+
+    private EmbeddingService embeddingService;
+    private String chunk;
+
+    @Setup
+    public void setUp() {
+        embeddingService = new EmbeddingService();
+        chunk = ChunkingBenchmark.prose(new Random(42), 800);
+    }
+
+    @Benchmark
+    public List<Double> generateEmbedding() {
+        return embeddingService.generateEmbedding(chunk);
+    }
+
+    @Benchmark
+    public float[] embed() {
+        return embeddingService.embed(chunk);
+    }
+
+    @Benchmark
+    public float[] embedQuery() {
+        return embeddingService.embedQuery("How did operating costs change after the consolidation?");
+    }
+}
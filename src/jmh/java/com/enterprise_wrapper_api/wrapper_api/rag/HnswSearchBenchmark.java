@@ -0,0 +1,93 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 latency of the HNSW graph by {@code efSearch}, against the
+ * brute-force scan of the flat store ({@code efSearch = 0}), over 20,000
+ * clustered 64-dimensional vectors. Recall at these settings is checked by
+ * {@code HnswVectorIndexTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class HnswSearchBenchmark {
+
+    private static final int DIMENSION = 64;
+    private static final int CORPUS = 20_000;
+    private static final int QUERIES = 1024;
+
+    @Param({"0", "16", "32", "64", "128", "256"})
+    int efSearch;
+
+    private VectorStoreService exact;
+    private HnswVectorIndex index;
+    private float[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        float[][] centroids = new float[100][];
+        for (int i = 0; i < centroids.length; i++) {
+            centroids[i] = gaussian(random, 1.0);
+        }
+
+        exact = new VectorStoreService();
+        index = new HnswVectorIndex(16, 200, Math.max(1, efSearch));
+        VectorStoreService.DocumentWriter writer = exact.openDocument(VectorStoreService.DEFAULT_NAMESPACE, "corpus");
+        for (int i = 0; i < CORPUS; i++) {
+            float[] vector = around(centroids[random.nextInt(centroids.length)], random);
+            writer.append("doc-" + i, vector);
+            if (efSearch > 0) {
+                index.save("doc-" + i, vector, "doc-" + i);
+            }
+        }
+        writer.commit();
+
+        queries = new float[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = around(centroids[random.nextInt(centroids.length)], random);
+        }
+    }
+
+    @Benchmark
+    public List<String> searchTop10() {
+        float[] query = queries[next++ & (QUERIES - 1)];
+        return efSearch == 0 ? exact.search(query, 10) : index.search(query, 10);
+    }
+
+    private static float[] gaussian(Random random, double scale) {
+        float[] v = new float[DIMENSION];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = (float) (random.nextGaussian() * scale);
+        }
+        return v;
+    }
+
+    private static float[] around(float[] centroid, Random random) {
+        float[] noise = gaussian(random, 0.8);
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] += centroid[i];
+        }
+        return noise;
+    }
+}
@@ -0,0 +1,75 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vectors upserted per second through {@link PineconeClient} against the
+ * in-process stub, which answers every request after 5 ms to stand in for
+ * the network round trip. Compares one vector per request with batching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class PineconeUpsertBenchmark {
+
+    private static final int VECTORS = 1_000;
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private PineconeStubServer pinecone;
+    private PineconeClient client;
+    private float[][] vectors;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pinecone = new PineconeStubServer().latency(5);
+        client = new PineconeClient(WebClient.builder(), pinecone.url(), "key", "", batchSize,
+                Duration.ofMillis(200), 4, 16, 3, Duration.ofMillis(10), new SimpleMeterRegistry());
+        Random random = new Random(42);
+        vectors = new float[VECTORS][768];
+        for (float[] vector : vectors) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        pinecone.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VECTORS)
+    public void saveAndFlush() {
+        for (int i = 0; i < VECTORS; i++) {
+            client.save("chunk-" + i, vectors[i], "text " + i);
+        }
+        client.flush();
+    }
+}
@@ -0,0 +1,90 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 latency of quantized scans plus exact re-rank against the
+ * full-precision scan ({@code NONE}), over 6,000 clustered 128-dimensional
+ * vectors. Recall and code size at these settings are checked by
+ * {@code QuantizedSearchTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class QuantizedSearchBenchmark {
+
+    private static final int DIMENSION = 128;
+    private static final int CORPUS = 6_000;
+    private static final int QUERIES = 1024;
+
+    @Param({"NONE", "INT8", "PQ"})
+    QuantizationMode mode;
+
+    @Param({"4", "16"})
+    int rerankFactor;
+
+    private VectorStoreService store;
+    private float[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(11);
+        float[][] centroids = new float[50][];
+        for (int i = 0; i < centroids.length; i++) {
+            centroids[i] = gaussian(random, 1.0);
+        }
+
+        store = new VectorStoreService(
+                new SegmentFileStore(null, null), mode.name(), rerankFactor, DIMENSION / 8, 100, 1, 1);
+        VectorStoreService.DocumentWriter writer = store.openDocument(VectorStoreService.DEFAULT_NAMESPACE, "corpus");
+        for (int i = 0; i < CORPUS; i++) {
+            writer.append("doc-" + i, around(centroids[random.nextInt(centroids.length)], random));
+        }
+        writer.commit();
+
+        queries = new float[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = around(centroids[random.nextInt(centroids.length)], random);
+        }
+    }
+
+    @Benchmark
+    public List<String> searchTop10() {
+        return store.search(queries[next++ & (QUERIES - 1)], 10);
+    }
+
+    private static float[] gaussian(Random random, double scale) {
+        float[] v = new float[DIMENSION];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = (float) (random.nextGaussian() * scale);
+        }
+        return v;
+    }
+
+    private static float[] around(float[] centroid, Random random) {
+        float[] noise = gaussian(random, 0.8);
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] += centroid[i];
+        }
+        return noise;
+    }
+}
@@ -0,0 +1,52 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-row similarity kernel. Stored rows are unit length, so the dot
+ * product is what the old {@code cosineSimilarity} computed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class VectorMathBenchmark {
+
+    @Param({"384", "768"})
+    int dimension;
+
+    private float[] row;
+    private float[] query;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        row = VectorMath.normalize(VectorSearchBenchmark.randomVector(random, dimension));
+        query = VectorMath.normalize(VectorSearchBenchmark.randomVector(random, dimension));
+    }
+
+    @Benchmark
+    public float dot() {
+        return VectorMath.dot(row, 0, query, dimension);
+    }
+
+    @Benchmark
+    public float[] normalize() {
+        return VectorMath.normalize(query);
+    }
+}
@@ -0,0 +1,91 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact top-K search over one namespace, at the corpus sizes and embedding
+ * widths we expect per tenant, scanned serially and split across four
+ * shards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class VectorSearchBenchmark {
+
+    private static final int QUERIES = 64;
+
+    @Param({"10000", "50000"})
+    int chunks;
+
+    @Param({"384", "768"})
+    int dimension;
+
+    @Param({"1", "4"})
+    int shards;
+
+    private VectorStoreService store;
+    private float[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        store = new VectorStoreService(new SegmentFileStore(null, null), QuantizationMode.NONE, shards, shards);
+        VectorStoreService.DocumentWriter writer = store.openDocument(VectorStoreService.DEFAULT_NAMESPACE, "corpus");
+        List<String> contents = new ArrayList<>(1024);
+        float[][] embeddings = new float[1024][];
+        for (int i = 0; i < chunks; i++) {
+            contents.add("chunk " + i);
+            embeddings[contents.size() - 1] = randomVector(random, dimension);
+            if (contents.size() == embeddings.length || i == chunks - 1) {
+                writer.appendAll(contents, Arrays.copyOf(embeddings, contents.size()));
+                contents.clear();
+            }
+        }
+        writer.commit();
+
+        queries = new float[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = randomVector(random, dimension);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.shutdown();
+    }
+
+    @Benchmark
+    public List<String> searchTop5() {
+        return store.search(queries[next++ & (QUERIES - 1)], 5);
+    }
+
+    static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
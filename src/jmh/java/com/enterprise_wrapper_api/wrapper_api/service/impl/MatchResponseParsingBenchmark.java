@@ -0,0 +1,58 @@
+package com.enterprise_wrapper_api.wrapper_api.service.impl;
+
+import com.enterprise_wrapper_api.wrapper_api.extract.DocumentExtractor;
+import com.enterprise_wrapper_api.wrapper_api.llm.LlmGateway;
+import com.enterprise_wrapper_api.wrapper_api.model.ResumeMatchResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of the JSON match verdict the model returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class MatchResponseParsingBenchmark {
+
+    private static final String VERDICT = """
+            {"matchScore": 72,
+             "missingSkills": ["Kubernetes", "Terraform", "gRPC", "Kafka Streams"],
+             "summary": "Strong Java and Spring background with relevant API work. Lacks the platform and streaming experience the role asks for."}
+            """;
+
+    private ResumeMatchService service;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        // Never called; parsing does not touch the network
+        LlmGateway gateway = new LlmGateway(WebClient.builder(), "http://localhost:1", "key", "bench-model",
+                1, Duration.ofSeconds(60), 0, 0, Duration.ofSeconds(1), objectMapper, new SimpleMeterRegistry());
+        service = new ResumeMatchService(gateway, objectMapper,
+                new MatchResultCache(false, 1, Duration.ofHours(1), null, objectMapper), DocumentExtractor.uncached(),
+                new SkillPrefilter(SkillPrefilter.Mode.OFF, List.of(), 0, 0), 1, 1, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public ResumeMatchResponse parseMatch() throws Exception {
+        return service.parseMatch(VERDICT);
+    }
+}
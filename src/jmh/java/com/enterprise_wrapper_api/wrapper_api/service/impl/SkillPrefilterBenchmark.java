@@ -0,0 +1,57 @@
+package com.enterprise_wrapper_api.wrapper_api.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local skill scoring of one ~6,000-character resume against a job
+ * description, with the bundled dictionary: the per-candidate cost of the
+ * match prefilter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class SkillPrefilterBenchmark {
+
+    private static final String[] WORDS = {
+            "designed", "built", "services", "team", "Java", "Spring Boot", "Kafka", "latency", "customers",
+            "migrated", "PostgreSQL", "Kubernetes", "reduced", "costs", "React", "pipelines", "AWS", "the",
+            "and", "with", "for", "on-call", "Terraform", "mentored", "engineers", "Python", "dashboards"
+    };
+
+    private SkillPrefilter prefilter;
+    private SkillPrefilter.JobProfile job;
+    private String resume;
+
+    @Setup
+    public void setUp() {
+        prefilter = new SkillPrefilter("escalate", "", 20, 30);
+        job = prefilter.profile("Senior backend engineer: Java, Spring Boot, Kafka, PostgreSQL, Kubernetes on AWS, "
+                + "Terraform, CI/CD, observability with Prometheus and Grafana. Mentoring experience a plus.");
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 6_000) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+        resume = text.toString();
+    }
+
+    @Benchmark
+    public SkillPrefilter.SkillScore score() {
+        return prefilter.score(job, resume);
+    }
+}
@@ -0,0 +1,142 @@
+package com.enterprise_wrapper_api.wrapper_api.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Persistent byte store keyed by hex content hashes, one file per key under
+ * a two-character fan-out directory. Writes go to a temp file and are moved
+ * into place, so readers never see a partial value.
+ */
+public class DiskCache {
+
+    private final Path directory;
+
+    public DiskCache(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create cache directory " + directory, e);
+        }
+    }
+
+    public byte[] get(String key) {
+        try {
+            return Files.readAllBytes(file(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read cache entry " + key, e);
+        }
+    }
+
+    public Path path(String key) {
+        return file(key);
+    }
+
+    public boolean contains(String key) {
+        return Files.exists(file(key));
+    }
+
+    public void put(String key, byte[] value) {
+        Path target = file(key);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), key, ".tmp");
+            Files.write(temp, value);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write cache entry " + key, e);
+        }
+    }
+
+    public void remove(String key) {
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete cache entry " + key, e);
+        }
+    }
+
+    /**
+     * Deletes entries last written before {@code cutoff}, then the oldest of
+     * the rest until at most {@code maxEntries} remain, and returns how many
+     * were deleted. Temp files left by interrupted writes are only deleted
+     * once they are older than {@code cutoff}, so writes in progress survive.
+     */
+    public int evict(Instant cutoff, long maxEntries) {
+        List<Entry> entries = new ArrayList<>();
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                Entry entry = Entry.of(file);
+                if (entry == null) {
+                    continue;
+                }
+                if (!file.getFileName().toString().endsWith(".tmp")) {
+                    entries.add(entry);
+                } else if (entry.written().isBefore(cutoff) && delete(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list cache entries in " + directory, e);
+        }
+
+        entries.sort(Comparator.comparing(Entry::written));
+        long excess = entries.size() - maxEntries;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (i >= excess && !entry.written().isBefore(cutoff)) {
+                break;
+            }
+            if (delete(entry.file())) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private record Entry(Path file, Instant written) {
+
+        // Null when the file went away in the meantime
+        static Entry of(Path file) {
+            try {
+                return new Entry(file, Files.getLastModifiedTime(file).toInstant());
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read cache entry " + file, e);
+            }
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete cache entry " + file, e);
+        }
+    }
+
+    private Path file(String key) {
+        if (key.length() < 3 || !key.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+            throw new IllegalArgumentException("Cache keys must be hex digests");
+        }
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+}
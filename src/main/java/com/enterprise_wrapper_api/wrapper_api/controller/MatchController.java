@@ -1,11 +1,18 @@
 package com.enterprise_wrapper_api.wrapper_api.controller;
 
+import com.enterprise_wrapper_api.wrapper_api.model.BatchMatchEvent;
+import com.enterprise_wrapper_api.wrapper_api.model.BatchMatchRequest;
 import com.enterprise_wrapper_api.wrapper_api.model.ResumeMatchRequest;
 import com.enterprise_wrapper_api.wrapper_api.model.ResumeMatchResponse;
 import com.enterprise_wrapper_api.wrapper_api.service.impl.ResumeMatchService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 @RestController
 public class MatchController {
@@ -18,22 +25,51 @@ public class MatchController {
 
     // ✅ JSON input (resume text + job description)
     @PostMapping("/match")
-    public ResponseEntity<ResumeMatchResponse> match(
+    public Mono<ResponseEntity<ResumeMatchResponse>> match(
             @RequestBody ResumeMatchRequest request) {
 
-        ResumeMatchResponse response = matchService.getMatch(request);
-        return ResponseEntity.ok(response);
+        return matchService.getMatch(request)
+                .map(ResponseEntity::ok);
     }
 
     // ✅ File upload (PDF/DOCX) + job description
     @PostMapping("/upload")
-    public ResponseEntity<ResumeMatchResponse> upload(
+    public Mono<ResponseEntity<ResumeMatchResponse>> upload(
             @RequestParam("file") MultipartFile file,
             @RequestParam("jobDescription") String jobDescription) {
 
-        ResumeMatchResponse response =
-                matchService.matchUploadedResume(file, jobDescription);
+        return matchService.matchUploadedResume(file, jobDescription)
+                .map(ResponseEntity::ok);
+    }
+
+    // ✅ Many resume texts + one job description, streamed back as NDJSON
+    @PostMapping(value = "/match/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<BatchMatchEvent>> matchBatch(
+            @RequestBody BatchMatchRequest request) {
+
+        List<?> resumes = request.getResumes();
+        if (!validBatch(request.getJobDescription(), resumes)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(
+                matchService.screenResumes(request.getJobDescription(), request.getResumes()));
+    }
+
+    // ✅ Many resume files (PDF/DOCX) + one job description, streamed back as NDJSON
+    @PostMapping(value = "/upload/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<BatchMatchEvent>> uploadBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam("jobDescription") String jobDescription) {
+
+        if (!validBatch(jobDescription, files)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(matchService.screenFiles(jobDescription, files));
+    }
 
-        return ResponseEntity.ok(response);
+    private boolean validBatch(String jobDescription, List<?> items) {
+        return jobDescription != null && !jobDescription.isBlank()
+                && items != null && !items.isEmpty()
+                && items.size() <= matchService.maxBatchSize();
     }
 }
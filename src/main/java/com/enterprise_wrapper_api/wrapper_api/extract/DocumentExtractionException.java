@@ -0,0 +1,18 @@
+package com.enterprise_wrapper_api.wrapper_api.extract;
+
+/**
+ * A document could not be turned into text: it was malformed, unsupported or
+ * took longer than {@code extract.timeout}.
+ */
+public class DocumentExtractionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DocumentExtractionException(String message) {
+        super(message);
+    }
+
+    public DocumentExtractionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
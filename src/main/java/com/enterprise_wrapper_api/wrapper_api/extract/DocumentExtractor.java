@@ -0,0 +1,352 @@
+package com.enterprise_wrapper_api.wrapper_api.extract;
+
+import com.enterprise_wrapper_api.wrapper_api.cache.ContentHash;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns uploaded documents into text for both resume matching and RAG.
+ *
+ * Results are cached by a SHA-256 of the file bytes, so a repeat upload
+ * skips parsing. Only complete text is cached: a document cut off at the
+ * character limit is parsed again each time, so streamed ingestion, which
+ * reads the same entries, never mistakes a cut-off text for the whole
+ * document. PDFs go straight to PDFBox; other types use the Tika parser
+ * registered for the declared content type, built once at startup, and only
+ * fall back to auto-detection when the type is missing or unknown.
+ *
+ * Parsing runs on a bounded pool of {@code extract.threads} with a queue of
+ * {@code extract.queue-capacity}. A document gets {@code extract.timeout}
+ * before its caller gives up and the worker is interrupted, and text beyond
+ * {@code extract.max-chars} is cut off, so a few pathological files cannot
+ * hold the pool or the heap.
+ */
+@Component
+public class DocumentExtractor {
+
+    public static final String PDF = "application/pdf";
+
+    // Appended after each PDF page, so callers can tell which page text came from
+    public static final char PAGE_BREAK = '\f';
+
+    private static final int PDF_PAGES_PER_BATCH = 8;
+
+    private final ExtractedTextCache cache;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final int maxChars;
+    private final AutoDetectParser autoDetect = new AutoDetectParser();
+    private final Map<MediaType, Parser> parsersByType = autoDetect.getParsers();
+
+    public DocumentExtractor(
+            @Value("${extract.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${extract.cache.max-bytes:67108864}") long cacheMaxBytes,
+            @Value("${extract.cache.disk-dir:}") String cacheDiskDir,
+            @Value("${extract.threads:4}") int threads,
+            @Value("${extract.queue-capacity:64}") int queueCapacity,
+            @Value("${extract.timeout:30s}") Duration timeout,
+            @Value("${extract.max-chars:1000000}") int maxChars) {
+        this.cache = new ExtractedTextCache(cacheEnabled, cacheMaxBytes, cacheDiskDir);
+        this.timeout = timeout;
+        this.maxChars = maxChars;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "extract-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static DocumentExtractor uncached() {
+        return new DocumentExtractor(false, 0, null, 2, 64, Duration.ofSeconds(30), 1_000_000);
+    }
+
+    // Text stripper for every PDF, whole or streamed, so both produce the same text and can share cache entries
+    private static PDFTextStripper pdfTextStripper() throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setPageEnd(stripper.getPageEnd() + PAGE_BREAK);
+        return stripper;
+    }
+
+    public int maxChars() {
+        return maxChars;
+    }
+
+    /**
+     * Returns the document's text, from the cache when the same bytes were
+     * extracted before.
+     *
+     * @throws DocumentExtractionException when parsing fails or times out
+     * @throws java.util.concurrent.RejectedExecutionException when the parse queue is full
+     */
+    public String extract(InputStreamSource source, String contentType) {
+        return extractDocument(source, contentType).text();
+    }
+
+    // Same as extract, telling the caller whether the text was cut off
+    public ExtractedText extractDocument(InputStreamSource source, String contentType) {
+        String key = cacheKey(source, contentType);
+        String cached = cache.get(key);
+        if (cached != null) {
+            return new ExtractedText(cached, false);
+        }
+
+        ExtractedText text = await(executor.submit(() -> parse(source, contentType)));
+        if (!text.truncated()) {
+            cache.put(key, text.text());
+        }
+        return text;
+    }
+
+    /**
+     * Cache key for a document's bytes, or {@code null} when caching is off.
+     * Callers that extract on their own, like streamed ingestion, use it with
+     * {@link #cached} and {@link #cache}, and must only cache complete text.
+     */
+    public String cacheKey(InputStreamSource source, String contentType) {
+        if (!cache.enabled()) {
+            return null;
+        }
+        try (InputStream in = source.getInputStream()) {
+            return ContentHash.sha256(extractorFor(contentType), String.valueOf(maxChars), ContentHash.sha256(in));
+        } catch (IOException e) {
+            throw new DocumentExtractionException("Failed to read upload", e);
+        }
+    }
+
+    /**
+     * Receives the text of one page batch, ending in {@link #PAGE_BREAK}s,
+     * and the last page it covers.
+     */
+    @FunctionalInterface
+    public interface PageBatchSink {
+        void accept(String text, int lastPage, int pages) throws IOException;
+    }
+
+    /**
+     * Streams a PDF's text {@code pagesPerBatch} pages at a time, bypassing
+     * the cache. One pool task owns the document from load to close and
+     * parses at most one batch ahead; {@code sink} runs on the calling thread
+     * in between. Only the caller's waits for the next batch count against
+     * {@code extract.timeout}. On a timeout the caller gives up at once and the
+     * task, which PDFBox may not let notice the interrupt until its current
+     * batch is done, closes the document itself.
+     *
+     * @throws DocumentExtractionException when parsing fails or times out
+     * @throws java.util.concurrent.RejectedExecutionException when the parse queue is full
+     */
+    public void streamPdf(InputStreamSource source, int pagesPerBatch, PageBatchSink sink) throws IOException {
+        BlockingQueue<PageBatch> handoff = new ArrayBlockingQueue<>(1);
+        AtomicBoolean abandoned = new AtomicBoolean();
+        Future<?> parse = executor.submit(() -> parsePdfBatches(source, pagesPerBatch, handoff, abandoned));
+        long remaining = timeout.toNanos();
+        try {
+            while (true) {
+                long wait = System.nanoTime();
+                PageBatch batch = handoff.poll(remaining, TimeUnit.NANOSECONDS);
+                remaining -= System.nanoTime() - wait;
+                if (batch == null) {
+                    throw timedOut();
+                }
+                if (batch.failure() != null) {
+                    throw failed(batch.failure());
+                }
+                if (batch.text() == null) {
+                    return;
+                }
+                sink.accept(batch.text(), batch.lastPage(), batch.pages());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DocumentExtractionException("Interrupted while extracting text", e);
+        } finally {
+            abandoned.set(true);
+            parse.cancel(true);
+        }
+    }
+
+    public String cached(String key) {
+        return key == null ? null : cache.get(key);
+    }
+
+    public void cache(String key, String text) {
+        if (key != null) {
+            cache.put(key, text);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    // PDFBox and Tika lay text out differently, so their results never share a key
+    private static String extractorFor(String contentType) {
+        return PDF.equals(baseType(contentType)) ? "pdfbox-paged" : "tika";
+    }
+
+    // One page batch, the end of the document (no text) or what went wrong
+    private record PageBatch(String text, int lastPage, int pages, Throwable failure) {
+    }
+
+    private <T> T await(Future<T> parse) {
+        try {
+            return parse.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // PDFBox and Tika check for interrupts between pages at best; the worker is freed once they do
+            parse.cancel(true);
+            throw timedOut();
+        } catch (ExecutionException e) {
+            throw failed(e.getCause());
+        } catch (InterruptedException e) {
+            parse.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new DocumentExtractionException("Interrupted while extracting text", e);
+        }
+    }
+
+    private DocumentExtractionException timedOut() {
+        return new DocumentExtractionException("Text extraction timed out after " + timeout.toSeconds() + "s");
+    }
+
+    private static DocumentExtractionException failed(Throwable cause) {
+        return cause instanceof DocumentExtractionException failure
+                ? failure
+                : new DocumentExtractionException("Failed to extract text", cause);
+    }
+
+    // Runs on the pool; the document never leaves this method, so it is closed by the thread that used it
+    private void parsePdfBatches(InputStreamSource source, int pagesPerBatch, BlockingQueue<PageBatch> handoff,
+                                 AtomicBoolean abandoned) {
+        PageBatch last;
+        try (InputStream in = source.getInputStream();
+             PDDocument document = PDDocument.load(in, MemoryUsageSetting.setupTempFileOnly())) {
+
+            PDFTextStripper stripper = pdfTextStripper();
+            int pages = document.getNumberOfPages();
+            for (int page = 1; page <= pages; page += pagesPerBatch) {
+                if (abandoned.get()) {
+                    return;
+                }
+                int lastPage = Math.min(pages, page + pagesPerBatch - 1);
+                stripper.setStartPage(page);
+                stripper.setEndPage(lastPage);
+                if (!handOver(handoff, new PageBatch(stripper.getText(document), lastPage, pages, null), abandoned)) {
+                    return;
+                }
+            }
+            last = new PageBatch(null, pages, pages, null);
+        } catch (Throwable e) {
+            last = new PageBatch(null, 0, 0, e);
+        }
+        handOver(handoff, last, abandoned);
+    }
+
+    // Waits for the caller to take the batch; false once it has given up
+    private static boolean handOver(BlockingQueue<PageBatch> handoff, PageBatch batch, AtomicBoolean abandoned) {
+        try {
+            while (!abandoned.get()) {
+                if (handoff.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private ExtractedText parse(InputStreamSource source, String contentType) throws IOException {
+        return PDF.equals(baseType(contentType)) ? parsePdf(source) : parseWithTika(source, contentType);
+    }
+
+    // Page batches, stopping early on interrupt or once the character limit is reached
+    private ExtractedText parsePdf(InputStreamSource source) throws IOException {
+        try (InputStream in = source.getInputStream();
+             PDDocument document = PDDocument.load(in, MemoryUsageSetting.setupTempFileOnly())) {
+
+            PDFTextStripper stripper = pdfTextStripper();
+            StringBuilder text = new StringBuilder();
+            int pages = document.getNumberOfPages();
+            for (int page = 1; page <= pages && text.length() <= maxChars; page += PDF_PAGES_PER_BATCH) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new DocumentExtractionException("Text extraction was cancelled");
+                }
+                stripper.setStartPage(page);
+                stripper.setEndPage(Math.min(pages, page + PDF_PAGES_PER_BATCH - 1));
+                text.append(stripper.getText(document));
+            }
+            boolean truncated = text.length() > maxChars;
+            if (truncated) {
+                text.setLength(maxChars);
+            }
+            return new ExtractedText(text.toString(), truncated);
+        }
+    }
+
+    private ExtractedText parseWithTika(InputStreamSource source, String contentType) throws IOException {
+        Parser parser = contentType == null ? null : parsersByType.get(MediaType.parse(baseType(contentType)));
+        Metadata metadata = new Metadata();
+        if (parser == null) {
+            parser = autoDetect;
+        } else {
+            metadata.set(Metadata.CONTENT_TYPE, contentType);
+        }
+
+        BodyContentHandler handler = new BodyContentHandler(maxChars);
+        boolean truncated = false;
+        try (InputStream in = source.getInputStream()) {
+            parser.parse(in, handler, metadata, new ParseContext());
+        } catch (Exception e) {
+            // Hitting the limit is not an error: keep what fits
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                throw new DocumentExtractionException("Failed to extract text", e);
+            }
+            truncated = true;
+        }
+        return new ExtractedText(handler.toString(), truncated);
+    }
+
+    private static String baseType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int parameters = contentType.indexOf(';');
+        return (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase();
+    }
+}
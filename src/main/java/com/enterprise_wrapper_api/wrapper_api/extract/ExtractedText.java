@@ -0,0 +1,7 @@
+package com.enterprise_wrapper_api.wrapper_api.extract;
+
+/**
+ * A document's text and whether it was cut off at {@code extract.max-chars}.
+ */
+public record ExtractedText(String text, boolean truncated) {
+}
@@ -0,0 +1,78 @@
+package com.enterprise_wrapper_api.wrapper_api.extract;
+
+import com.enterprise_wrapper_api.wrapper_api.cache.DiskCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Extracted text by content key: a Caffeine tier bounded by bytes, with an
+ * optional write-through disk tier that survives restarts. The disk tier is
+ * best-effort: a failed read is a miss and a failed write only logs, so an
+ * extraction that succeeded never fails because it could not be cached.
+ */
+final class ExtractedTextCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractedTextCache.class);
+
+    private final boolean enabled;
+    private final Cache<String, String> memory;
+    private final DiskCache disk;
+
+    ExtractedTextCache(boolean enabled, long maxBytes, String diskDir) {
+        this.enabled = enabled;
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, String text) -> text.length() * 2 + key.length())
+                .build();
+        this.disk = enabled && diskDir != null && !diskDir.isBlank() ? new DiskCache(Path.of(diskDir)) : null;
+    }
+
+    boolean enabled() {
+        return enabled;
+    }
+
+    // Cached text, promoting disk hits into memory, or null on a miss
+    String get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        String text = memory.getIfPresent(key);
+        if (text == null && disk != null) {
+            byte[] bytes = readDisk(key);
+            if (bytes != null) {
+                text = new String(bytes, StandardCharsets.UTF_8);
+                memory.put(key, text);
+            }
+        }
+        return text;
+    }
+
+    void put(String key, String text) {
+        if (!enabled) {
+            return;
+        }
+        memory.put(key, text);
+        if (disk != null) {
+            try {
+                disk.put(key, text.getBytes(StandardCharsets.UTF_8));
+            } catch (UncheckedIOException e) {
+                log.warn("Could not persist extracted text {}; it stays cached in memory only", key, e);
+            }
+        }
+    }
+
+    private byte[] readDisk(String key) {
+        try {
+            return disk.get(key);
+        } catch (UncheckedIOException e) {
+            log.warn("Could not read extracted text {} from disk", key, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.enterprise_wrapper_api.wrapper_api.llm;
+
+import com.enterprise_wrapper_api.wrapper_api.cache.ContentHash;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single entry point for Groq chat completions.
+ *
+ * All callers share one WebClient over a bounded Reactor Netty connection
+ * pool with keep-alive, so TLS handshakes are paid once per connection rather
+ * than per request. Identical non-streaming requests that overlap in time are
+ * coalesced into one upstream call. Every call first reserves capacity from
+ * client-side request and token buckets sized to the account's Groq quota;
+ * bursts wait for their slot instead of running into 429s.
+ *
+ * Every upstream call is timed as {@code llm.requests} tagged by type and
+ * outcome, and failures count towards {@code llm.errors} by reason.
+ */
+@Component
+public class LlmGateway {
+
+    private static final double TEMPERATURE = 0.2;
+    private static final Duration CALL_TIMEOUT = Duration.ofSeconds(30);
+    private static final String STREAM_DONE = "[DONE]";
+
+    // Rough prompt size in tokens for the token bucket; Groq counts prompt + completion
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final WebClient webClient;
+    private final ConnectionProvider connections;
+    private final ObjectMapper objectMapper;
+    private final String model;
+    private final Duration maxWait;
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Counter coalesced;
+    private final Timer throttleWait;
+    private final Timer firstToken;
+
+    public LlmGateway(
+            WebClient.Builder builder,
+            @Value("${groq.api.url}") String groqUrl,
+            @Value("${groq.api.key}") String apiKey,
+            @Value("${llm.model:llama-3.1-8b-instant}") String model,
+            @Value("${llm.pool.max-connections:100}") int maxConnections,
+            @Value("${llm.pool.max-idle-time:60s}") Duration maxIdleTime,
+            @Value("${llm.rate-limit.requests-per-minute:30}") int requestsPerMinute,
+            @Value("${llm.rate-limit.tokens-per-minute:6000}") int tokensPerMinute,
+            @Value("${llm.rate-limit.max-wait:60s}") Duration maxWait,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.connections = ConnectionProvider.builder("llm")
+                .maxConnections(maxConnections)
+                .maxIdleTime(maxIdleTime)
+                .pendingAcquireTimeout(CALL_TIMEOUT)
+                .evictInBackground(maxIdleTime)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connections)
+                .keepAlive(true)
+                .compress(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5_000)
+                .option(ChannelOption.SO_KEEPALIVE, true);
+
+        this.webClient = builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .baseUrl(groqUrl)
+                .defaultHeader("Authorization", "Bearer " + apiKey)
+                .defaultHeader("Content-Type", "application/json")
+                .build();
+        this.objectMapper = objectMapper;
+        this.model = model;
+        this.maxWait = maxWait;
+
+        long now = System.nanoTime();
+        this.requestBucket = new TokenBucket(requestsPerMinute, now);
+        this.tokenBucket = new TokenBucket(tokensPerMinute, now);
+
+        this.meterRegistry = meterRegistry;
+        this.coalesced = Counter.builder("llm.coalesced")
+                .description("Completions served by joining an identical in-flight call")
+                .register(meterRegistry);
+        this.throttleWait = Timer.builder("llm.rate-limit.wait")
+                .description("Time a call waited for client-side rate limit capacity")
+                .register(meterRegistry);
+        this.firstToken = Timer.builder("llm.stream.first-token")
+                .description("Time from sending a streaming request to its first content token")
+                .register(meterRegistry);
+    }
+
+    public String model() {
+        return model;
+    }
+
+    /**
+     * Returns the assistant message for a single-turn prompt. Callers that
+     * send the same request while an identical one is in flight share its
+     * result.
+     */
+    public Mono<String> complete(String prompt, int maxTokens, boolean jsonResponse) {
+        Map<String, Object> body = body(prompt, maxTokens);
+        if (jsonResponse) {
+            body.put("response_format", Map.of("type", "json_object"));
+        }
+
+        String key;
+        try {
+            key = ContentHash.sha256(objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+
+        return Mono.defer(() -> {
+            AtomicReference<Mono<String>> created = new AtomicReference<>();
+            Mono<String> shared = inFlight.computeIfAbsent(key, k -> {
+                // Removed before the result reaches the waiters, so a caller that has
+                // seen it never joins the finished call; cache() keeps the upstream
+                // call alive if one of the waiters cancels
+                Mono<String> call = timed("complete", throttled(prompt, maxTokens, post(body)))
+                        .doOnTerminate(() -> inFlight.remove(k, created.get()))
+                        .cache();
+                created.set(call);
+                return call;
+            });
+            if (created.get() == null) {
+                coalesced.increment();
+            }
+            return shared;
+        });
+    }
+
+    /**
+     * Streams content deltas for a single-turn prompt. Streams are never
+     * coalesced; cancelling the subscription closes the upstream connection.
+     */
+    public Flux<String> stream(String prompt, int maxTokens) {
+        Map<String, Object> body = body(prompt, maxTokens);
+        body.put("stream", true);
+
+        Flux<String> upstream = webClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                })
+                .timeout(CALL_TIMEOUT)
+                .mapNotNull(ServerSentEvent::data)
+                .takeWhile(data -> !STREAM_DONE.equals(data.trim()))
+                .handle((data, sink) -> {
+                    String token = parseDelta(data);
+                    if (token != null && !token.isEmpty()) {
+                        sink.next(token);
+                    }
+                });
+
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            boolean[] seen = new boolean[1];
+            return reserve(prompt, maxTokens)
+                    .flatMapMany(wait -> upstream)
+                    .doOnNext(token -> {
+                        if (!seen[0]) {
+                            seen[0] = true;
+                            firstToken.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    })
+                    .doOnComplete(() -> record("stream", "success", start))
+                    .doOnError(e -> record("stream", failure(e), start))
+                    .doOnCancel(() -> record("stream", "cancelled", start));
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        connections.dispose();
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private Map<String, Object> body(String prompt, int maxTokens) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", model);
+        body.put("messages", List.of(Map.of("role", "user", "content", prompt)));
+        body.put("temperature", TEMPERATURE);
+        body.put("max_tokens", maxTokens);
+        return body;
+    }
+
+    private Mono<String> post(Map<String, Object> body) {
+        return webClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(CALL_TIMEOUT)
+                // A 429 means our bucket drifted from the server's; back off briefly and retry
+                .retryWhen(Retry.backoff(2, Duration.ofSeconds(1))
+                        .filter(e -> e instanceof WebClientResponseException response
+                                && response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .map(response -> response.path("choices").path(0).path("message").path("content").asText(""));
+    }
+
+    // Times one upstream call from reservation to result
+    private <T> Mono<T> timed(String type, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(result -> record(type, "success", start))
+                    .doOnError(e -> record(type, failure(e), start))
+                    .doOnCancel(() -> record(type, "cancelled", start));
+        });
+    }
+
+    private void record(String type, String outcome, long start) {
+        Timer.builder("llm.requests")
+                .description("Groq chat completion calls")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Classifies a failed call and counts it under llm.errors
+    private String failure(Throwable e) {
+        String reason;
+        if (e instanceof TimeoutException) {
+            reason = "timeout";
+        } else if (e instanceof LlmRateLimitException) {
+            reason = "throttled";
+        } else if (e instanceof WebClientResponseException response) {
+            reason = response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS ? "rate_limited"
+                    : response.getStatusCode().is5xxServerError() ? "server_error" : "client_error";
+        } else if (e instanceof WebClientRequestException) {
+            reason = "connection";
+        } else {
+            reason = "error";
+        }
+        meterRegistry.counter("llm.errors", "reason", reason).increment();
+        return reason;
+    }
+
+    private <T> Mono<T> throttled(String prompt, int maxTokens, Mono<T> call) {
+        return reserve(prompt, maxTokens).then(call);
+    }
+
+    /**
+     * Reserves one request and the estimated tokens from both buckets, then
+     * completes once the reservation is due. Fails without reserving anything
+     * when the wait would exceed {@code llm.rate-limit.max-wait}.
+     */
+    private Mono<Long> reserve(String prompt, int maxTokens) {
+        return Mono.defer(() -> {
+            double tokens = prompt.length() / (double) CHARS_PER_TOKEN + maxTokens;
+            long wait;
+            synchronized (requestBucket) {
+                long now = System.nanoTime();
+                wait = Math.max(requestBucket.nanosUntil(1, now), tokenBucket.nanosUntil(tokens, now));
+                if (wait > maxWait.toNanos()) {
+                    return Mono.error(new LlmRateLimitException(
+                            "LLM rate limit: request would wait " + Duration.ofNanos(wait).toSeconds() + "s"));
+                }
+                requestBucket.take(1, now);
+                tokenBucket.take(tokens, now);
+            }
+            throttleWait.record(wait, TimeUnit.NANOSECONDS);
+            return wait == 0 ? Mono.just(0L) : Mono.delay(Duration.ofNanos(wait)).thenReturn(wait);
+        });
+    }
+
+    // Each chunk is {"choices":[{"delta":{"content":"..."}}]}; role-only and final chunks have no content
+    private String parseDelta(String data) {
+        try {
+            JsonNode content = objectMapper.readTree(data).path("choices").path(0).path("delta").path("content");
+            return content.isTextual() ? content.asText() : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Malformed stream chunk from LLM: " + data, e);
+        }
+    }
+}
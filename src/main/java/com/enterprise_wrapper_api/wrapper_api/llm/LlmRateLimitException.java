@@ -0,0 +1,14 @@
+package com.enterprise_wrapper_api.wrapper_api.llm;
+
+/**
+ * Raised when a request would have to queue longer than
+ * {@code llm.rate-limit.max-wait} for the client-side rate limit.
+ */
+public class LlmRateLimitException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LlmRateLimitException(String message) {
+        super(message);
+    }
+}
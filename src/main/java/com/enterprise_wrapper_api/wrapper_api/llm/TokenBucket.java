@@ -0,0 +1,60 @@
+package com.enterprise_wrapper_api.wrapper_api.llm;
+
+/**
+ * Token bucket that refills continuously up to {@code capacity}. Callers
+ * reserve permits ahead of time, so a burst is spread out as increasing
+ * delays instead of being rejected. Not thread-safe; {@link LlmGateway}
+ * guards its buckets with one lock so a request reserves all of them or none.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double permitsPerNano;
+    private double available;
+    private long lastRefill;
+
+    /**
+     * @param perMinute permits added per minute, which is also the burst
+     *                  capacity; 0 or less disables the limit
+     */
+    TokenBucket(double perMinute, long now) {
+        this.capacity = perMinute;
+        this.permitsPerNano = perMinute / 60_000_000_000.0;
+        this.available = perMinute;
+        this.lastRefill = now;
+    }
+
+    boolean enabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Nanoseconds until {@code permits} would be available. Requests larger
+     * than the capacity are clamped to it, so they wait for a full bucket
+     * instead of forever.
+     */
+    long nanosUntil(double permits, long now) {
+        if (!enabled()) {
+            return 0;
+        }
+        refill(now);
+        double missing = Math.min(permits, capacity) - available;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / permitsPerNano);
+    }
+
+    // May go negative: the debt is what makes later reservations wait
+    void take(double permits, long now) {
+        if (!enabled()) {
+            return;
+        }
+        refill(now);
+        available -= Math.min(permits, capacity);
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            available = Math.min(capacity, available + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+        }
+    }
+}
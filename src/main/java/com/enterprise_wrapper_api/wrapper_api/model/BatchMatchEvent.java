@@ -0,0 +1,60 @@
+package com.enterprise_wrapper_api.wrapper_api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One line of a batch screening stream: a {@code result} per candidate
+ * (with either {@code match} or {@code error} set), then a final
+ * {@code ranking}. With the skill prefilter on, results also carry the
+ * local {@code skillScore} and whether the candidate was {@code escalated}
+ * to the LLM; otherwise {@code match} is the local skill match.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchMatchEvent {
+    private String type;
+    private Integer index;
+    private String candidateId;
+    private ResumeMatchResponse match;
+    private Double skillScore;
+    private Boolean escalated;
+    private String error;
+    private List<RankedCandidate> ranking;
+
+    public static BatchMatchEvent result(int index, String candidateId, ResumeMatchResponse match) {
+        return new BatchMatchEvent("result", index, candidateId, match, null, null, null, null);
+    }
+
+    public static BatchMatchEvent result(int index, String candidateId, ResumeMatchResponse match,
+                                         double skillScore, boolean escalated) {
+        return new BatchMatchEvent("result", index, candidateId, match, skillScore, escalated, null, null);
+    }
+
+    public static BatchMatchEvent failure(int index, String candidateId, String error) {
+        return new BatchMatchEvent("result", index, candidateId, null, null, null, error, null);
+    }
+
+    // Candidates scored by the LLM before those scored locally, then highest score first; ties keep submission order
+    public static BatchMatchEvent ranking(List<BatchMatchEvent> results) {
+        List<BatchMatchEvent> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparing((BatchMatchEvent e) -> Boolean.FALSE.equals(e.getEscalated()))
+                .thenComparing(Comparator.comparingDouble((BatchMatchEvent e) -> e.getMatch().getMatchScore()).reversed())
+                .thenComparing(BatchMatchEvent::getIndex));
+
+        List<RankedCandidate> ranking = new ArrayList<>(sorted.size());
+        for (BatchMatchEvent event : sorted) {
+            ranking.add(new RankedCandidate(ranking.size() + 1, event.getIndex(), event.getCandidateId(),
+                    event.getMatch().getMatchScore(), event.getEscalated()));
+        }
+        return new BatchMatchEvent("ranking", null, null, null, null, null, null, ranking);
+    }
+}
@@ -0,0 +1,15 @@
+package com.enterprise_wrapper_api.wrapper_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchMatchRequest {
+    private String jobDescription;
+    private List<CandidateResume> resumes;
+}
@@ -0,0 +1,13 @@
+package com.enterprise_wrapper_api.wrapper_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CandidateResume {
+    private String candidateId;
+    private String resumeText;
+}
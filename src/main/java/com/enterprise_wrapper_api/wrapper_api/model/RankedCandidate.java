@@ -0,0 +1,19 @@
+package com.enterprise_wrapper_api.wrapper_api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RankedCandidate {
+    private int rank;
+    private int index;
+    private String candidateId;
+    private double matchScore;
+    // Set when the skill prefilter ran: false means matchScore is the local skill score
+    private Boolean escalated;
+}
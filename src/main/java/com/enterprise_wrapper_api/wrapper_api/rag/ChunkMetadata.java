@@ -0,0 +1,86 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+
+/**
+ * Metadata columns of one segment. The document id and upload time are the
+ * same for every row, so they prune whole segments; the page varies per row
+ * and is kept as a primitive column plus one compressed bitmap of rows per
+ * distinct page.
+ */
+final class ChunkMetadata {
+
+    // Page of chunks whose position in the source is not known
+    static final int UNKNOWN_PAGE = 0;
+
+    private final long uploadedAt;
+    private final int[] pages;
+    private final int[] distinctPages;
+    private final RoaringBitmap[] pageRows;
+
+    ChunkMetadata(long uploadedAt, int[] pages) {
+        this.uploadedAt = uploadedAt;
+        this.pages = pages;
+
+        int[] sorted = pages.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        this.distinctPages = Arrays.copyOf(sorted, distinct);
+        this.pageRows = new RoaringBitmap[distinct];
+        for (int i = 0; i < distinct; i++) {
+            pageRows[i] = new RoaringBitmap();
+        }
+        for (int row = 0; row < pages.length; row++) {
+            pageRows[Arrays.binarySearch(distinctPages, pages[row])].add(row);
+        }
+        for (RoaringBitmap rows : pageRows) {
+            rows.runOptimize();
+        }
+    }
+
+    // Epoch millis at which the document was uploaded
+    long uploadedAt() {
+        return uploadedAt;
+    }
+
+    int page(int row) {
+        return pages[row];
+    }
+
+    int rows() {
+        return pages.length;
+    }
+
+    /**
+     * Rows whose page lies in {@code [minPage, maxPage]}: the union of the
+     * per-page bitmaps in that range, found by binary search. The result
+     * may be shared and must not be modified.
+     */
+    RoaringBitmap rowsOnPages(int minPage, int maxPage) {
+        int from = lowerBound(distinctPages, minPage);
+        int to = maxPage == Integer.MAX_VALUE ? distinctPages.length : lowerBound(distinctPages, maxPage + 1);
+        if (from >= to) {
+            return new RoaringBitmap();
+        }
+        if (to - from == 1) {
+            return pageRows[from];
+        }
+        return RoaringBitmap.or(Arrays.asList(pageRows).subList(from, to).iterator());
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private static int lowerBound(int[] sorted, int value) {
+        int index = Arrays.binarySearch(sorted, value);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,269 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Packs retrieved chunks into a RAG prompt under a token budget.
+ *
+ * Chunks are taken best-first. A chunk that overlaps a passage already
+ * taken from the same document is merged into it (the chunker's overlap is
+ * only kept once), and a chunk contained in one is dropped. Passages whose
+ * word shingles are mostly covered by a better-ranked passage are dropped as
+ * near-duplicates. The rest fill {@code rag.context.max-tokens} in relevance
+ * order, and the prompt is written into one buffer sized up front.
+ */
+@Component
+public class ContextAssembler {
+
+    private static final String HEADER = "Use the following context to answer the question:\n";
+    private static final String SEPARATOR = "\n---\n";
+    private static final String QUESTION = "\nQuestion: ";
+
+    // The chunker backs its overlap up to a word start, so real overlaps can be short; shorter matches are noise
+    private static final int MIN_MERGE_CHARS = 8;
+    private static final int SHINGLE_WORDS = 3;
+
+    private final int maxTokens;
+    private final int candidates;
+    private final double duplicateThreshold;
+
+    public ContextAssembler(
+            @Value("${rag.context.max-tokens:1500}") int maxTokens,
+            @Value("${rag.context.candidates:8}") int candidates,
+            @Value("${rag.context.duplicate-threshold:0.9}") double duplicateThreshold) {
+        this.maxTokens = Math.max(1, maxTokens);
+        this.candidates = Math.max(1, candidates);
+        this.duplicateThreshold = duplicateThreshold;
+    }
+
+    // How many chunks to retrieve before packing
+    public int candidates() {
+        return candidates;
+    }
+
+    public String buildPrompt(List<RetrievedChunk> ranked, String query) {
+        List<String> passages = pack(ranked);
+
+        int capacity = HEADER.length() + QUESTION.length() + query.length();
+        for (String passage : passages) {
+            capacity += passage.length() + SEPARATOR.length();
+        }
+        StringBuilder prompt = new StringBuilder(capacity).append(HEADER);
+        for (int i = 0; i < passages.size(); i++) {
+            if (i > 0) {
+                prompt.append(SEPARATOR);
+            }
+            prompt.append(passages.get(i));
+        }
+        return prompt.append(QUESTION).append(query).toString();
+    }
+
+    /**
+     * Merged, de-duplicated passages in relevance order that fit the token
+     * budget together with their separators.
+     */
+    List<String> pack(List<RetrievedChunk> ranked) {
+        List<Passage> passages = merge(ranked);
+
+        List<String> packed = new ArrayList<>(passages.size());
+        List<int[]> keptShingles = new ArrayList<>(passages.size());
+        int budget = maxTokens;
+        for (Passage passage : passages) {
+            int[] shingles = shingles(passage.text);
+            if (isNearDuplicate(shingles, keptShingles)) {
+                continue;
+            }
+            int cost = estimateTokens(passage.text) + (packed.isEmpty() ? 0 : estimateTokens(SEPARATOR));
+            if (cost <= budget) {
+                packed.add(passage.text);
+                keptShingles.add(shingles);
+                budget -= cost;
+            } else if (packed.isEmpty()) {
+                // Never send an empty context because the best passage alone is too long
+                packed.add(truncate(passage.text, budget * TextChunker.CHARS_PER_TOKEN));
+                keptShingles.add(shingles);
+                budget = 0;
+            }
+            // Otherwise a shorter, lower-ranked passage may still fit
+        }
+        return packed;
+    }
+
+    static int estimateTokens(CharSequence text) {
+        return (text.length() + TextChunker.CHARS_PER_TOKEN - 1) / TextChunker.CHARS_PER_TOKEN;
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private static final class Passage {
+        final String documentId;
+        String text;
+
+        Passage(String documentId, String text) {
+            this.documentId = documentId;
+            this.text = text;
+        }
+    }
+
+    // Folds each chunk into an overlapping passage of the same document, keeping the passage's rank
+    private static List<Passage> merge(List<RetrievedChunk> ranked) {
+        List<Passage> passages = new ArrayList<>(ranked.size());
+        for (RetrievedChunk chunk : ranked) {
+            Passage target = null;
+            for (Passage passage : passages) {
+                if (passage.documentId.equals(chunk.documentId()) && absorb(passage, chunk.text())) {
+                    target = passage;
+                    break;
+                }
+            }
+            if (target == null) {
+                passages.add(new Passage(chunk.documentId(), chunk.text()));
+                continue;
+            }
+            // The grown passage may now bridge to a lower-ranked one
+            for (int i = passages.size() - 1; i >= 0; i--) {
+                Passage other = passages.get(i);
+                if (other != target && other.documentId.equals(target.documentId) && absorb(target, other.text)) {
+                    passages.remove(i);
+                }
+            }
+        }
+        return passages;
+    }
+
+    // Merges text into the passage when one contains the other or they overlap end to start
+    private static boolean absorb(Passage passage, String text) {
+        int tail = overlap(passage.text, text);
+        if (tail == text.length()) {
+            return true;
+        }
+        if (tail >= MIN_MERGE_CHARS) {
+            passage.text = passage.text + text.substring(tail);
+            return true;
+        }
+        int head = overlap(text, passage.text);
+        if (head == passage.text.length()) {
+            passage.text = text;
+            return true;
+        }
+        if (head >= MIN_MERGE_CHARS) {
+            passage.text = text + passage.text.substring(head);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Length of the longest suffix of {@code a} that is a prefix of
+     * {@code b}, or {@code b.length()} when {@code b} occurs anywhere in
+     * {@code a}. One KMP pass over {@code a}, so linear in both lengths.
+     */
+    static int overlap(String a, String b) {
+        if (b.isEmpty()) {
+            return 0;
+        }
+        int[] failure = new int[b.length()];
+        for (int i = 1, k = 0; i < b.length(); i++) {
+            while (k > 0 && b.charAt(i) != b.charAt(k)) {
+                k = failure[k - 1];
+            }
+            if (b.charAt(i) == b.charAt(k)) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        int matched = 0;
+        for (int i = 0; i < a.length(); i++) {
+            while (matched > 0 && a.charAt(i) != b.charAt(matched)) {
+                matched = failure[matched - 1];
+            }
+            if (a.charAt(i) == b.charAt(matched)) {
+                matched++;
+            }
+            if (matched == b.length()) {
+                return matched;
+            }
+        }
+        return matched;
+    }
+
+    private boolean isNearDuplicate(int[] shingles, List<int[]> kept) {
+        if (shingles.length == 0) {
+            return false;
+        }
+        for (int[] other : kept) {
+            int common = intersectionSize(shingles, other);
+            if (common >= duplicateThreshold * Math.min(shingles.length, other.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Sorted distinct hashes of consecutive lower-cased word triples
+    private static int[] shingles(String text) {
+        String[] words = text.toLowerCase(Locale.ROOT).split("\\W+");
+        List<String> tokens = new ArrayList<>(words.length);
+        for (String word : words) {
+            if (!word.isEmpty()) {
+                tokens.add(word);
+            }
+        }
+        int count = Math.max(0, tokens.size() - SHINGLE_WORDS + 1);
+        if (count == 0 && !tokens.isEmpty()) {
+            return new int[]{String.join(" ", tokens).hashCode()};
+        }
+        int[] hashes = new int[count];
+        for (int i = 0; i < count; i++) {
+            int hash = 1;
+            for (int w = 0; w < SHINGLE_WORDS; w++) {
+                hash = 31 * hash + tokens.get(i + w).hashCode();
+            }
+            hashes[i] = hash;
+        }
+        Arrays.sort(hashes);
+        int distinct = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[distinct++] = hashes[i];
+            }
+        }
+        return Arrays.copyOf(hashes, distinct);
+    }
+
+    private static int intersectionSize(int[] a, int[] b) {
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return common;
+    }
+
+    // Cuts at the last whitespace within the limit so the passage does not end mid-word
+    private static String truncate(String text, int maxChars) {
+        if (text.length() <= maxChars) {
+            return text;
+        }
+        int end = maxChars;
+        while (end > maxChars / 2 && !Character.isWhitespace(text.charAt(end))) {
+            end--;
+        }
+        return text.substring(0, end > maxChars / 2 ? end : maxChars).trim();
+    }
+}
@@ -0,0 +1,138 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import com.enterprise_wrapper_api.wrapper_api.cache.ContentHash;
+import com.enterprise_wrapper_api.wrapper_api.cache.DiskCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed cache of embeddings, keyed by a SHA-256 of the model id
+ * and the whitespace-normalized text.
+ *
+ * The memory tier is a Caffeine cache (W-TinyLFU eviction) bounded by
+ * {@code rag.embedding.cache.max-bytes}. When
+ * {@code rag.embedding.cache.disk-dir} is set, every vector is also written
+ * through to disk, so a restart or an evicted entry costs a file read rather
+ * than a re-embed. The disk tier is best-effort: a failed read is a miss and
+ * a failed write only logs, so ingestion never fails on the cache.
+ *
+ * Hits, misses and evictions are published by {@link EmbeddingCacheMetrics}.
+ */
+@Component
+public class EmbeddingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    public record Stats(long hits, long diskHits, long misses, long evictions, long entries) {
+    }
+
+    private final boolean enabled;
+    private final Cache<String, float[]> memory;
+    private final DiskCache disk;
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EmbeddingCache(
+            @Value("${rag.embedding.cache.enabled:true}") boolean enabled,
+            @Value("${rag.embedding.cache.max-bytes:67108864}") long maxBytes,
+            @Value("${rag.embedding.cache.disk-dir:}") String diskDir) {
+        this.enabled = enabled;
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, float[] vector) -> vector.length * Float.BYTES + key.length())
+                .recordStats()
+                .build();
+        this.disk = enabled && diskDir != null && !diskDir.isBlank() ? new DiskCache(Path.of(diskDir)) : null;
+    }
+
+    public static EmbeddingCache disabled() {
+        return new EmbeddingCache(false, 0, null);
+    }
+
+    public static String key(String modelId, String text) {
+        return ContentHash.sha256(modelId, ContentHash.normalizeText(text));
+    }
+
+    /**
+     * Returns the cached vector, promoting disk hits into memory, or
+     * {@code null} on a miss. The array is shared and must not be modified.
+     */
+    public float[] get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        float[] vector = memory.getIfPresent(key);
+        if (vector != null) {
+            return vector;
+        }
+        if (disk != null) {
+            byte[] bytes = readDisk(key);
+            if (bytes != null) {
+                vector = decode(bytes);
+                memory.put(key, vector);
+                diskHits.increment();
+                return vector;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String key, float[] vector) {
+        if (!enabled) {
+            return;
+        }
+        memory.put(key, vector);
+        if (disk != null) {
+            try {
+                disk.put(key, encode(vector));
+            } catch (UncheckedIOException e) {
+                log.warn("Could not persist embedding {}; it stays cached in memory only", key, e);
+            }
+        }
+    }
+
+    // Memory tier, for Caffeine's own meters
+    Cache<String, float[]> memory() {
+        return memory;
+    }
+
+    public Stats stats() {
+        CacheStats memoryStats = memory.stats();
+        // Caffeine counts a disk hit as a memory miss; report it once, as a disk hit
+        return new Stats(memoryStats.hitCount(), diskHits.sum(), misses.sum(),
+                memoryStats.evictionCount(), memory.estimatedSize());
+    }
+
+    private byte[] readDisk(String key) {
+        try {
+            return disk.get(key);
+        } catch (UncheckedIOException e) {
+            log.warn("Could not read embedding {} from disk", key, e);
+            return null;
+        }
+    }
+
+    private static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
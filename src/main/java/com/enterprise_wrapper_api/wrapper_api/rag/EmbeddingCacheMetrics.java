@@ -0,0 +1,36 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Embedding cache meters. The memory tier reports through Caffeine's own
+ * statistics as {@code cache.*} with {@code cache=embeddings}; a disk hit
+ * shows there as a memory miss, so the disk tier and misses of both tiers
+ * are counted separately.
+ */
+@Component
+public class EmbeddingCacheMetrics implements MeterBinder {
+
+    static final String CACHE_NAME = "embeddings";
+
+    private final EmbeddingCache embeddingCache;
+
+    public EmbeddingCacheMetrics(EmbeddingCache embeddingCache) {
+        this.embeddingCache = embeddingCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, embeddingCache.memory(), CACHE_NAME);
+        FunctionCounter.builder("rag.embedding.cache.disk.hits", embeddingCache, cache -> cache.stats().diskHits())
+                .description("Embeddings read back from the disk tier after a memory miss")
+                .register(registry);
+        FunctionCounter.builder("rag.embedding.cache.misses", embeddingCache, cache -> cache.stats().misses())
+                .description("Embeddings found in neither tier")
+                .register(registry);
+    }
+}
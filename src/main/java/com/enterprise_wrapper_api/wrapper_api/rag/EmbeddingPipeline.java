@@ -0,0 +1,136 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Groups streamed chunks into batches, embeds each batch on a shared
+ * executor and bulk-inserts it into a document writer. At most
+ * {@code maxInFlight} batches are queued or running, so a fast extractor
+ * blocks instead of piling chunks up on the heap.
+ */
+final class EmbeddingPipeline implements PdfService.ChunkSink {
+
+    /**
+     * Called on the worker thread after a batch is embedded;
+     * {@code firstChunk} is the position of the batch's first chunk in the
+     * document and {@code pages[i]} the page of {@code chunks.get(i)}.
+     */
+    interface BatchSink {
+        void accept(int firstChunk, List<String> chunks, int[] pages, float[][] embeddings);
+    }
+
+    private final EmbeddingService embeddingService;
+    private final Executor executor;
+    private final BatchSink sink;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final LongAdder embedNanos = new LongAdder();
+
+    private List<String> batch;
+    private int[] batchPages;
+    private int submitted;
+
+    EmbeddingPipeline(EmbeddingService embeddingService, Executor executor, BatchSink sink,
+                      int batchSize, int maxInFlight) {
+        this.embeddingService = embeddingService;
+        this.executor = executor;
+        this.sink = sink;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.inFlight = new Semaphore(this.maxInFlight);
+        this.batch = new ArrayList<>(this.batchSize);
+        this.batchPages = new int[this.batchSize];
+    }
+
+    @Override
+    public void accept(String chunk, int page) {
+        rethrowFailure();
+        batchPages[batch.size()] = page;
+        batch.add(chunk);
+        if (batch.size() == batchSize) {
+            submit();
+        }
+    }
+
+    /**
+     * Flushes the last partial batch and waits for every batch to be stored.
+     *
+     * @return number of chunks processed
+     */
+    int finish() {
+        if (!batch.isEmpty()) {
+            submit();
+        }
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+        rethrowFailure();
+        return submitted;
+    }
+
+    /**
+     * Stops embedding queued batches and waits for running ones, without
+     * rethrowing; used when the producer itself failed.
+     */
+    void cancel() {
+        batch.clear();
+        failure.compareAndSet(null, new CancellationException("Ingestion cancelled"));
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    // Time spent embedding, summed over batches; exceeds wall time when batches run in parallel
+    long embedNanos() {
+        return embedNanos.sum();
+    }
+
+    private void submit() {
+        List<String> chunks = batch;
+        int[] pages = Arrays.copyOf(batchPages, chunks.size());
+        int firstChunk = submitted;
+        submitted += chunks.size();
+        batch = new ArrayList<>(batchSize);
+
+        inFlight.acquireUninterruptibly();
+        try {
+            executor.execute(() -> {
+                try {
+                    if (failure.get() == null) {
+                        long start = System.nanoTime();
+                        float[][] embeddings = embeddingService.embedBatch(chunks);
+                        embedNanos.add(System.nanoTime() - start);
+                        sink.accept(firstChunk, chunks, pages, embeddings);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void rethrowFailure() {
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (error instanceof Error fatal) {
+            throw fatal;
+        }
+        if (error != null) {
+            throw new IllegalStateException("Embedding batch failed", error);
+        }
+    }
+}
@@ -1,25 +1,131 @@
 package com.enterprise_wrapper_api.wrapper_api.rag;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
 
+/**
+ * Embeds chunks and queries with the local {@link HashedFeatureEmbedder},
+ * caching document vectors by content. Queries are not cached: they are
+ * IDF-weighted by the chunks stored in the namespace searched, and
+ * embedding one takes microseconds.
+ */
 @Service
 public class EmbeddingService {
 
-    public List<Double> generateEmbedding(String text) {
+    public static final int DIMENSION = 768;
+
+    // Part of every cache key, so changing the embedding model never serves stale vectors
+    private static final String MODEL_ID = "hashed-v1-" + DIMENSION;
+
+    private final EmbeddingCache cache;
+    private final HashedFeatureEmbedder hasher = new HashedFeatureEmbedder(DIMENSION);
 
-        // Deterministic seed so same text → same embedding
-        Random random = new Random(text.hashCode());
+    public EmbeddingService() {
+        this(EmbeddingCache.disabled());
+    }
 
-        List<Double> embedding = new ArrayList<>();
+    @Autowired
+    public EmbeddingService(EmbeddingCache cache) {
+        this.cache = cache;
+    }
 
-        for (int i = 0; i < 768; i++) {
-            embedding.add((double) random.nextFloat());
+    public List<Double> generateEmbedding(String text) {
+        float[] vector = embed(text);
+        List<Double> embedding = new ArrayList<>(vector.length);
+        for (float value : vector) {
+            embedding.add((double) value);
         }
+        return embedding;
+    }
 
+    /**
+     * Embeds one text, consulting the cache first. The returned array may be
+     * shared with the cache and must not be modified.
+     */
+    public float[] embed(String text) {
+        String key = EmbeddingCache.key(MODEL_ID, text);
+        float[] embedding = cache.get(key);
+        if (embedding == null) {
+            embedding = computeBatch(List.of(text))[0];
+            cache.put(key, embedding);
+        }
         return embedding;
     }
+
+    // Embeds a search query without corpus statistics
+    public float[] embedQuery(String query) {
+        return embedQuery(query, VectorStoreService.DimensionFrequencies.NONE);
+    }
+
+    /**
+     * Embeds a search query. Unlike {@link #embed} it weights the query's
+     * features by how rare they are among the stored chunks described by
+     * {@code corpus}. Remote backends should override this along with
+     * {@link #computeBatch}.
+     */
+    public float[] embedQuery(String query, VectorStoreService.DimensionFrequencies corpus) {
+        return hasher.embedQuery(query, corpus.rows(), corpus.nonZeroRows());
+    }
+
+    /**
+     * Embeds a batch of document chunks; row {@code i} of the result belongs to
+     * {@code texts.get(i)}. Only distinct cache misses reach
+     * {@link #computeBatch}.
+     */
+    public float[][] embedBatch(List<String> texts) {
+        float[][] embeddings = new float[texts.size()][];
+        String[] keys = new String[embeddings.length];
+        Map<String, Integer> missing = new LinkedHashMap<>();
+
+        for (int i = 0; i < embeddings.length; i++) {
+            keys[i] = EmbeddingCache.key(MODEL_ID, texts.get(i));
+            if (!missing.containsKey(keys[i])) {
+                embeddings[i] = cache.get(keys[i]);
+                if (embeddings[i] == null) {
+                    missing.put(keys[i], i);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<String> pending = new ArrayList<>(missing.size());
+            for (int i : missing.values()) {
+                pending.add(texts.get(i));
+            }
+            float[][] computed = computeBatch(pending);
+            int j = 0;
+            for (Map.Entry<String, Integer> entry : missing.entrySet()) {
+                cache.put(entry.getKey(), computed[j]);
+                embeddings[entry.getValue()] = computed[j++];
+            }
+            // Duplicates of a missing text share its freshly computed vector
+            for (int i = 0; i < embeddings.length; i++) {
+                if (embeddings[i] == null) {
+                    embeddings[i] = embeddings[missing.get(keys[i])];
+                }
+            }
+        }
+        return embeddings;
+    }
+
+    /**
+     * Uncached batch embedding. Remote backends should override this with a
+     * single batched call.
+     */
+    protected float[][] computeBatch(List<String> texts) {
+        float[][] embeddings = new float[texts.size()][];
+        for (int i = 0; i < embeddings.length; i++) {
+            embeddings[i] = compute(texts.get(i));
+        }
+        return embeddings;
+    }
+
+    private float[] compute(String text) {
+        return hasher.embed(text);
+    }
 }
@@ -0,0 +1,212 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+/**
+ * Local embedding by feature hashing, for deployments without a model
+ * server.
+ *
+ * Lower-cased words, word bigrams and the character 3- to 5-grams of each
+ * word (padded with {@code <} and {@code >}) are hashed straight from the
+ * text into {@code dimension} buckets with a hashed sign, so collisions
+ * cancel out rather than pile up. Bucket weights are log-scaled term
+ * frequencies and the vector is L2-normalized. Character n-grams let
+ * inflections and typos ("retrieve", "retrieval") share most of their
+ * features.
+ *
+ * Document vectors carry no IDF, so they never change once stored or
+ * cached. Queries are weighted by a hashed inverse document frequency - the
+ * classic lnc.ltc scheme, where the cosine still ranks by TF-IDF. A bucket's
+ * document frequency is the number of stored document vectors that are
+ * non-zero there, so callers count it from the vectors they already hold
+ * instead of tokenising the texts again.
+ *
+ * Each thread reuses one scratch accumulator, so an embedding allocates
+ * only the vector it returns.
+ */
+final class HashedFeatureEmbedder {
+
+    private static final int MIN_CHAR_GRAM = 3;
+    private static final int MAX_CHAR_GRAM = 5;
+
+    // Words carry the meaning; the many character n-grams of a word only nudge it
+    private static final float WORD_WEIGHT = 1f;
+    private static final float BIGRAM_WEIGHT = 0.5f;
+    private static final float CHAR_GRAM_WEIGHT = 0.1f;
+
+    private static final int WORD_SEED = 0x9747b28c;
+    private static final int BIGRAM_SEED = 0x85ebca6b;
+    private static final int CHAR_GRAM_SEED = 0xc2b2ae35;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    HashedFeatureEmbedder(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Embedding dimension must be positive");
+        }
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(dimension));
+    }
+
+    // Unit-length document vector
+    float[] embed(CharSequence text) {
+        Scratch s = accumulate(text);
+        try {
+            return s.toDense(null);
+        } finally {
+            s.clear();
+        }
+    }
+
+    /**
+     * Unit-length query vector, IDF-weighted by {@code documentFrequency[b]}
+     * of {@code documents} stored vectors being non-zero in bucket {@code b}.
+     * With no documents it is unweighted.
+     */
+    float[] embedQuery(CharSequence text, long documents, int[] documentFrequency) {
+        Scratch s = accumulate(text);
+        try {
+            return s.toDense(documents == 0 ? null : idf(s, documents, documentFrequency));
+        } finally {
+            s.clear();
+        }
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    /**
+     * Per-thread bucket accumulator. Only touched buckets are visited when
+     * reading or clearing it, so short texts stay cheap whatever the
+     * dimension.
+     */
+    private static final class Scratch {
+        final float[] weights;
+        final boolean[] marked;
+        final int[] touched;
+        final float[] idf;
+        int touchedCount;
+
+        Scratch(int dimension) {
+            weights = new float[dimension];
+            marked = new boolean[dimension];
+            touched = new int[dimension];
+            idf = new float[dimension];
+        }
+
+        void add(int hash, float weight) {
+            int bucket = (hash & 0x7fffffff) % weights.length;
+            if (!marked[bucket]) {
+                marked[bucket] = true;
+                touched[touchedCount++] = bucket;
+            }
+            // The top bit picks the sign, independently of the bucket
+            weights[bucket] += hash < 0 ? -weight : weight;
+        }
+
+        // Log-scaled frequency with the bucket's sign, times the optional IDF
+        float value(int bucket, float[] idf) {
+            float w = weights[bucket];
+            float scaled = (float) Math.log1p(Math.abs(w));
+            if (idf != null) {
+                scaled *= idf[bucket];
+            }
+            return w < 0 ? -scaled : scaled;
+        }
+
+        float inverseNorm(float[] idf) {
+            double norm = 0.0;
+            for (int i = 0; i < touchedCount; i++) {
+                float v = value(touched[i], idf);
+                norm += v * v;
+            }
+            return norm == 0.0 ? 0f : (float) (1.0 / Math.sqrt(norm));
+        }
+
+        float[] toDense(float[] idf) {
+            float[] vector = new float[weights.length];
+            float inv = inverseNorm(idf);
+            for (int i = 0; i < touchedCount; i++) {
+                int bucket = touched[i];
+                vector[bucket] = value(bucket, idf) * inv;
+            }
+            return vector;
+        }
+
+        void clear() {
+            for (int i = 0; i < touchedCount; i++) {
+                weights[touched[i]] = 0f;
+                marked[touched[i]] = false;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    // Smoothed IDF for the touched buckets, written into the scratch's own array
+    private static float[] idf(Scratch s, long documents, int[] documentFrequency) {
+        double total = documents + 1.0;
+        for (int i = 0; i < s.touchedCount; i++) {
+            int bucket = s.touched[i];
+            s.idf[bucket] = (float) (Math.log(total / (documentFrequency[bucket] + 1.0)) + 1.0);
+        }
+        return s.idf;
+    }
+
+    private Scratch accumulate(CharSequence text) {
+        Scratch s = scratch.get();
+        int previousWord = 0;
+        boolean hasPrevious = false;
+        for (int i = 0, n = text.length(); i < n; ) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+
+            int word = hash(text, start, i, WORD_SEED);
+            s.add(mix(word), WORD_WEIGHT);
+            if (hasPrevious) {
+                s.add(mix(BIGRAM_SEED ^ (previousWord * 31 + word)), BIGRAM_WEIGHT);
+            }
+            previousWord = word;
+            hasPrevious = true;
+            addCharGrams(s, text, start, i);
+        }
+        return s;
+    }
+
+    // N-grams of "<word>", read in place; positions -1 and length are the padding
+    private static void addCharGrams(Scratch s, CharSequence text, int start, int end) {
+        int length = end - start;
+        for (int from = -1; from + MIN_CHAR_GRAM <= length + 1; from++) {
+            int hash = CHAR_GRAM_SEED;
+            for (int pos = from, n = 0; n < MAX_CHAR_GRAM && pos <= length; pos++, n++) {
+                char c = pos < 0 ? '<' : pos == length ? '>' : Character.toLowerCase(text.charAt(start + pos));
+                hash = (hash ^ c) * 0x01000193;
+                if (n + 1 >= MIN_CHAR_GRAM) {
+                    s.add(mix(hash ^ (n + 1)), CHAR_GRAM_WEIGHT);
+                }
+            }
+        }
+    }
+
+    // FNV-1a over the lower-cased characters
+    private static int hash(CharSequence text, int start, int end, int seed) {
+        int hash = seed;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ Character.toLowerCase(text.charAt(i))) * 0x01000193;
+        }
+        return hash;
+    }
+
+    // MurmurHash3 finalizer, so bucket and sign bits both depend on every input bit
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
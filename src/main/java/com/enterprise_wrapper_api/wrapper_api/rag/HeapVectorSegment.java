@@ -0,0 +1,93 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Segment whose vectors and contents live on the Java heap.
+ */
+final class HeapVectorSegment implements VectorSegment {
+
+    private final String documentId;
+    private final VectorSlab slab;
+    private final String[] contents;
+    private final QuantizedCodes codes;
+    private final LexicalIndex lexical;
+    private final ChunkMetadata metadata;
+
+    HeapVectorSegment(String documentId, VectorSlab slab, String[] contents, ChunkMetadata metadata,
+                      QuantizedCodes codes) {
+        if (slab.size() != contents.length || metadata.rows() != contents.length) {
+            throw new IllegalArgumentException("Segment rows and contents do not line up");
+        }
+        this.documentId = documentId;
+        this.slab = slab;
+        this.contents = contents;
+        this.codes = codes;
+        this.metadata = metadata;
+        this.lexical = LexicalIndex.build(contents.length, row -> contents[row]);
+    }
+
+    @Override
+    public String documentId() {
+        return documentId;
+    }
+
+    @Override
+    public int dimension() {
+        return slab.dimension();
+    }
+
+    @Override
+    public int size() {
+        return contents.length;
+    }
+
+    @Override
+    public String content(int row) {
+        return contents[row];
+    }
+
+    @Override
+    public void scan(float[] unitQuery, TopKCollector collector, int idBase) {
+        slab.scan(unitQuery, collector, idBase);
+    }
+
+    @Override
+    public void scan(SparseVector unitQuery, TopKCollector collector, int idBase) {
+        slab.scan(unitQuery, collector, idBase);
+    }
+
+    @Override
+    public float dot(int row, float[] unitQuery) {
+        return slab.dot(row, unitQuery);
+    }
+
+    @Override
+    public float dot(int row, SparseVector unitQuery) {
+        return slab.dot(row, unitQuery);
+    }
+
+    @Override
+    public void copyVector(int row, float[] target) {
+        slab.copyRow(row, target);
+    }
+
+    @Override
+    public QuantizedCodes codes() {
+        return codes;
+    }
+
+    @Override
+    public LexicalIndex lexical() {
+        return lexical;
+    }
+
+    @Override
+    public ChunkMetadata metadata() {
+        return metadata;
+    }
+
+    void writeVectors(FloatBuffer target) {
+        slab.writeTo(target);
+    }
+}
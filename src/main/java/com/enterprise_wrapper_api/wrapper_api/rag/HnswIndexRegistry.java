@@ -0,0 +1,188 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * One HNSW graph per namespace, so tenants never see each other's chunks
+ * and deleting a document only tombstones that document's nodes.
+ *
+ * The flat {@link VectorStoreService} is the source of truth: a document is
+ * added to its graph from the store once the store has committed it, so a
+ * failed upload never reaches the graph and a successful one replaces the
+ * previous version in one step.
+ *
+ * Graphs are not persisted. A namespace's graph is built from the store the
+ * first time it is needed, which after a restart with
+ * {@code rag.store.data-dir} means from the memory-mapped segments. Once
+ * tombstones make up more than {@code rag.hnsw.compact-threshold} of a
+ * graph's nodes, it is rebuilt from the store the same way and swapped in.
+ */
+@Component
+public class HnswIndexRegistry {
+
+    private static final int WRITE_STRIPES = 16;
+
+    private final VectorStoreService vectorStoreService;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double compactThreshold;
+    private final Map<String, HnswVectorIndex> indexes = new ConcurrentHashMap<>();
+    private final Object[] writeLocks = new Object[WRITE_STRIPES];
+
+    @Autowired
+    public HnswIndexRegistry(
+            VectorStoreService vectorStoreService,
+            @Value("${rag.hnsw.m:16}") int m,
+            @Value("${rag.hnsw.ef-construction:200}") int efConstruction,
+            @Value("${rag.hnsw.ef-search:64}") int efSearch,
+            @Value("${rag.hnsw.compact-threshold:0.3}") double compactThreshold) {
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
+        }
+        this.vectorStoreService = vectorStoreService;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.compactThreshold = compactThreshold;
+    }
+
+    public List<String> search(String namespace, float[] queryVector, int topK) {
+        HnswVectorIndex index = graph(namespace);
+        return index == null ? List.of() : index.search(queryVector, topK);
+    }
+
+    public List<RetrievedChunk> searchChunks(String namespace, float[] queryVector, int topK) {
+        HnswVectorIndex index = graph(namespace);
+        return index == null ? List.of() : index.search(queryVector, topK, RetrievedChunk::new);
+    }
+
+    /**
+     * Replaces the document's nodes with its chunks as currently committed
+     * to the store. The new chunks are inserted hidden, in parallel, and
+     * only become searchable together, as the old ones are tombstoned.
+     */
+    public void indexDocument(String namespace, String documentId) {
+        synchronized (lockFor(namespace)) {
+            HnswVectorIndex index = indexes.get(namespace);
+            if (index == null) {
+                // Built from the store, which already holds this document
+                indexes.put(namespace, build(namespace));
+                return;
+            }
+            try {
+                insert(index, namespace, documentId);
+            } catch (RuntimeException e) {
+                // The store has the new version; let the next use rebuild the graph from it
+                indexes.remove(namespace);
+                throw e;
+            }
+            compactIfNeeded(namespace, index);
+        }
+    }
+
+    public void deleteDocument(String namespace, String documentId) {
+        synchronized (lockFor(namespace)) {
+            HnswVectorIndex index = indexes.get(namespace);
+            if (index != null && index.deleteDocument(documentId)) {
+                compactIfNeeded(namespace, index);
+            }
+        }
+    }
+
+    public void deleteNamespace(String namespace) {
+        synchronized (lockFor(namespace)) {
+            indexes.remove(namespace);
+        }
+    }
+
+    // Current graph, without building one
+    HnswVectorIndex index(String namespace) {
+        return indexes.get(namespace);
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private record Chunk(String documentId, String content, float[] vector) {
+    }
+
+    // The namespace's graph, built from the store on first use; null when the store has nothing
+    private HnswVectorIndex graph(String namespace) {
+        HnswVectorIndex index = indexes.get(namespace);
+        if (index != null || vectorStoreService.size(namespace) == 0) {
+            return index;
+        }
+        synchronized (lockFor(namespace)) {
+            index = indexes.get(namespace);
+            if (index == null) {
+                index = build(namespace);
+                indexes.put(namespace, index);
+            }
+            return index;
+        }
+    }
+
+    private HnswVectorIndex build(String namespace) {
+        HnswVectorIndex index = new HnswVectorIndex(m, efConstruction, efSearch);
+        insert(index, namespace, null);
+        return index;
+    }
+
+    private void compactIfNeeded(String namespace, HnswVectorIndex index) {
+        int tombstones = index.tombstones();
+        if (tombstones > 0 && tombstones > compactThreshold * (tombstones + index.size())) {
+            indexes.put(namespace, build(namespace));
+        }
+    }
+
+    /**
+     * Inserts the committed chunks of one document, or of the whole
+     * namespace when {@code documentId} is null, in parallel and hidden,
+     * then publishes each document's chunks at once.
+     */
+    private void insert(HnswVectorIndex index, String namespace, String documentId) {
+        List<Chunk> chunks = new ArrayList<>();
+        vectorStoreService.forEachChunk(namespace, documentId,
+                (document, content, vector) -> chunks.add(new Chunk(document, content, vector)));
+        int[] nodes = new int[chunks.size()];
+        AtomicInteger inserted = new AtomicInteger();
+        try {
+            IntStream.range(0, nodes.length).parallel().forEach(i -> {
+                Chunk chunk = chunks.get(i);
+                nodes[i] = index.insertHidden(chunk.documentId(), chunk.vector(), chunk.content());
+                inserted.incrementAndGet();
+            });
+        } catch (RuntimeException e) {
+            index.discard(inserted.get());
+            throw e;
+        }
+
+        // A reopened store may interleave documents' segments, so group explicitly
+        Map<String, List<Integer>> byDocument = new LinkedHashMap<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            byDocument.computeIfAbsent(chunks.get(i).documentId(), key -> new ArrayList<>()).add(nodes[i]);
+        }
+        byDocument.forEach((document, documentNodes) ->
+                index.publishDocument(document, documentNodes.stream().mapToInt(Integer::intValue).toArray()));
+        if (documentId != null && chunks.isEmpty()) {
+            // Committed empty: nothing left to show
+            index.deleteDocument(documentId);
+        }
+    }
+
+    private Object lockFor(String namespace) {
+        return writeLocks[Math.floorMod(namespace.hashCode(), writeLocks.length)];
+    }
+}
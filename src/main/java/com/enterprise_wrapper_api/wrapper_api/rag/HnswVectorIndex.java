@@ -0,0 +1,568 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+
+/**
+ * In-process HNSW (hierarchical navigable small world) index.
+ *
+ * Vectors are normalized on insert so similarity is a dot product. Neighbour
+ * lists are copy-on-write arrays: searches read them without locking, while
+ * inserts lock only the node whose list they are rewriting, so many threads
+ * can insert at once. {@link HnswIndexRegistry} keeps one graph per namespace.
+ *
+ * Deleted nodes stay in the graph as routing-only tombstones. A document's
+ * chunks are inserted hidden and made visible together by
+ * {@link #publishDocument}, which also tombstones the document's previous
+ * nodes, so searches see either the old or the new version, never a mix.
+ */
+public class HnswVectorIndex implements VectorDatabaseClient {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int MAX_PAGES = 1 << 16;
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private volatile int efSearch;
+
+    private final AtomicReferenceArray<Node[]> pages = new AtomicReferenceArray<>(MAX_PAGES);
+    private final AtomicInteger nextNode = new AtomicInteger();
+    private final Map<String, Integer> idToNode = new ConcurrentHashMap<>();
+    private final Map<String, int[]> documentNodes = new ConcurrentHashMap<>();
+    // Guards visibility changes, so live and tombstone counts stay exact
+    private final Object visibilityLock = new Object();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicInteger tombstones = new AtomicInteger();
+    private final Object entryLock = new Object();
+    private volatile int entryNode = -1;
+    private volatile int entryLevel = -1;
+    private volatile int dimension = -1;
+
+    private final ThreadLocal<VisitedSet> visited = ThreadLocal.withInitial(VisitedSet::new);
+
+    public HnswVectorIndex(int m, int efConstruction, int efSearch) {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW M must be at least 2");
+        }
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    // Searchable nodes
+    public int size() {
+        return live.get();
+    }
+
+    // Deleted, replaced or discarded nodes still taking up space in the graph
+    public int tombstones() {
+        return tombstones.get();
+    }
+
+    @Override
+    public void save(String id, float[] vector, String text) {
+        int nodeId = insert(id, vector, text);
+        synchronized (visibilityLock) {
+            // Re-saving an id replaces it; the old node stays as a routing-only tombstone
+            Integer previous = idToNode.put(id, nodeId);
+            if (previous != null) {
+                retire(previous);
+            }
+            node(nodeId).deleted = false;
+            live.incrementAndGet();
+        }
+    }
+
+    /**
+     * Inserts one chunk of {@code documentId} without making it searchable,
+     * returning its node for {@link #publishDocument} or {@link #discard}.
+     */
+    int insertHidden(String documentId, float[] vector, String text) {
+        return insert(documentId, vector, text);
+    }
+
+    /**
+     * Makes {@code nodes} the searchable version of the document and
+     * tombstones whatever version was there before.
+     */
+    void publishDocument(String documentId, int[] nodes) {
+        synchronized (visibilityLock) {
+            int[] previous = documentNodes.put(documentId, nodes);
+            if (previous != null) {
+                for (int nodeId : previous) {
+                    retire(nodeId);
+                }
+            }
+            for (int nodeId : nodes) {
+                node(nodeId).deleted = false;
+            }
+            live.addAndGet(nodes.length);
+        }
+    }
+
+    // Hidden nodes of an insert that will not be published
+    void discard(int count) {
+        tombstones.addAndGet(count);
+    }
+
+    public boolean deleteDocument(String documentId) {
+        synchronized (visibilityLock) {
+            int[] previous = documentNodes.remove(documentId);
+            if (previous == null) {
+                return false;
+            }
+            for (int nodeId : previous) {
+                retire(nodeId);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public List<String> search(float[] queryVector, int topK) {
+        return search(queryVector, topK, (id, text) -> text);
+    }
+
+    /**
+     * Nearest neighbours best-first, each built from the saved id (the
+     * document, for document chunks) and text.
+     */
+    <T> List<T> search(float[] queryVector, int topK, BiFunction<String, String, T> result) {
+        int ep = entryNode;
+        int top = entryLevel;
+        if (ep < 0 || topK <= 0) {
+            return List.of();
+        }
+        checkDimension(queryVector.length);
+        float[] unit = VectorMath.normalize(queryVector);
+
+        for (int lc = top; lc > 0; lc--) {
+            ep = greedyClosest(unit, ep, lc);
+        }
+        ScoredHeap found = searchLayer(unit, ep, Math.max(efSearch, topK), 0);
+
+        TopKCollector collector = new TopKCollector(topK);
+        for (int i = 0; i < found.size; i++) {
+            if (!node(found.ids[i]).deleted) {
+                collector.offer(found.ids[i], found.scores[i]);
+            }
+        }
+        int[] ids = collector.drainDescending();
+        List<T> results = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Node node = node(id);
+            results.add(result.apply(node.id, node.text));
+        }
+        return results;
+    }
+
+    // =============================
+    // GRAPH OPERATIONS
+    // =============================
+
+    // Links a new node into the graph; it stays hidden until made visible
+    private int insert(String id, float[] vector, String text) {
+        checkDimension(vector.length);
+        float[] unit = VectorMath.normalize(vector);
+        int level = randomLevel();
+        int nodeId = nextNode.getAndIncrement();
+        Node node = new Node(id, text, unit, level);
+        publish(nodeId, node);
+
+        int currentEntry;
+        int currentLevel;
+        synchronized (entryLock) {
+            if (entryNode < 0) {
+                entryNode = nodeId;
+                entryLevel = level;
+                return nodeId;
+            }
+            currentEntry = entryNode;
+            currentLevel = entryLevel;
+        }
+
+        int ep = currentEntry;
+        for (int lc = currentLevel; lc > level; lc--) {
+            ep = greedyClosest(unit, ep, lc);
+        }
+
+        for (int lc = Math.min(level, currentLevel); lc >= 0; lc--) {
+            ScoredHeap candidates = searchLayer(unit, ep, efConstruction, lc);
+            int maxLinks = lc == 0 ? maxM0 : m;
+            int[] neighbours = selectNeighbours(unit, candidates, m);
+            // Concurrent inserts may already have linked back to this node
+            merge(node, lc, neighbours, maxLinks);
+            for (int neighbour : neighbours) {
+                connect(neighbour, nodeId, lc, maxLinks);
+            }
+            ep = candidates.best();
+        }
+
+        if (level > currentLevel) {
+            synchronized (entryLock) {
+                if (level > entryLevel) {
+                    entryNode = nodeId;
+                    entryLevel = level;
+                }
+            }
+        }
+        return nodeId;
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = dot(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : node(current).links(level)) {
+                float score = dot(query, neighbour);
+                if (score > best) {
+                    best = score;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search on one layer. Returns up to {@code ef} nearest nodes as a
+     * min-heap whose root is the weakest result.
+     */
+    private ScoredHeap searchLayer(float[] query, int entry, int ef, int level) {
+        VisitedSet seen = visited.get();
+        seen.reset(nextNode.get());
+
+        ScoredHeap candidates = new ScoredHeap(ef * 2, false);
+        ScoredHeap results = new ScoredHeap(ef + 1, true);
+        float entryScore = dot(query, entry);
+        candidates.push(entry, entryScore);
+        results.push(entry, entryScore);
+        seen.mark(entry);
+
+        while (candidates.size > 0) {
+            float candidateScore = candidates.topScore();
+            if (results.size >= ef && candidateScore < results.topScore()) {
+                break;
+            }
+            int candidate = candidates.pop();
+            for (int neighbour : node(candidate).links(level)) {
+                if (!seen.mark(neighbour)) {
+                    continue;
+                }
+                float score = dot(query, neighbour);
+                if (results.size < ef || score > results.topScore()) {
+                    candidates.push(neighbour, score);
+                    results.push(neighbour, score);
+                    if (results.size > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Neighbour-selection heuristic from the HNSW paper: keep a candidate only
+     * if it is closer to the base than to every neighbour already kept, which
+     * preserves links across clusters.
+     */
+    private int[] selectNeighbours(float[] base, ScoredHeap candidates, int limit) {
+        int[] order = candidates.idsDescending();
+        int[] selected = new int[Math.min(limit, order.length)];
+        int count = 0;
+        for (int i = 0; i < order.length && count < selected.length; i++) {
+            int candidate = order[i];
+            float toBase = dot(base, candidate);
+            float[] candidateVector = node(candidate).vector;
+            boolean keep = true;
+            for (int j = 0; j < count; j++) {
+                if (dot(candidateVector, selected[j]) > toBase) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = candidate;
+            }
+        }
+        // Top up with the nearest skipped candidates so sparse regions stay connected
+        for (int i = 0; i < order.length && count < selected.length; i++) {
+            if (!contains(selected, count, order[i])) {
+                selected[count++] = order[i];
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    private void connect(int from, int to, int level, int maxLinks) {
+        merge(node(from), level, new int[]{to}, maxLinks);
+    }
+
+    // Adds links to a node's layer under its lock, pruning back to maxLinks
+    private void merge(Node node, int level, int[] added, int maxLinks) {
+        synchronized (node) {
+            int[] current = node.links(level);
+            int[] grown = Arrays.copyOf(current, current.length + added.length);
+            int count = current.length;
+            for (int id : added) {
+                if (!contains(grown, count, id)) {
+                    grown[count++] = id;
+                }
+            }
+            if (count == current.length) {
+                return;
+            }
+            grown = Arrays.copyOf(grown, count);
+            if (grown.length > maxLinks) {
+                ScoredHeap pool = new ScoredHeap(grown.length, true);
+                for (int id : grown) {
+                    pool.push(id, dot(node.vector, id));
+                }
+                grown = selectNeighbours(node.vector, pool, maxLinks);
+            }
+            node.links.set(level, grown);
+        }
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    // Caller holds visibilityLock
+    private void retire(int nodeId) {
+        Node node = node(nodeId);
+        if (!node.deleted) {
+            node.deleted = true;
+            live.decrementAndGet();
+            tombstones.incrementAndGet();
+        }
+    }
+
+    private int randomLevel() {
+        double u = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return (int) Math.floor(-Math.log(u) * levelMultiplier);
+    }
+
+    private void checkDimension(int length) {
+        int current = dimension;
+        if (current < 0) {
+            synchronized (entryLock) {
+                if (dimension < 0) {
+                    dimension = length;
+                }
+                current = dimension;
+            }
+        }
+        if (current != length) {
+            throw new IllegalArgumentException("Embedding dimensions do not match");
+        }
+    }
+
+    private float dot(float[] query, int nodeId) {
+        float[] vector = node(nodeId).vector;
+        return VectorMath.dot(vector, 0, query, vector.length);
+    }
+
+    private void publish(int nodeId, Node node) {
+        int page = nodeId >>> PAGE_BITS;
+        if (page >= MAX_PAGES) {
+            throw new IllegalStateException("HNSW index is full");
+        }
+        Node[] nodes = pages.get(page);
+        if (nodes == null) {
+            pages.compareAndSet(page, null, new Node[PAGE_SIZE]);
+            nodes = pages.get(page);
+        }
+        synchronized (nodes) {
+            nodes[nodeId & (PAGE_SIZE - 1)] = node;
+        }
+    }
+
+    private Node node(int nodeId) {
+        Node[] nodes = pages.get(nodeId >>> PAGE_BITS);
+        Node node = nodes[nodeId & (PAGE_SIZE - 1)];
+        if (node == null) {
+            // Another inserter reserved the id but has not finished publishing yet
+            synchronized (nodes) {
+                node = nodes[nodeId & (PAGE_SIZE - 1)];
+            }
+        }
+        return node;
+    }
+
+    private static boolean contains(int[] ids, int length, int id) {
+        for (int i = 0; i < length; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Node {
+        private static final int[] NO_LINKS = new int[0];
+
+        final String id;
+        final String text;
+        final float[] vector;
+        final AtomicReferenceArray<int[]> links;
+        // Hidden until published; set again once deleted or replaced
+        volatile boolean deleted = true;
+
+        Node(String id, String text, float[] vector, int level) {
+            this.id = id;
+            this.text = text;
+            this.vector = vector;
+            this.links = new AtomicReferenceArray<>(level + 1);
+            for (int i = 0; i <= level; i++) {
+                links.set(i, NO_LINKS);
+            }
+        }
+
+        int[] links(int level) {
+            return level < links.length() ? links.get(level) : NO_LINKS;
+        }
+    }
+
+    /**
+     * Binary heap of (id, score) in primitive arrays; min-heap when
+     * {@code minAtTop}, max-heap otherwise.
+     */
+    private static final class ScoredHeap {
+        private final boolean minAtTop;
+        private float[] scores;
+        private int[] ids;
+        private int size;
+
+        ScoredHeap(int capacity, boolean minAtTop) {
+            this.minAtTop = minAtTop;
+            this.scores = new float[Math.max(capacity, 4)];
+            this.ids = new int[scores.length];
+        }
+
+        void push(int id, float score) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(score, scores[parent])) {
+                    break;
+                }
+                scores[i] = scores[parent];
+                ids[i] = ids[parent];
+                i = parent;
+            }
+            scores[i] = score;
+            ids[i] = id;
+        }
+
+        int pop() {
+            int top = ids[0];
+            size--;
+            float score = scores[size];
+            int id = ids[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && before(scores[child + 1], scores[child])) {
+                    child++;
+                }
+                if (!before(scores[child], score)) {
+                    break;
+                }
+                scores[i] = scores[child];
+                ids[i] = ids[child];
+                i = child;
+            }
+            scores[i] = score;
+            ids[i] = id;
+            return top;
+        }
+
+        float topScore() {
+            return scores[0];
+        }
+
+        int best() {
+            int best = 0;
+            for (int i = 1; i < size; i++) {
+                if (scores[i] > scores[best]) {
+                    best = i;
+                }
+            }
+            return ids[best];
+        }
+
+        int[] idsDescending() {
+            ScoredHeap copy = new ScoredHeap(0, minAtTop);
+            copy.scores = Arrays.copyOf(scores, size);
+            copy.ids = Arrays.copyOf(ids, size);
+            copy.size = size;
+            int[] out = new int[size];
+            for (int i = 0; i < out.length; i++) {
+                out[minAtTop ? out.length - 1 - i : i] = copy.pop();
+            }
+            return out;
+        }
+
+        private boolean before(float a, float b) {
+            return minAtTop ? a < b : a > b;
+        }
+    }
+
+    /**
+     * Generation-stamped visited marks, reused per thread so a search does not
+     * allocate a bitmap proportional to the index size.
+     */
+    private static final class VisitedSet {
+        private int[] stamps = new int[0];
+        private int generation;
+
+        void reset(int capacity) {
+            if (stamps.length < capacity) {
+                stamps = new int[Math.max(capacity, stamps.length * 2)];
+                generation = 0;
+            }
+            if (++generation == 0) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+
+        // Returns true the first time an id is seen in this generation
+        boolean mark(int id) {
+            if (id >= stamps.length) {
+                stamps = Arrays.copyOf(stamps, Math.max(id + 1, stamps.length * 2));
+            }
+            if (stamps[id] == generation) {
+                return false;
+            }
+            stamps[id] = generation;
+            return true;
+        }
+    }
+}
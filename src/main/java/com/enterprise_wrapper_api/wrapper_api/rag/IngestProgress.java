@@ -0,0 +1,18 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+/**
+ * Receives progress while a document is ingested. Calls may come from the
+ * extracting thread and from embedding workers.
+ */
+public interface IngestProgress {
+
+    IngestProgress NONE = new IngestProgress() {
+    };
+
+    default void pagesExtracted(int done, int total) {
+    }
+
+    // Called once per stored batch with the number of chunks it held
+    default void chunksStored(int count) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import com.enterprise_wrapper_api.wrapper_api.rag.IngestionJobStatus.State;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mutable progress of one queued upload. Written by the worker and the
+ * embedding threads, read by status requests.
+ */
+final class IngestionJob implements IngestProgress {
+
+    private final String id;
+    private final String namespace;
+    private final String documentId;
+    private final Instant submittedAt;
+    private final AtomicInteger chunksStored = new AtomicInteger();
+
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile int pagesDone;
+    private volatile int pagesTotal;
+    private volatile String error;
+
+    IngestionJob(String id, String namespace, String documentId, Instant submittedAt) {
+        this.id = id;
+        this.namespace = namespace;
+        this.documentId = documentId;
+        this.submittedAt = submittedAt;
+    }
+
+    String id() {
+        return id;
+    }
+
+    Instant finishedAt() {
+        return finishedAt;
+    }
+
+    @Override
+    public void pagesExtracted(int done, int total) {
+        pagesTotal = total;
+        pagesDone = done;
+    }
+
+    @Override
+    public void chunksStored(int count) {
+        chunksStored.addAndGet(count);
+    }
+
+    void started(Instant now) {
+        startedAt = now;
+        state = State.RUNNING;
+    }
+
+    void succeeded(Instant now) {
+        finishedAt = now;
+        state = State.SUCCEEDED;
+    }
+
+    void failed(Instant now, String message) {
+        error = message;
+        finishedAt = now;
+        state = State.FAILED;
+    }
+
+    IngestionJobStatus status(Instant now) {
+        // Read the state first: fields it depends on are written before it
+        State current = state;
+        Instant started = startedAt;
+        Instant finished = finishedAt;
+        long queued = Duration.between(submittedAt, started != null ? started : now).toMillis();
+        long run = started == null ? 0 : Duration.between(started, finished != null ? finished : now).toMillis();
+        return new IngestionJobStatus(id, namespace, documentId, current, pagesDone, pagesTotal,
+                chunksStored.get(), submittedAt, started, finished, queued, run, error);
+    }
+}
@@ -0,0 +1,178 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs PDF ingestion in the background. An upload is spooled to disk and
+ * queued, and the caller gets a job id straight away. A fixed pool of
+ * workers drains a bounded queue; once the queue is full new submissions are
+ * rejected rather than buffered, so a burst of uploads cannot pile up on disk
+ * or on the heap. Finished jobs stay queryable for
+ * {@code rag.ingest.jobs.retention}. Jobs still queued at shutdown are marked
+ * failed.
+ */
+@Service
+public class IngestionJobService {
+
+    private final RagService ragService;
+    private final Path spoolDir;
+    private final Duration retention;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    public IngestionJobService(RagService ragService,
+                               @Value("${rag.ingest.jobs.workers:2}") int workers,
+                               @Value("${rag.ingest.jobs.queue-capacity:32}") int queueCapacity,
+                               @Value("${rag.ingest.jobs.spool-dir:}") String spoolDir,
+                               @Value("${rag.ingest.jobs.retention:1h}") Duration retention,
+                               MeterRegistry meterRegistry) {
+        this.ragService = ragService;
+        this.retention = retention;
+        try {
+            this.spoolDir = spoolDir == null || spoolDir.isBlank()
+                    ? Files.createTempDirectory("rag-spool")
+                    : Files.createDirectories(Path.of(spoolDir));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create ingestion spool directory", e);
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, workers), Math.max(1, workers), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "rag-ingest-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("rag.ingest.jobs.queued", executor, pool -> pool.getQueue().size())
+                .description("Ingestion jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("rag.ingest.jobs.running", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Ingestion jobs being processed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Spools the upload and queues it.
+     *
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public IngestionJobStatus submit(MultipartFile file, String namespace, String documentId) {
+        purgeFinished();
+        // Cheap early check so a full queue does not cost a spool write; execute() below is authoritative
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("Ingestion queue is full");
+        }
+
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), namespace, documentId, Instant.now());
+        Path spooled = spoolDir.resolve(job.id() + ".pdf");
+        try {
+            file.transferTo(spooled);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to spool upload", e);
+        }
+
+        jobs.put(job.id(), job);
+        try {
+            executor.execute(new IngestionTask(job, spooled, namespace, documentId));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id());
+            deleteQuietly(spooled);
+            throw e;
+        }
+        return job.status(Instant.now());
+    }
+
+    // Status of a queued, running or recently finished job, or null when unknown
+    public IngestionJobStatus status(String jobId) {
+        purgeFinished();
+        IngestionJob job = jobs.get(jobId);
+        return job == null ? null : job.status(Instant.now());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Running jobs are interrupted and fail on their own; queued ones never start
+        for (Runnable queued : executor.shutdownNow()) {
+            if (queued instanceof IngestionTask task) {
+                task.job.failed(Instant.now(), "Service shut down before the job started");
+                deleteQuietly(task.spooled);
+            }
+        }
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private void run(IngestionJob job, Path spooled, String namespace, String documentId) {
+        job.started(Instant.now());
+        try {
+            ragService.processPdf(new FileSystemResource(spooled), namespace, documentId, job);
+            job.succeeded(Instant.now());
+        } catch (Throwable e) {
+            // Errors still fail the job so it does not stay RUNNING, then reach the worker thread
+            job.failed(Instant.now(), String.valueOf(e.getMessage()));
+            if (e instanceof Error error) {
+                throw error;
+            }
+        } finally {
+            deleteQuietly(spooled);
+        }
+    }
+
+    // Named so shutdown() can find the job behind each queued runnable
+    private final class IngestionTask implements Runnable {
+        private final IngestionJob job;
+        private final Path spooled;
+        private final String namespace;
+        private final String documentId;
+
+        IngestionTask(IngestionJob job, Path spooled, String namespace, String documentId) {
+            this.job = job;
+            this.spooled = spooled;
+            this.namespace = namespace;
+            this.documentId = documentId;
+        }
+
+        @Override
+        public void run() {
+            IngestionJobService.this.run(job, spooled, namespace, documentId);
+        }
+    }
+
+    private void purgeFinished() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt() != null && job.finishedAt().isBefore(cutoff));
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // A leftover spool file only costs disk space
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time view of an asynchronous ingestion job. {@code queuedMillis}
+ * and {@code runMillis} keep growing until the job starts and finishes.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IngestionJobStatus(
+        String jobId,
+        String namespace,
+        String documentId,
+        State state,
+        int pagesDone,
+        int pagesTotal,
+        int chunksStored,
+        Instant submittedAt,
+        Instant startedAt,
+        Instant finishedAt,
+        long queuedMillis,
+        long runMillis,
+        String error) {
+
+    public enum State { QUEUED, RUNNING, SUCCEEDED, FAILED }
+}
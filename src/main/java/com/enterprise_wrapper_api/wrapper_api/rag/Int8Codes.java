@@ -0,0 +1,75 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Symmetric per-row int8 scalar quantization: {@code v[i] ~ scale * code[i]}
+ * with {@code scale = max|v| / 127}. Layout is {@code rows} float32 scales
+ * followed by {@code rows * dimension} signed bytes. 4x smaller than float32.
+ */
+final class Int8Codes implements QuantizedCodes {
+
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final int dimension;
+    private final int codesOffset;
+
+    Int8Codes(ByteBuffer buffer, int rows, int dimension) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.rows = rows;
+        this.dimension = dimension;
+        this.codesOffset = rows * Float.BYTES;
+        if (buffer.capacity() != codesOffset + rows * dimension) {
+            throw new IllegalStateException("int8 codes do not match segment shape");
+        }
+    }
+
+    static long bytes(int rows, int dimension) {
+        return (long) rows * (Float.BYTES + dimension);
+    }
+
+    static Int8Codes encode(VectorSlab slab) {
+        int rows = slab.size();
+        int dimension = slab.dimension();
+        ByteBuffer buffer = ByteBuffer.allocate(rows * Float.BYTES + rows * dimension)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        float[] row = new float[dimension];
+        for (int r = 0; r < rows; r++) {
+            slab.copyRow(r, row);
+            float maxAbs = 0f;
+            for (float v : row) {
+                maxAbs = Math.max(maxAbs, Math.abs(v));
+            }
+            float scale = maxAbs == 0f ? 1f : maxAbs / 127f;
+            buffer.putFloat(r * Float.BYTES, scale);
+            int base = rows * Float.BYTES + r * dimension;
+            for (int i = 0; i < dimension; i++) {
+                buffer.put(base + i, (byte) Math.round(row[i] / scale));
+            }
+        }
+        return new Int8Codes(buffer, rows, dimension);
+    }
+
+    @Override
+    public QuantizationMode mode() {
+        return QuantizationMode.INT8;
+    }
+
+    @Override
+    public void scan(float[] unitQuery, TopKCollector collector, int idBase) {
+        ByteBuffer codes = buffer;
+        for (int r = 0, offset = codesOffset; r < rows; r++, offset += dimension) {
+            float sum = 0f;
+            for (int i = 0; i < dimension; i++) {
+                sum += codes.get(offset + i) * unitQuery[i];
+            }
+            collector.offer(idBase + r, sum * codes.getFloat(r * Float.BYTES));
+        }
+    }
+
+    @Override
+    public ByteBuffer buffer() {
+        return buffer.asReadOnlyBuffer().position(0);
+    }
+}
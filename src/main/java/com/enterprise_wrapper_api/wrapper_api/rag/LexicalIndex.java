@@ -0,0 +1,127 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Immutable inverted index over one segment's chunks. Each term maps to
+ * parallel primitive arrays of the rows containing it and its frequency in
+ * each row, which is everything BM25 needs besides the row lengths.
+ */
+final class LexicalIndex {
+
+    record Postings(int[] rows, int[] freqs) {
+    }
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "in", "is", "it", "its",
+            "of", "on", "or", "that", "the", "this", "to", "was", "were", "will", "with");
+
+    private final Map<String, Postings> postings;
+    private final int[] lengths;
+    private final long totalLength;
+
+    private LexicalIndex(Map<String, Postings> postings, int[] lengths, long totalLength) {
+        this.postings = postings;
+        this.lengths = lengths;
+        this.totalLength = totalLength;
+    }
+
+    static LexicalIndex build(int rows, IntFunction<String> content) {
+        Map<String, PostingsBuilder> builders = new HashMap<>();
+        int[] lengths = new int[rows];
+        long totalLength = 0;
+
+        for (int row = 0; row < rows; row++) {
+            int current = row;
+            int[] length = new int[1];
+            tokenize(content.apply(row), term -> {
+                builders.computeIfAbsent(term, key -> new PostingsBuilder()).add(current);
+                length[0]++;
+            });
+            lengths[row] = length[0];
+            totalLength += length[0];
+        }
+
+        Map<String, Postings> postings = new HashMap<>(builders.size() * 4 / 3 + 1);
+        builders.forEach((term, builder) -> postings.put(term, builder.build()));
+        return new LexicalIndex(postings, lengths, totalLength);
+    }
+
+    /**
+     * Distinct query terms in first-seen order, analysed the same way as the
+     * indexed text.
+     */
+    static List<String> terms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(query, terms::add);
+        return new ArrayList<>(terms);
+    }
+
+    Postings postings(String term) {
+        return postings.get(term);
+    }
+
+    int rows() {
+        return lengths.length;
+    }
+
+    int length(int row) {
+        return lengths[row];
+    }
+
+    long totalLength() {
+        return totalLength;
+    }
+
+    // Lower-cased runs of letters and digits, minus stop words and single characters
+    private static void tokenize(String text, Consumer<String> sink) {
+        StringBuilder term = new StringBuilder(32);
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (!term.isEmpty()) {
+                if (term.length() > 1) {
+                    String value = term.toString();
+                    if (!STOP_WORDS.contains(value)) {
+                        sink.accept(value);
+                    }
+                }
+                term.setLength(0);
+            }
+        }
+    }
+
+    // Rows arrive in ascending order, so a repeat of the last row only bumps its frequency
+    private static final class PostingsBuilder {
+        private int[] rows = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void add(int row) {
+            if (size > 0 && rows[size - 1] == row) {
+                freqs[size - 1]++;
+                return;
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            rows[size] = row;
+            freqs[size] = 1;
+            size++;
+        }
+
+        Postings build() {
+            return new Postings(Arrays.copyOf(rows, size), Arrays.copyOf(freqs, size));
+        }
+    }
+}
@@ -1,59 +1,34 @@
 package com.enterprise_wrapper_api.wrapper_api.rag;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
+import com.enterprise_wrapper_api.wrapper_api.llm.LlmGateway;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
-
-import java.time.Duration;
-import java.util.List;
-import java.util.Map;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Component
 public class LlamaClient {
 
-    private final WebClient webClient;
+    private static final int MAX_TOKENS = 500;
 
-    public LlamaClient(
-            WebClient.Builder builder,
-            @Value("${groq.api.url}") String groqUrl,
-            @Value("${groq.api.key}") String apiKey
-    ) {
+    private final LlmGateway gateway;
 
-        this.webClient = builder
-                .baseUrl(groqUrl)
-                .defaultHeader("Authorization", "Bearer " + apiKey)
-                .defaultHeader("Content-Type", "application/json")
-                .build();
+    public LlamaClient(LlmGateway gateway) {
+        this.gateway = gateway;
     }
 
     /**
-     * Sends prompt to Groq LLaMA and returns generated text
+     * Sends prompt to Groq LLaMA and emits the generated text. Nothing blocks:
+     * the call completes on the WebClient event loop.
      */
-    public String generateAnswer(String prompt) {
-
-        Map<String, Object> body = Map.of(
-                "model", "llama-3.1-8b-instant",
-                "messages", List.of(
-                        Map.of("role", "user", "content", prompt)
-                ),
-                "temperature", 0.2,
-                "max_tokens", 500
-        );
-
-        Map<String, Object> response = webClient.post()
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(body)
-                .retrieve()
-                .bodyToMono(Map.class)
-                .timeout(Duration.ofSeconds(30))
-                .block();
-
-        List<Map<String, Object>> choices =
-                (List<Map<String, Object>>) response.get("choices");
-
-        Map<String, Object> message =
-                (Map<String, Object>) choices.get(0).get("message");
+    public Mono<String> generateAnswer(String prompt) {
+        return gateway.complete(prompt, MAX_TOKENS, false);
+    }
 
-        return (String) message.get("content");
+    /**
+     * Emits each content delta as Groq produces it. Cancelling the
+     * subscription closes the upstream connection, so an abandoned request
+     * stops generating tokens.
+     */
+    public Flux<String> streamAnswer(String prompt) {
+        return gateway.stream(prompt, MAX_TOKENS);
     }
 }
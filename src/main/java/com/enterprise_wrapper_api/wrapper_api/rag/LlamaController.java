@@ -1,9 +1,12 @@
 package com.enterprise_wrapper_api.wrapper_api.rag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @RestController
 @RequestMapping("/rag")
@@ -15,20 +18,64 @@ public class LlamaController {
     @Autowired
     private LlamaClient llamaClient; // your existing wrapper
 
+    @Autowired
+    private ContextAssembler contextAssembler;
+
+    /**
+     * Answers a question from the namespace's documents. The optional
+     * {@code filter} restricts retrieval by metadata, e.g.
+     * {@code document = handbook and page <= 20}; see
+     * {@link MetadataFilter#parse}.
+     */
     @PostMapping("/ask")
-    public ResponseEntity<String> askQuestion(@RequestBody String query) {
+    public Mono<ResponseEntity<String>> askQuestion(
+            @RequestBody String query,
+            @RequestParam(value = "namespace", defaultValue = VectorStoreService.DEFAULT_NAMESPACE) String namespace,
+            @RequestParam(value = "filter", required = false) String filter) {
 
-        // Step 1: Retrieve relevant PDF chunks
-        List<String> contextDocs = retrieverService.retrieveRelevantDocs(query, 3); // top 3
+        MetadataFilter metadataFilter;
+        try {
+            metadataFilter = MetadataFilter.parse(filter);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+        }
 
-        // Step 2: Construct RAG prompt
-        String prompt = "Use the following context to answer the question:\n" +
-                String.join("\n---\n", contextDocs) +
-                "\nQuestion: " + query;
+        // Step 1 + 2: Retrieve relevant PDF chunks and construct the RAG prompt
+        return buildPrompt(namespace, query, metadataFilter)
 
-        // Step 3: Call LLaMA API
-        String answer = llamaClient.generateAnswer(prompt);
+                // Step 3: Call LLaMA API
+                .flatMap(llamaClient::generateAnswer)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Same as {@code /ask}, but forwards answer tokens as server-sent
+     * {@code token} events as they arrive, then a single {@code done} event.
+     * A client disconnect cancels the upstream generation.
+     */
+    @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> askQuestionStream(
+            @RequestBody String query,
+            @RequestParam(value = "namespace", defaultValue = VectorStoreService.DEFAULT_NAMESPACE) String namespace,
+            @RequestParam(value = "filter", required = false) String filter) {
+
+        // A malformed filter surfaces as the stream's error event
+        return Mono.fromCallable(() -> MetadataFilter.parse(filter))
+                .flatMap(metadataFilter -> buildPrompt(namespace, query, metadataFilter))
+                .flatMapMany(llamaClient::streamAnswer)
+                .map(token -> ServerSentEvent.builder(token).event("token").build())
+                .concatWith(Mono.just(ServerSentEvent.builder("").event("done").build()))
+                .onErrorResume(e -> Mono.just(ServerSentEvent.builder(String.valueOf(e.getMessage()))
+                        .event("error")
+                        .build()));
+    }
 
-        return ResponseEntity.ok(answer);
+    // Retrieval embeds the query and may read the embedding cache from disk, so it runs off the request thread
+    private Mono<String> buildPrompt(String namespace, String query, MetadataFilter filter) {
+        return Mono.fromCallable(() -> retrieverService.retrieveChunks(namespace, query, contextAssembler.candidates(),
+                        filter))
+                .subscribeOn(Schedulers.boundedElastic())
+                // Overlapping chunks are merged and the rest packed into the token budget
+                .map(chunks -> contextAssembler.buildPrompt(chunks, query));
     }
 }
@@ -0,0 +1,153 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Segment served straight from memory-mapped files. Vectors stay in the page
+ * cache and contents are only decoded for rows that make it into a result.
+ * Quantized codes, when present, are mapped too, so a quantized scan only
+ * touches full-precision pages for the re-ranked shortlist.
+ *
+ * The lexical index is not persisted: a freshly written segment inherits the
+ * one built at ingestion, and a segment reopened after a restart rebuilds it
+ * from its text on the first hybrid query. The page column is small and is
+ * read onto the heap, with its bitmap index, when the segment is opened.
+ */
+final class MappedVectorSegment implements VectorSegment {
+
+    private final long segmentId;
+    private final String documentId;
+    private final int dimension;
+    private final int size;
+    private final FloatBuffer vectors;
+    private final LongBuffer offsets;
+    private final ByteBuffer text;
+    private final QuantizedCodes codes;
+    private final ChunkMetadata metadata;
+    private volatile LexicalIndex lexical;
+
+    MappedVectorSegment(long segmentId, String documentId, int dimension, int size,
+                        FloatBuffer vectors, LongBuffer offsets, ByteBuffer text, ChunkMetadata metadata,
+                        QuantizedCodes codes) {
+        if (vectors.capacity() != size * dimension || offsets.capacity() != size + 1 || metadata.rows() != size) {
+            throw new IllegalStateException("Segment " + segmentId + " is truncated or corrupt");
+        }
+        this.segmentId = segmentId;
+        this.documentId = documentId;
+        this.dimension = dimension;
+        this.size = size;
+        this.vectors = vectors;
+        this.offsets = offsets;
+        this.text = text;
+        this.codes = codes;
+        this.metadata = metadata;
+    }
+
+    long segmentId() {
+        return segmentId;
+    }
+
+    @Override
+    public String documentId() {
+        return documentId;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String content(int row) {
+        int start = (int) offsets.get(row);
+        int end = (int) offsets.get(row + 1);
+        byte[] bytes = new byte[end - start];
+        text.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void scan(float[] unitQuery, TopKCollector collector, int idBase) {
+        FloatBuffer data = vectors;
+        for (int row = 0, offset = 0; row < size; row++, offset += dimension) {
+            float sum = 0f;
+            for (int i = 0; i < dimension; i++) {
+                sum += data.get(offset + i) * unitQuery[i];
+            }
+            collector.offer(idBase + row, sum);
+        }
+    }
+
+    @Override
+    public float dot(int row, float[] unitQuery) {
+        float sum = 0f;
+        for (int i = 0, offset = row * dimension; i < dimension; i++) {
+            sum += vectors.get(offset + i) * unitQuery[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void scan(SparseVector unitQuery, TopKCollector collector, int idBase) {
+        for (int row = 0, offset = 0; row < size; row++, offset += dimension) {
+            collector.offer(idBase + row, dot(vectors, offset, unitQuery));
+        }
+    }
+
+    @Override
+    public float dot(int row, SparseVector unitQuery) {
+        return dot(vectors, row * dimension, unitQuery);
+    }
+
+    @Override
+    public void copyVector(int row, float[] target) {
+        vectors.get(row * dimension, target, 0, dimension);
+    }
+
+    @Override
+    public QuantizedCodes codes() {
+        return codes;
+    }
+
+    @Override
+    public LexicalIndex lexical() {
+        LexicalIndex index = lexical;
+        if (index == null) {
+            synchronized (this) {
+                index = lexical;
+                if (index == null) {
+                    index = LexicalIndex.build(size, this::content);
+                    lexical = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public ChunkMetadata metadata() {
+        return metadata;
+    }
+
+    void adoptLexical(LexicalIndex index) {
+        lexical = index;
+    }
+
+    private static float dot(FloatBuffer data, int offset, SparseVector unitQuery) {
+        int[] indices = unitQuery.indices();
+        float[] values = unitQuery.values();
+        float sum = 0f;
+        for (int i = 0; i < indices.length; i++) {
+            sum += data.get(offset + indices[i]) * values[i];
+        }
+        return sum;
+    }
+}
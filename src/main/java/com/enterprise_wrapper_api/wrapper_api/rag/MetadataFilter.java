@@ -0,0 +1,168 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Restricts a search to chunks whose metadata matches. Bounds are inclusive
+ * and {@code documentIds} is {@code null} when any document matches.
+ *
+ * Tenants are already separated by namespace, so the filter only covers
+ * what varies inside one: the document, its pages and its upload time.
+ */
+public record MetadataFilter(Set<String> documentIds, int minPage, int maxPage,
+                             long uploadedFrom, long uploadedTo) {
+
+    public static final MetadataFilter NONE =
+            new MetadataFilter(null, Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE);
+
+    private static final Pattern CLAUSE = Pattern.compile(
+            "(document|page|uploaded)\\s*(<=|>=|=|<|>|in\\b)\\s*(.+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern AND = Pattern.compile("\\s+and\\s+", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Parses clauses joined by {@code and}, for example
+     * {@code document in (q3-report, q4-report) and page >= 2 and page <= 10
+     * and uploaded >= 2025-01-01}. Documents take {@code =} or {@code in};
+     * pages and upload times (ISO instants or dates, read as UTC midnight)
+     * take {@code =, <, <=, >, >=}. Blank expressions match everything.
+     *
+     * @throws IllegalArgumentException on anything else
+     */
+    public static MetadataFilter parse(String expression) {
+        MetadataFilter filter = NONE;
+        if (expression == null || expression.isBlank()) {
+            return filter;
+        }
+        for (String clause : AND.split(expression.trim())) {
+            Matcher matcher = CLAUSE.matcher(clause.trim());
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Unsupported filter clause: " + clause.trim());
+            }
+            String field = matcher.group(1).toLowerCase(Locale.ROOT);
+            String op = matcher.group(2).toLowerCase(Locale.ROOT);
+            String value = matcher.group(3).trim();
+            filter = switch (field) {
+                case "document" -> filter.withDocuments(documents(op, value));
+                case "page" -> {
+                    long[] range = range(op, parsePage(value));
+                    yield filter.withPages((int) Math.max(Integer.MIN_VALUE, range[0]),
+                            (int) Math.min(Integer.MAX_VALUE, range[1]));
+                }
+                default -> {
+                    long[] range = range(op, parseTime(value));
+                    yield filter.withUploaded(range[0], range[1]);
+                }
+            };
+        }
+        return filter;
+    }
+
+    public boolean matchesEverything() {
+        return equals(NONE);
+    }
+
+    /**
+     * Rows of {@code segment} that match: {@code null} when every row does,
+     * so callers can keep the plain full scan, and an empty bitmap when none
+     * do. Document and upload time are checked once per segment; the page
+     * range is answered from the segment's bitmap index.
+     */
+    RoaringBitmap rows(VectorSegment segment) {
+        if (documentIds != null && !documentIds.contains(segment.documentId())) {
+            return new RoaringBitmap();
+        }
+        ChunkMetadata metadata = segment.metadata();
+        if (metadata.uploadedAt() < uploadedFrom || metadata.uploadedAt() > uploadedTo) {
+            return new RoaringBitmap();
+        }
+        if (minPage == Integer.MIN_VALUE && maxPage == Integer.MAX_VALUE) {
+            return null;
+        }
+        RoaringBitmap rows = metadata.rowsOnPages(minPage, maxPage);
+        return rows.getCardinality() == segment.size() ? null : rows;
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private MetadataFilter withDocuments(Set<String> ids) {
+        Set<String> combined = new HashSet<>(ids);
+        if (documentIds != null) {
+            combined.retainAll(documentIds);
+        }
+        return new MetadataFilter(Set.copyOf(combined), minPage, maxPage, uploadedFrom, uploadedTo);
+    }
+
+    private MetadataFilter withPages(int min, int max) {
+        return new MetadataFilter(documentIds, Math.max(minPage, min), Math.min(maxPage, max), uploadedFrom, uploadedTo);
+    }
+
+    private MetadataFilter withUploaded(long from, long to) {
+        return new MetadataFilter(documentIds, minPage, maxPage, Math.max(uploadedFrom, from), Math.min(uploadedTo, to));
+    }
+
+    private static Set<String> documents(String op, String value) {
+        if (op.equals("=")) {
+            return Set.of(unquote(value));
+        }
+        if (!op.equals("in") || !value.startsWith("(") || !value.endsWith(")")) {
+            throw new IllegalArgumentException("Documents are matched with = or in (...)");
+        }
+        Set<String> ids = new HashSet<>();
+        Arrays.stream(value.substring(1, value.length() - 1).split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .forEach(id -> ids.add(unquote(id)));
+        return ids;
+    }
+
+    // Inclusive [min, max] for a comparison against value
+    private static long[] range(String op, long value) {
+        return switch (op) {
+            case "=" -> new long[]{value, value};
+            case "<" -> new long[]{Long.MIN_VALUE, value - 1};
+            case "<=" -> new long[]{Long.MIN_VALUE, value};
+            case ">" -> new long[]{value + 1, Long.MAX_VALUE};
+            case ">=" -> new long[]{value, Long.MAX_VALUE};
+            default -> throw new IllegalArgumentException("Pages and upload times are compared with =, <, <=, > or >=");
+        };
+    }
+
+    private static int parsePage(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page number: " + value);
+        }
+    }
+
+    private static long parseTime(String value) {
+        String text = unquote(value);
+        try {
+            return text.length() == 10
+                    ? LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()
+                    : Instant.parse(text).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid upload time: " + value);
+        }
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && (value.startsWith("'") && value.endsWith("'")
+                || value.startsWith("\"") && value.endsWith("\""))
+                ? value.substring(1, value.length() - 1)
+                : value;
+    }
+}
@@ -1,43 +1,192 @@
 package com.enterprise_wrapper_api.wrapper_api.rag;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import com.enterprise_wrapper_api.wrapper_api.extract.DocumentExtractionException;
+import com.enterprise_wrapper_api.wrapper_api.extract.DocumentExtractor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.InputStream;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 public class PdfService {
 
+    /**
+     * Receives one chunk and the 1-based page it starts on.
+     */
+    @FunctionalInterface
+    public interface ChunkSink {
+        void accept(String chunk, int page);
+    }
+
+    private final int pagesPerBatch;
+    private final TextChunkService chunks;
+    private final DocumentExtractor extractor;
+    private final Timer extractTimer;
+    private final Timer chunkTimer;
+
+    public PdfService(int pagesPerBatch) {
+        this(pagesPerBatch, new TextChunkService(), DocumentExtractor.uncached(), Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public PdfService(@Value("${rag.pdf.pages-per-batch:8}") int pagesPerBatch,
+                      TextChunkService chunks,
+                      DocumentExtractor extractor,
+                      MeterRegistry meterRegistry) {
+        this.pagesPerBatch = Math.max(1, pagesPerBatch);
+        this.chunks = chunks;
+        this.extractor = extractor;
+        this.extractTimer = RagService.stageTimer(meterRegistry, "extract");
+        this.chunkTimer = RagService.stageTimer(meterRegistry, "chunk");
+    }
+
     // Extract text from uploaded PDF
     public String extractText(MultipartFile file) {
-        try (InputStream inputStream = file.getInputStream();
-             PDDocument document = PDDocument.load(inputStream)) {
+        return extractor.extract(file, DocumentExtractor.PDF);
+    }
 
-            PDFTextStripper stripper = new PDFTextStripper();
-            return stripper.getText(document);
+    /**
+     * Streams chunks of an uploaded PDF to {@code chunkConsumer} as pages are
+     * extracted. PDFBox buffers the document in a temp file rather than the
+     * heap, and text is pulled a few pages at a time, so peak memory is
+     * bounded by one page batch plus one chunk rather than the whole file.
+     * Chunk boundaries are identical to {@link #chunkText} on the full text.
+     *
+     * Extraction and chunking time for the whole upload are recorded as the
+     * {@code extract} and {@code chunk} stages; time spent inside the
+     * consumer counts towards neither.
+     *
+     * The document is parsed by one task on the extractor's bounded pool (see
+     * {@link DocumentExtractor#streamPdf}), so a pathological PDF fails with a
+     * {@link DocumentExtractionException} after {@code extract.timeout} of
+     * waiting for pages instead of holding the uploading thread. Chunking and
+     * the consumer stay on the calling thread and do not count against the
+     * timeout.
+     *
+     * A document whose text is already in the extraction cache is chunked
+     * from there without opening it. Otherwise the text is kept while it is
+     * extracted and cached afterwards, unless it exceeds the extractor's
+     * character limit. Every page ends with a
+     * {@link DocumentExtractor#PAGE_BREAK}, which is how each chunk's page is
+     * found, for cached text too.
+     *
+     * @return number of chunks emitted
+     */
+    public int streamChunks(InputStreamSource file, Consumer<String> chunkConsumer) {
+        return streamChunks(file, (chunk, page) -> chunkConsumer.accept(chunk), IngestProgress.NONE);
+    }
 
+    // Same as above with each chunk's page, reporting pages as each batch is extracted
+    public int streamChunks(InputStreamSource file, ChunkSink chunkSink, IngestProgress progress) {
+        long extractNanos = 0;
+        long feedNanos = 0;
+        long[] consumerNanos = new long[1];
+        long start = System.nanoTime();
+        PageBreaks pageBreaks = new PageBreaks();
+
+        // Strings are only materialized for chunks handed to the consumer
+        TextChunker.Feed feed = chunks.chunker().feed((text, from, to, offset) -> {
+            String chunk = text.subSequence(from, to).toString();
+            int page = pageBreaks.pageAt(offset);
+            long handoff = System.nanoTime();
+            chunkSink.accept(chunk, page);
+            consumerNanos[0] += System.nanoTime() - handoff;
+        });
+
+        try {
+            String cacheKey = extractor.cacheKey(file, DocumentExtractor.PDF);
+            String cached = extractor.cached(cacheKey);
+            extractNanos += System.nanoTime() - start;
+            if (cached != null) {
+                long chunk = System.nanoTime();
+                pageBreaks.record(cached);
+                feed.append(cached);
+                int count = feed.finish();
+                feedNanos += System.nanoTime() - chunk;
+                return count;
+            }
+
+            long[] sinkNanos = new long[1];
+            StringBuilder[] extracted = {cacheKey == null ? null : new StringBuilder()};
+            long parse = System.nanoTime();
+            extractor.streamPdf(file, pagesPerBatch, (text, lastPage, pages) -> {
+                long chunk = System.nanoTime();
+                pageBreaks.record(text);
+                feed.append(text);
+                if (extracted[0] != null) {
+                    // Past the limit the cache would hold truncated text, so stop keeping it
+                    extracted[0] = extracted[0].length() + text.length() <= extractor.maxChars()
+                            ? extracted[0].append(text)
+                            : null;
+                }
+                progress.pagesExtracted(lastPage, pages);
+                sinkNanos[0] += System.nanoTime() - chunk;
+            });
+            extractNanos += System.nanoTime() - parse - sinkNanos[0];
+            feedNanos += sinkNanos[0];
+
+            long chunk = System.nanoTime();
+            int count = feed.finish();
+            feedNanos += System.nanoTime() - chunk;
+            if (extracted[0] != null) {
+                extractor.cache(cacheKey, extracted[0].toString());
+            }
+            return count;
+
+        } catch (DocumentExtractionException | RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to read PDF", e);
+        } finally {
+            extractTimer.record(extractNanos, TimeUnit.NANOSECONDS);
+            chunkTimer.record(Math.max(0, feedNanos - consumerNanos[0]), TimeUnit.NANOSECONDS);
         }
     }
 
     // Chunk text for RAG
     public List<String> chunkText(String text) {
+        return chunks.chunkText(text);
+    }
 
-        int chunkSize = 800;
-        int overlap = 100;
-
-        List<String> chunks = new ArrayList<>();
+    /**
+     * Document offsets of the page breaks seen so far. Chunks are emitted in
+     * increasing offset order, so a cursor finds each chunk's page in
+     * amortized constant time.
+     */
+    private static final class PageBreaks {
+        private long[] offsets = new long[16];
+        private int count;
+        private long appended;
+        private int cursor;
 
-        for (int i = 0; i < text.length(); i += (chunkSize - overlap)) {
-            int end = Math.min(text.length(), i + chunkSize);
-            chunks.add(text.substring(i, end));
+        // Must see every piece before the chunker does
+        void record(CharSequence piece) {
+            for (int i = 0, n = piece.length(); i < n; i++) {
+                if (piece.charAt(i) == DocumentExtractor.PAGE_BREAK) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = appended + i;
+                }
+            }
+            appended += piece.length();
         }
 
-        return chunks;
+        int pageAt(long offset) {
+            while (cursor < count && offsets[cursor] < offset) {
+                cursor++;
+            }
+            return cursor + 1;
+        }
     }
 }
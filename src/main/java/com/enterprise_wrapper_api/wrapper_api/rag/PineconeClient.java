@@ -1,28 +1,402 @@
 package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Pinecone data-plane client.
+ *
+ * {@code save} calls are buffered per namespace and sent as one upsert once
+ * a batch holds {@code pinecone.batch.max-vectors} vectors or its first
+ * vector has waited {@code pinecone.batch.max-delay}. Upserts are sent
+ * asynchronously over one pooled keep-alive connection set; at most
+ * {@code pinecone.max-in-flight} are outstanding, and a caller that would
+ * exceed that waits, so ingestion slows down instead of queueing without
+ * bound. Throttled calls (429) are retried with exponential backoff.
+ *
+ * A failed upsert is logged and counted in {@code pinecone.upsert.failed.vectors}
+ * when it happens, since {@code save} callers never wait for it, and is
+ * also reported by the next {@link #flush()}. Pinecone is
+ * eventually consistent, so vectors are only searchable some time after
+ * their batch was sent.
+ */
 @Service
 public class PineconeClient implements VectorDatabaseClient {
 
-    private static final String PINECONE_API_KEY = "YOUR_API_KEY";
-    private static final String INDEX_NAME = "my-index";
+    private static final Logger log = LoggerFactory.getLogger(PineconeClient.class);
+
+    private static final Duration CALL_TIMEOUT = Duration.ofSeconds(30);
+    private static final String TEXT_FIELD = "text";
+
+    private final WebClient webClient;
+    private final ConnectionProvider connections;
+    private final boolean configured;
+    private final String namespace;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final int maxInFlight;
+    private final Retry throttleRetry;
+    private final Semaphore inFlight;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Batch> pending = new HashMap<>();
+    // Batches whose max-delay expired while every permit was taken; guarded by pending
+    private final Deque<Batch> waiting = new ArrayDeque<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSizes;
+    private final Counter throttled;
+    private final Counter failedVectors;
+    private boolean closed;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    public PineconeClient(
+            WebClient.Builder builder,
+            @Value("${pinecone.index-host:}") String indexHost,
+            @Value("${pinecone.api-key:}") String apiKey,
+            @Value("${pinecone.namespace:}") String namespace,
+            @Value("${pinecone.batch.max-vectors:100}") int batchSize,
+            @Value("${pinecone.batch.max-delay:200ms}") Duration maxDelay,
+            @Value("${pinecone.max-in-flight:4}") int maxInFlight,
+            @Value("${pinecone.pool.max-connections:16}") int maxConnections,
+            @Value("${pinecone.retry.max-attempts:5}") int maxRetries,
+            @Value("${pinecone.retry.backoff:500ms}") Duration retryBackoff,
+            MeterRegistry meterRegistry
+    ) {
+        this.connections = ConnectionProvider.builder("pinecone")
+                .maxConnections(Math.max(1, maxConnections))
+                .pendingAcquireTimeout(CALL_TIMEOUT)
+                .build();
 
+        HttpClient httpClient = HttpClient.create(connections)
+                .keepAlive(true)
+                .compress(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5_000);
+
+        this.webClient = builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .baseUrl(indexHost)
+                .defaultHeader("Api-Key", apiKey)
+                .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .build();
+        this.configured = indexHost != null && !indexHost.isBlank();
+        this.namespace = namespace;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDelay = maxDelay;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        // Fair, so flush() draining every permit is not starved by concurrent saves
+        this.inFlight = new Semaphore(this.maxInFlight, true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pinecone-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.meterRegistry = meterRegistry;
+        this.batchSizes = DistributionSummary.builder("pinecone.upsert.batch.size")
+                .description("Vectors per Pinecone upsert request")
+                .register(meterRegistry);
+        this.throttled = Counter.builder("pinecone.throttled")
+                .description("Pinecone calls retried after a 429")
+                .register(meterRegistry);
+        this.failedVectors = Counter.builder("pinecone.upsert.failed.vectors")
+                .description("Vectors whose upsert failed after retries and were not stored")
+                .register(meterRegistry);
+        this.throttleRetry = Retry.backoff(maxRetries, retryBackoff)
+                .filter(PineconeClient::isThrottled)
+                .doBeforeRetry(signal -> throttled.increment())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    // Buffers the vector for the configured default namespace
     @Override
     public void save(String id, float[] vector, String text) {
-        // Example REST call to upsert vector
-        // In production, use Pinecone Java client for simplicity
-        System.out.println("Saving vector for id: " + id + ", text: " + text.substring(0, Math.min(50, text.length())) + "...");
-        // send HTTP POST to Pinecone /vectors/upsert
+        save(namespace, id, vector, text);
+    }
+
+    /**
+     * Queues the vector for the next upsert to {@code namespace}. Returns
+     * once it is buffered, or, when a full batch has to be sent and
+     * {@code pinecone.max-in-flight} upserts are outstanding, once one of
+     * them finished.
+     */
+    public void save(String namespace, String id, float[] vector, String text) {
+        requireConfigured();
+        Batch full = null;
+        synchronized (pending) {
+            if (closed) {
+                throw new IllegalStateException("Pinecone client is closed");
+            }
+            Batch batch = pending.get(namespace);
+            if (batch == null) {
+                Batch started = new Batch(namespace);
+                pending.put(namespace, started);
+                scheduler.schedule(() -> sendIfPending(started), maxDelay.toNanos(), TimeUnit.NANOSECONDS);
+                batch = started;
+            }
+            batch.vectors.add(vector(id, vector, text));
+            if (batch.vectors.size() >= batchSize) {
+                pending.remove(namespace);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+    }
+
+    /**
+     * Sends every buffered vector and waits until all upserts have finished.
+     *
+     * @throws IllegalStateException when an upsert failed since the last flush
+     */
+    public void flush() {
+        List<Batch> batches;
+        synchronized (pending) {
+            batches = new ArrayList<>(waiting);
+            waiting.clear();
+            batches.addAll(pending.values());
+            pending.clear();
+        }
+        batches.forEach(this::send);
+
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+
+        Throwable e = failure.getAndSet(null);
+        if (e != null) {
+            throw new IllegalStateException("Pinecone upsert failed", e);
+        }
     }
 
+    // Searches the configured default namespace
     @Override
     public List<String> search(float[] queryVector, int topK) {
-        // Example: search topK vectors similar to queryVector
-        System.out.println("Searching top " + topK + " vectors...");
-        return List.of(); // return top-K texts
+        return search(List.of(namespace), queryVector, topK);
+    }
+
+    /**
+     * Queries every namespace in parallel and merges the matches by score.
+     */
+    public List<String> search(Collection<String> namespaces, float[] queryVector, int topK) {
+        requireConfigured();
+        List<Match> matches = Flux.fromIterable(namespaces)
+                .flatMap(ns -> query(ns, queryVector, topK), maxInFlight)
+                .collectList()
+                .block(CALL_TIMEOUT);
+
+        return matches == null ? List.of() : matches.stream()
+                .sorted(Comparator.comparingDouble(Match::score).reversed())
+                .limit(topK)
+                .map(Match::text)
+                .toList();
+    }
+
+    // Sends what is still buffered; failures are logged, as throwing from shutdown helps nobody
+    @PreDestroy
+    void close() {
+        synchronized (pending) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            if (configured) {
+                flush();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Pinecone upserts failed before shutdown", e);
+        } finally {
+            scheduler.shutdownNow();
+            connections.dispose();
+        }
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private record Match(double score, String text) {
+    }
+
+    private static final class Batch {
+        final String namespace;
+        final List<Map<String, Object>> vectors = new ArrayList<>();
+
+        Batch(String namespace) {
+            this.namespace = namespace;
+        }
+    }
+
+    /**
+     * Fired max-delay after a batch started; a no-op when it was already sent
+     * full. Runs on the single scheduler thread, so it never waits for a
+     * permit: without one the batch queues until an upsert finishes, and other
+     * namespaces' timers still fire on time.
+     */
+    private void sendIfPending(Batch batch) {
+        synchronized (pending) {
+            if (!pending.remove(batch.namespace, batch)) {
+                return;
+            }
+            if (!inFlight.tryAcquire()) {
+                waiting.add(batch);
+                return;
+            }
+        }
+        sendAcquired(batch);
+    }
+
+    // Caller path: blocks while max-in-flight upserts are outstanding
+    private void send(Batch batch) {
+        inFlight.acquireUninterruptibly();
+        sendAcquired(batch);
+    }
+
+    // Takes over a held permit, which is released when the call ends
+    private void sendAcquired(Batch batch) {
+        try {
+            upsert(batch)
+                    .doFinally(signal -> {
+                        inFlight.release();
+                        sendWaiting();
+                    })
+                    .subscribe(null, e -> failed(batch, e));
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    // Sends queued timer batches while permits are free
+    private void sendWaiting() {
+        while (true) {
+            Batch batch;
+            synchronized (pending) {
+                if (waiting.isEmpty() || !inFlight.tryAcquire()) {
+                    return;
+                }
+                batch = waiting.poll();
+            }
+            sendAcquired(batch);
+        }
+    }
+
+    private void failed(Batch batch, Throwable e) {
+        log.error("Pinecone upsert of {} vectors to namespace '{}' failed", batch.vectors.size(), batch.namespace, e);
+        failedVectors.increment(batch.vectors.size());
+        failure.compareAndSet(null, e);
+    }
+
+    private Mono<Void> upsert(Batch batch) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("vectors", batch.vectors);
+        body.put("namespace", batch.namespace);
+        batchSizes.record(batch.vectors.size());
+
+        return timed("upsert", webClient.post()
+                .uri("/vectors/upsert")
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(CALL_TIMEOUT)
+                .retryWhen(throttleRetry)
+                .then());
+    }
+
+    private Flux<Match> query(String namespace, float[] queryVector, int topK) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("namespace", namespace);
+        body.put("vector", queryVector);
+        body.put("topK", topK);
+        body.put("includeMetadata", true);
+
+        return timed("query", webClient.post()
+                .uri("/query")
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(CALL_TIMEOUT)
+                .retryWhen(throttleRetry))
+                .flatMapIterable(response -> {
+                    List<Match> matches = new ArrayList<>();
+                    for (JsonNode match : response.path("matches")) {
+                        matches.add(new Match(match.path("score").asDouble(),
+                                match.path("metadata").path(TEXT_FIELD).asText("")));
+                    }
+                    return matches;
+                });
+    }
+
+    private static Map<String, Object> vector(String id, float[] values, String text) {
+        Map<String, Object> vector = new LinkedHashMap<>();
+        vector.put("id", id);
+        vector.put("values", values.clone());
+        vector.put("metadata", Map.of(TEXT_FIELD, text));
+        return vector;
+    }
+
+    // Times one call, retries included, as pinecone.requests by type and outcome
+    private <T> Mono<T> timed(String type, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(result -> record(type, "success", start))
+                    .doOnError(e -> record(type, isThrottled(e) ? "throttled" : "error", start));
+        });
+    }
+
+    private void record(String type, String outcome, long start) {
+        Timer.builder("pinecone.requests")
+                .description("Pinecone data-plane calls")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static boolean isThrottled(Throwable e) {
+        return e instanceof WebClientResponseException response
+                && response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    private void requireConfigured() {
+        if (!configured) {
+            throw new IllegalStateException("pinecone.index-host is not set");
+        }
     }
 }
@@ -0,0 +1,196 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Product quantization: each vector is split into {@code m} sub-vectors and
+ * every sub-vector is replaced by the one-byte id of its nearest centroid.
+ * Queries precompute an {@code m x k} table of sub-dot-products, so scoring a
+ * row is {@code m} table lookups (asymmetric distance).
+ *
+ * Layout: int32 m, k, subDimension; float32 centroids[m][k][subDimension];
+ * uint8 codes[rows][m].
+ */
+final class ProductQuantizedCodes implements QuantizedCodes {
+
+    private static final int HEADER = 3 * Integer.BYTES;
+    private static final int MAX_CENTROIDS = 256;
+    private static final int TRAINING_ITERATIONS = 8;
+    private static final int MAX_TRAINING_ROWS = 1024;
+
+    private static final ThreadLocal<float[]> TABLES = ThreadLocal.withInitial(() -> new float[0]);
+
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final int m;
+    private final int k;
+    private final int subDimension;
+    private final int codesOffset;
+
+    ProductQuantizedCodes(ByteBuffer buffer, int rows) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.rows = rows;
+        this.m = this.buffer.getInt(0);
+        this.k = this.buffer.getInt(Integer.BYTES);
+        this.subDimension = this.buffer.getInt(2 * Integer.BYTES);
+        this.codesOffset = HEADER + m * k * subDimension * Float.BYTES;
+        if (buffer.capacity() != codesOffset + rows * m) {
+            throw new IllegalStateException("PQ codes do not match segment shape");
+        }
+    }
+
+    /**
+     * Serialized size of a segment's codes, codebook included. The codebook
+     * is {@code dimension * k} floats whatever the row count, so it only
+     * pays for itself on large segments.
+     */
+    static long bytes(int rows, int dimension, int subspaces) {
+        int m = subspaces(dimension, subspaces);
+        int k = Math.min(MAX_CENTROIDS, rows);
+        return HEADER + (long) dimension * k * Float.BYTES + (long) rows * m;
+    }
+
+    /**
+     * Trains per-subspace codebooks with k-means on (a sample of) this
+     * segment's rows and encodes every row. {@code subspaces} is rounded down
+     * to a divisor of the dimension.
+     */
+    static ProductQuantizedCodes train(VectorSlab slab, int subspaces) {
+        int rows = slab.size();
+        int dimension = slab.dimension();
+        int m = subspaces(dimension, subspaces);
+        int subDimension = dimension / m;
+        int k = Math.min(MAX_CENTROIDS, rows);
+
+        float[] vectors = new float[rows * dimension];
+        float[] row = new float[dimension];
+        for (int r = 0; r < rows; r++) {
+            slab.copyRow(r, row);
+            System.arraycopy(row, 0, vectors, r * dimension, dimension);
+        }
+
+        int codesOffset = HEADER + m * k * subDimension * Float.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(codesOffset + rows * m).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, m).putInt(Integer.BYTES, k).putInt(2 * Integer.BYTES, subDimension);
+
+        Random random = new Random(31L * rows + dimension);
+        int[] assignment = new int[rows];
+        for (int s = 0; s < m; s++) {
+            float[] centroids = kMeans(vectors, rows, dimension, s * subDimension, subDimension, k, random, assignment);
+            for (int c = 0; c < centroids.length; c++) {
+                buffer.putFloat(HEADER + (s * k * subDimension + c) * Float.BYTES, centroids[c]);
+            }
+            for (int r = 0; r < rows; r++) {
+                buffer.put(codesOffset + r * m + s, (byte) assignment[r]);
+            }
+        }
+        return new ProductQuantizedCodes(buffer, rows);
+    }
+
+    @Override
+    public QuantizationMode mode() {
+        return QuantizationMode.PQ;
+    }
+
+    @Override
+    public void scan(float[] unitQuery, TopKCollector collector, int idBase) {
+        float[] table = TABLES.get();
+        if (table.length < m * k) {
+            table = new float[m * k];
+            TABLES.set(table);
+        }
+        ByteBuffer data = buffer;
+        for (int s = 0; s < m; s++) {
+            int queryOffset = s * subDimension;
+            for (int c = 0; c < k; c++) {
+                int centroid = HEADER + ((s * k + c) * subDimension) * Float.BYTES;
+                float sum = 0f;
+                for (int i = 0; i < subDimension; i++) {
+                    sum += data.getFloat(centroid + i * Float.BYTES) * unitQuery[queryOffset + i];
+                }
+                table[s * k + c] = sum;
+            }
+        }
+
+        for (int r = 0, offset = codesOffset; r < rows; r++, offset += m) {
+            float sum = 0f;
+            for (int s = 0, t = 0; s < m; s++, t += k) {
+                sum += table[t + (data.get(offset + s) & 0xff)];
+            }
+            collector.offer(idBase + r, sum);
+        }
+    }
+
+    @Override
+    public ByteBuffer buffer() {
+        return buffer.asReadOnlyBuffer().position(0);
+    }
+
+    private static int subspaces(int dimension, int requested) {
+        int m = Math.max(1, Math.min(requested, dimension));
+        while (dimension % m != 0) {
+            m--;
+        }
+        return m;
+    }
+
+    // Lloyd's k-means on one subspace; writes each row's nearest centroid into assignment
+    private static float[] kMeans(float[] vectors, int rows, int dimension, int start, int width,
+                                  int k, Random random, int[] assignment) {
+        float[] centroids = new float[k * width];
+        int[] seeds = random.ints(0, rows).distinct().limit(k).toArray();
+        for (int c = 0; c < k; c++) {
+            System.arraycopy(vectors, seeds[c] * dimension + start, centroids, c * width, width);
+        }
+
+        int step = (rows + MAX_TRAINING_ROWS - 1) / MAX_TRAINING_ROWS;
+        float[] sums = new float[k * width];
+        int[] counts = new int[k];
+        for (int iteration = 0; iteration < TRAINING_ITERATIONS; iteration++) {
+            Arrays.fill(sums, 0f);
+            Arrays.fill(counts, 0);
+            for (int r = 0; r < rows; r += step) {
+                int nearest = nearest(vectors, r * dimension + start, centroids, k, width);
+                counts[nearest]++;
+                for (int i = 0; i < width; i++) {
+                    sums[nearest * width + i] += vectors[r * dimension + start + i];
+                }
+            }
+            for (int c = 0; c < k; c++) {
+                if (counts[c] == 0) {
+                    // Re-seed empty clusters so every code stays useful
+                    int seed = random.nextInt(rows);
+                    System.arraycopy(vectors, seed * dimension + start, centroids, c * width, width);
+                    continue;
+                }
+                for (int i = 0; i < width; i++) {
+                    centroids[c * width + i] = sums[c * width + i] / counts[c];
+                }
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            assignment[r] = nearest(vectors, r * dimension + start, centroids, k, width);
+        }
+        return centroids;
+    }
+
+    private static int nearest(float[] vectors, int offset, float[] centroids, int k, int width) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < k; c++) {
+            float distance = 0f;
+            for (int i = 0; i < width; i++) {
+                float d = vectors[offset + i] - centroids[c * width + i];
+                distance += d * d;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,20 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.util.Locale;
+
+/**
+ * How a vector store keeps the codes it scans. Full-precision vectors are
+ * always retained for re-ranking the shortlist.
+ */
+public enum QuantizationMode {
+    NONE,
+    INT8,
+    PQ;
+
+    public static QuantizationMode parse(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,47 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compressed copy of a segment's vectors. Codes live in a single buffer,
+ * either on the heap or memory-mapped next to the segment files.
+ */
+interface QuantizedCodes {
+
+    QuantizationMode mode();
+
+    /**
+     * Approximate scores for every row, reported as {@code idBase + row}.
+     */
+    void scan(float[] unitQuery, TopKCollector collector, int idBase);
+
+    /**
+     * Serialized form; a read-only view positioned at zero.
+     */
+    ByteBuffer buffer();
+
+    /**
+     * Codes for a sealed segment. In {@code PQ} mode a segment whose codes,
+     * codebook included, would not be at most half the size of int8 codes
+     * gets int8 codes instead: a typical per-document segment of a few
+     * hundred rows is mostly codebook, and k-means on it buys nothing.
+     */
+    static QuantizedCodes encode(QuantizationMode mode, VectorSlab slab, int pqSubspaces) {
+        return switch (mode) {
+            case INT8 -> Int8Codes.encode(slab);
+            case PQ -> 2 * ProductQuantizedCodes.bytes(slab.size(), slab.dimension(), pqSubspaces)
+                    <= Int8Codes.bytes(slab.size(), slab.dimension())
+                    ? ProductQuantizedCodes.train(slab, pqSubspaces)
+                    : Int8Codes.encode(slab);
+            case NONE -> null;
+        };
+    }
+
+    static QuantizedCodes open(QuantizationMode mode, ByteBuffer buffer, int rows, int dimension) {
+        return switch (mode) {
+            case INT8 -> new Int8Codes(buffer, rows, dimension);
+            case PQ -> new ProductQuantizedCodes(buffer, rows);
+            case NONE -> null;
+        };
+    }
+}
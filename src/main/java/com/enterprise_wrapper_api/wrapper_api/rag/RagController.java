@@ -1,25 +1,105 @@
 package com.enterprise_wrapper_api.wrapper_api.rag;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/rag")
 public class RagController {
 
+    // Hint for clients rejected by a full ingestion queue
+    private static final String RETRY_AFTER_SECONDS = "5";
+
     private final RagService ragService;
+    private final IngestionJobService ingestionJobs;
 
-    public RagController(RagService ragService) {
+    public RagController(RagService ragService, IngestionJobService ingestionJobs) {
         this.ragService = ragService;
+        this.ingestionJobs = ingestionJobs;
     }
 
     @PostMapping("/upload")
-    public ResponseEntity<String> uploadPdf(@RequestParam("file") MultipartFile file) {
-        ragService.processPdf(file);
-        return ResponseEntity.ok("PDF processed successfully");
+    public Mono<ResponseEntity<String>> uploadPdf(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "namespace", defaultValue = VectorStoreService.DEFAULT_NAMESPACE) String namespace,
+            @RequestParam(value = "documentId", required = false) String documentId) {
+
+        String id = documentId != null ? documentId : file.getOriginalFilename();
+
+        // PDFBox parsing blocks, so it runs on the bounded elastic scheduler
+        return blocking(() -> ragService.processPdf(file, namespace, id))
+                .map(chunks -> ResponseEntity.ok(
+                        "PDF processed successfully (" + chunks + " chunks in " + namespace + "/" + id + ")"));
+    }
+
+    /**
+     * Spools the PDF and queues it for background ingestion. Answers
+     * {@code 202} with the job status, or {@code 429} when the queue is full.
+     */
+    @PostMapping("/upload/async")
+    public Mono<ResponseEntity<IngestionJobStatus>> uploadPdfAsync(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "namespace", defaultValue = VectorStoreService.DEFAULT_NAMESPACE) String namespace,
+            @RequestParam(value = "documentId", required = false) String documentId) {
+
+        String id = documentId != null ? documentId : file.getOriginalFilename();
+
+        // Spooling copies the upload to disk, so it is offloaded too
+        return blocking(() -> ingestionJobs.submit(file, namespace, id))
+                .map(status -> ResponseEntity.accepted()
+                        .location(URI.create("/rag/jobs/" + status.jobId()))
+                        .body(status))
+                .onErrorResume(RejectedExecutionException.class, e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                                .<IngestionJobStatus>build()));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public Mono<ResponseEntity<IngestionJobStatus>> jobStatus(@PathVariable String jobId) {
+        return Mono.justOrEmpty(ingestionJobs.status(jobId))
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/documents/{documentId}")
+    public Mono<ResponseEntity<Void>> deleteDocument(
+            @PathVariable String documentId,
+            @RequestParam(value = "namespace", defaultValue = VectorStoreService.DEFAULT_NAMESPACE) String namespace) {
+
+        return blocking(() -> ragService.deleteDocument(namespace, documentId))
+                .map(RagController::deleted);
+    }
+
+    @DeleteMapping("/namespaces/{namespace}")
+    public Mono<ResponseEntity<Void>> deleteNamespace(@PathVariable String namespace) {
+        return blocking(() -> ragService.deleteNamespace(namespace))
+                .map(RagController::deleted);
+    }
+
+    // Segment files and the manifest are touched on delete, so deletes are offloaded too
+    private static <T> Mono<T> blocking(Callable<T> task) {
+        return Mono.fromCallable(task).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static ResponseEntity<Void> deleted(boolean found) {
+        return found
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 }
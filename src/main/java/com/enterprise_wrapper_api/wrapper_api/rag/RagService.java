@@ -1,9 +1,21 @@
 package com.enterprise_wrapper_api.wrapper_api.rag;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class RagService {
@@ -11,29 +23,136 @@ public class RagService {
     private final PdfService pdfService;
     private final EmbeddingService embeddingService;
     private final VectorStoreService vectorStoreService;
+    private final HnswIndexRegistry hnswIndexes;
+    private final boolean hnswEnabled;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final ExecutorService embeddingExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Timer embedTimer;
+    private final Timer storeTimer;
+    private final Timer commitTimer;
+    private final Counter chunksIngested;
 
     public RagService(PdfService pdfService,
                       EmbeddingService embeddingService,
-                      VectorStoreService vectorStoreService) {
+                      VectorStoreService vectorStoreService,
+                      HnswIndexRegistry hnswIndexes,
+                      @Value("${rag.hnsw.enabled:false}") boolean hnswEnabled,
+                      @Value("${rag.ingest.batch-size:32}") int batchSize,
+                      @Value("${rag.ingest.threads:0}") int threads,
+                      MeterRegistry meterRegistry) {
         this.pdfService = pdfService;
         this.embeddingService = embeddingService;
         this.vectorStoreService = vectorStoreService;
+        this.hnswIndexes = hnswIndexes;
+        this.hnswEnabled = hnswEnabled;
+        this.batchSize = batchSize;
+
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.maxInFlight = 2 * workers;
+        this.embeddingExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("rag-embed-"));
+
+        this.meterRegistry = meterRegistry;
+        this.embedTimer = stageTimer(meterRegistry, "embed");
+        this.storeTimer = stageTimer(meterRegistry, "store");
+        this.commitTimer = stageTimer(meterRegistry, "commit");
+        this.chunksIngested = Counter.builder("rag.ingest.chunks")
+                .description("Chunks embedded and stored")
+                .register(meterRegistry);
     }
-    public void processPdf(MultipartFile file) {
-        vectorStoreService.clear(); // reset before loading new PDF
-        String text = pdfService.extractText(file);
-        List<String> chunks = pdfService.chunkText(text);
 
-        for (String chunk : chunks) {
+    /**
+     * Indexes a PDF as {@code documentId} inside {@code namespace}. Chunks
+     * stream out of the PDF into batches that are embedded in parallel and
+     * bulk-inserted. A previous upload with the same id is replaced once the
+     * new one is fully stored; other documents are untouched. With HNSW
+     * enabled, the graph picks the document up from the store only after
+     * that commit, so a failed upload leaves both on the previous version.
+     *
+     * The whole upload is timed as {@code rag.ingest}; each stage's share is
+     * recorded under {@code rag.ingest.stage}.
+     */
+    public int processPdf(MultipartFile file, String namespace, String documentId) {
+        return processPdf(file, namespace, documentId, IngestProgress.NONE);
+    }
 
-            List<Double> embeddingArray = embeddingService.generateEmbedding(chunk);
+    public int processPdf(InputStreamSource file, String namespace, String documentId, IngestProgress progress) {
+        long start = System.nanoTime();
+        LongAdder storeNanos = new LongAdder();
+        VectorStoreService.DocumentWriter writer = vectorStoreService.openDocument(namespace, documentId);
 
-            List<Double> embedding = new java.util.ArrayList<>();
-            for (Double value : embeddingArray) {
-                embedding.add((double) value);
-            }
+        EmbeddingPipeline pipeline = new EmbeddingPipeline(embeddingService, embeddingExecutor,
+                (firstChunk, chunks, pages, embeddings) -> {
+                    long store = System.nanoTime();
+                    writer.appendAll(chunks, pages, embeddings);
+                    storeNanos.add(System.nanoTime() - store);
+                    progress.chunksStored(chunks.size());
+                },
+                batchSize, maxInFlight);
 
-            vectorStoreService.store(chunk, embedding);
+        String outcome = "failure";
+        try {
+            pdfService.streamChunks(file, pipeline, progress);
+            int chunks = pipeline.finish();
+            commitTimer.record(writer::commit);
+            if (hnswEnabled) {
+                // Only a committed version reaches the graph, replacing the old one in one step
+                long index = System.nanoTime();
+                hnswIndexes.indexDocument(namespace, documentId);
+                storeNanos.add(System.nanoTime() - index);
+            }
+            chunksIngested.increment(chunks);
+            outcome = "success";
+            return chunks;
+        } catch (RuntimeException e) {
+            pipeline.cancel();
+            writer.abort();
+            throw e;
+        } finally {
+            embedTimer.record(pipeline.embedNanos(), TimeUnit.NANOSECONDS);
+            storeTimer.record(storeNanos.sum(), TimeUnit.NANOSECONDS);
+            Timer.builder("rag.ingest")
+                    .description("Indexing one uploaded PDF end to end")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
+
+    // The store goes first, so a graph never holds what the store no longer has
+    public boolean deleteDocument(String namespace, String documentId) {
+        boolean deleted = vectorStoreService.deleteDocument(namespace, documentId);
+        hnswIndexes.deleteDocument(namespace, documentId);
+        return deleted;
+    }
+
+    public boolean deleteNamespace(String namespace) {
+        boolean deleted = vectorStoreService.deleteNamespace(namespace);
+        hnswIndexes.deleteNamespace(namespace);
+        return deleted;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        embeddingExecutor.shutdownNow();
+    }
+
+    // Per-upload time spent in one ingestion stage: extract, chunk, embed, store or commit
+    static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("rag.ingest.stage")
+                .description("Time one upload spent in an ingestion stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 }
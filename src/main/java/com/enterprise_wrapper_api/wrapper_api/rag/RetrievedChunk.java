@@ -0,0 +1,7 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+/**
+ * One retrieved chunk and the document it belongs to.
+ */
+public record RetrievedChunk(String documentId, String text) {
+}
@@ -1,7 +1,11 @@
 package com.enterprise_wrapper_api.wrapper_api.rag;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -9,19 +13,87 @@ public class RetrieverService {
 
     private final EmbeddingService embeddingService;
     private final VectorStoreService vectorStoreService;
+    private final HnswIndexRegistry hnswIndexes;
+    private final boolean hnswEnabled;
+    private final boolean hybrid;
+    private final Timer embedTimer;
+    private final Timer searchTimer;
 
     public RetrieverService(EmbeddingService embeddingService,
-                            VectorStoreService vectorStoreService) {
+                            VectorStoreService vectorStoreService,
+                            HnswIndexRegistry hnswIndexes,
+                            @Value("${rag.hnsw.enabled:false}") boolean hnswEnabled,
+                            @Value("${rag.retrieval.mode:vector}") String mode,
+                            MeterRegistry meterRegistry) {
         this.embeddingService = embeddingService;
         this.vectorStoreService = vectorStoreService;
+        this.hnswIndexes = hnswIndexes;
+        this.hnswEnabled = hnswEnabled;
+        this.hybrid = switch (mode.trim().toLowerCase()) {
+            case "vector" -> false;
+            case "hybrid" -> true;
+            default -> throw new IllegalArgumentException("Unknown retrieval mode: " + mode);
+        };
+
+        String searchMode = hybrid ? "hybrid" : hnswEnabled ? "hnsw" : "vector";
+        this.embedTimer = stageTimer(meterRegistry, "embed", searchMode);
+        this.searchTimer = stageTimer(meterRegistry, "search", searchMode);
     }
 
     public List<String> retrieveRelevantDocs(String query, int topK) {
+        return retrieveRelevantDocs(VectorStoreService.DEFAULT_NAMESPACE, query, topK);
+    }
+
+    public List<String> retrieveRelevantDocs(String namespace, String query, int topK) {
+        return retrieveRelevantDocs(namespace, query, topK, MetadataFilter.NONE);
+    }
+
+    // Only chunks matching the filter are considered; the filter is applied before the similarity scan
+    public List<String> retrieveRelevantDocs(String namespace, String query, int topK, MetadataFilter filter) {
+        List<RetrievedChunk> chunks = retrieveChunks(namespace, query, topK, filter);
+        List<String> docs = new ArrayList<>(chunks.size());
+        for (RetrievedChunk chunk : chunks) {
+            docs.add(chunk.text());
+        }
+        return docs;
+    }
+
+    // Best-first chunks together with the document each one came from
+    public List<RetrievedChunk> retrieveChunks(String namespace, String query, int topK) {
+        return retrieveChunks(namespace, query, topK, MetadataFilter.NONE);
+    }
+
+    public List<RetrievedChunk> retrieveChunks(String namespace, String query, int topK, MetadataFilter filter) {
 
         // Generate embedding for query
-        List<Double> queryEmbedding = embeddingService.generateEmbedding(query);
+        float[] queryEmbedding = embedTimer.record(() ->
+                embeddingService.embedQuery(query, vectorStoreService.dimensionFrequencies(namespace)));
+
+        return searchTimer.record(() -> search(namespace, query, queryEmbedding, topK, filter));
+    }
+
+    private List<RetrievedChunk> search(String namespace, String query, float[] queryEmbedding, int topK,
+                                        MetadataFilter filter) {
+
+        // BM25 candidates fused with vector ranking; already sublinear, so it takes precedence over HNSW
+        if (hybrid) {
+            return vectorStoreService.searchHybridChunks(namespace, query, queryEmbedding, topK, filter);
+        }
+
+        // Approximate search when the HNSW index is enabled; the graph cannot skip rows, so filtered queries scan
+        if (hnswEnabled && filter.matchesEverything()) {
+            return hnswIndexes.searchChunks(namespace, queryEmbedding, topK);
+        }
+
+        // Search in-memory vector store, scoring only the rows the filter selects
+        return vectorStoreService.searchChunks(namespace, queryEmbedding, topK, filter);
+    }
 
-        // Search in-memory vector store
-        return vectorStoreService.search(queryEmbedding, topK);
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage, String mode) {
+        return Timer.builder("rag.retrieve.stage")
+                .description("Time spent in one stage of retrieving context for a query")
+                .tag("stage", stage)
+                .tag("mode", mode)
+                .register(meterRegistry);
     }
 }
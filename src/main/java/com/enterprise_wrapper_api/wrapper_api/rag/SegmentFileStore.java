@@ -0,0 +1,281 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * On-disk home for vector segments.
+ *
+ * Each segment is two files: {@code seg-N.vec} holds its unit vectors as
+ * little-endian float32 rows, and {@code seg-N.txt} holds {@code rows + 1}
+ * int64 offsets followed by the UTF-8 chunk text. Quantized segments add
+ * {@code seg-N.codes} with their int8 or PQ codes, and {@code seg-N.pages}
+ * holds the page of each row as int32. A small JSON manifest lists the live
+ * segments per namespace with their upload time. Opening a segment maps both files, so
+ * startup cost depends on the number of segments, not on their size.
+ *
+ * Disabled when {@code rag.store.data-dir} is empty.
+ */
+@Component
+public class SegmentFileStore {
+
+    private static final int MANIFEST_VERSION = 1;
+    private static final String MANIFEST = "manifest.json";
+
+    record SegmentEntry(long id, String namespace, String documentId, int dimension, int rows,
+                        QuantizationMode quantization, long uploadedAt) {
+    }
+
+    record Manifest(int version, List<SegmentEntry> segments) {
+    }
+
+    record LoadedSegment(String namespace, MappedVectorSegment segment) {
+    }
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong nextSegmentId = new AtomicLong();
+    private final Object manifestLock = new Object();
+
+    public SegmentFileStore(@Value("${rag.store.data-dir:}") String directory, ObjectMapper objectMapper) {
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean enabled() {
+        return directory != null;
+    }
+
+    /**
+     * Maps every segment listed in the manifest and removes files left behind
+     * by writes that never made it into the manifest.
+     */
+    List<LoadedSegment> load() {
+        if (!enabled()) {
+            return List.of();
+        }
+        try {
+            Files.createDirectories(directory);
+            Path manifestFile = directory.resolve(MANIFEST);
+            List<SegmentEntry> entries = Files.exists(manifestFile)
+                    ? objectMapper.readValue(manifestFile.toFile(), Manifest.class).segments()
+                    : List.of();
+
+            List<LoadedSegment> loaded = new ArrayList<>(entries.size());
+            Set<String> live = new HashSet<>();
+            long maxId = -1;
+            for (SegmentEntry entry : entries) {
+                loaded.add(new LoadedSegment(entry.namespace(), open(entry)));
+                live.add(vectorFile(entry.id()).getFileName().toString());
+                live.add(textFile(entry.id()).getFileName().toString());
+                live.add(codesFile(entry.id()).getFileName().toString());
+                live.add(pagesFile(entry.id()).getFileName().toString());
+                maxId = Math.max(maxId, entry.id());
+            }
+            nextSegmentId.set(maxId + 1);
+
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith("seg-") && !live.contains(name)) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+            return loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open vector segments in " + directory, e);
+        }
+    }
+
+    /**
+     * Writes a heap segment to disk and returns the mapped replacement, so the
+     * heap copy can be dropped once it is published.
+     */
+    MappedVectorSegment persist(String namespace, HeapVectorSegment segment) {
+        QuantizedCodes codes = segment.codes();
+        SegmentEntry entry = new SegmentEntry(nextSegmentId.getAndIncrement(), namespace,
+                segment.documentId(), segment.dimension(), segment.size(),
+                codes == null ? QuantizationMode.NONE : codes.mode(), segment.metadata().uploadedAt());
+        try {
+            Files.createDirectories(directory);
+
+            ByteBuffer vectors = ByteBuffer.allocateDirect(entry.rows() * entry.dimension() * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            segment.writeVectors(vectors.asFloatBuffer());
+            write(vectorFile(entry.id()), vectors);
+
+            byte[][] contents = new byte[entry.rows()][];
+            long textBytes = 0;
+            for (int row = 0; row < contents.length; row++) {
+                contents[row] = segment.content(row).getBytes(StandardCharsets.UTF_8);
+                textBytes += contents[row].length;
+            }
+            int header = (entry.rows() + 1) * Long.BYTES;
+            if (header + textBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Segment text exceeds 2GB");
+            }
+            ByteBuffer text = ByteBuffer.allocate(header + (int) textBytes).order(ByteOrder.LITTLE_ENDIAN);
+            long offset = 0;
+            for (byte[] content : contents) {
+                text.putLong(offset);
+                offset += content.length;
+            }
+            text.putLong(offset);
+            for (byte[] content : contents) {
+                text.put(content);
+            }
+            text.flip();
+            write(textFile(entry.id()), text);
+
+            if (codes != null) {
+                write(codesFile(entry.id()), codes.buffer());
+            }
+
+            ByteBuffer pages = ByteBuffer.allocate(entry.rows() * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int row = 0; row < entry.rows(); row++) {
+                pages.putInt(segment.metadata().page(row));
+            }
+            pages.flip();
+            write(pagesFile(entry.id()), pages);
+
+            MappedVectorSegment mapped = open(entry);
+            mapped.adoptLexical(segment.lexical());
+            return mapped;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write vector segment " + entry.id(), e);
+        }
+    }
+
+    /**
+     * Atomically replaces the manifest with the live segments. The snapshot is
+     * taken inside the manifest lock, so the last writer always records every
+     * segment published before it.
+     */
+    void writeManifest(Supplier<Map<String, VectorSegment[]>> liveSegments) {
+        synchronized (manifestLock) {
+            List<SegmentEntry> entries = new ArrayList<>();
+            liveSegments.get().forEach((namespace, segments) -> {
+                for (VectorSegment segment : segments) {
+                    if (segment instanceof MappedVectorSegment mapped) {
+                        QuantizedCodes codes = mapped.codes();
+                        entries.add(new SegmentEntry(mapped.segmentId(), namespace, mapped.documentId(),
+                                mapped.dimension(), mapped.size(),
+                                codes == null ? QuantizationMode.NONE : codes.mode(),
+                                mapped.metadata().uploadedAt()));
+                    }
+                }
+            });
+            try {
+                Path temp = directory.resolve(MANIFEST + ".tmp");
+                Files.write(temp, objectMapper.writeValueAsBytes(new Manifest(MANIFEST_VERSION, entries)));
+                Files.move(temp, directory.resolve(MANIFEST),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write vector manifest", e);
+            }
+        }
+    }
+
+    // Existing mappings stay valid after the files are unlinked
+    void delete(VectorSegment segment) {
+        if (!(segment instanceof MappedVectorSegment mapped)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(vectorFile(mapped.segmentId()));
+            Files.deleteIfExists(textFile(mapped.segmentId()));
+            Files.deleteIfExists(codesFile(mapped.segmentId()));
+            Files.deleteIfExists(pagesFile(mapped.segmentId()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete vector segment " + mapped.segmentId(), e);
+        }
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private MappedVectorSegment open(SegmentEntry entry) throws IOException {
+        MappedByteBuffer vectors = map(vectorFile(entry.id()));
+        MappedByteBuffer text = map(textFile(entry.id()));
+        int header = (entry.rows() + 1) * Long.BYTES;
+        QuantizationMode quantization = entry.quantization() == null ? QuantizationMode.NONE : entry.quantization();
+        QuantizedCodes codes = quantization == QuantizationMode.NONE ? null
+                : QuantizedCodes.open(quantization, map(codesFile(entry.id())), entry.rows(), entry.dimension());
+
+        return new MappedVectorSegment(
+                entry.id(),
+                entry.documentId(),
+                entry.dimension(),
+                entry.rows(),
+                vectors.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer(),
+                text.slice(0, header).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer(),
+                text.slice(header, text.capacity() - header),
+                new ChunkMetadata(entry.uploadedAt(), readPages(entry)),
+                codes);
+    }
+
+    // Segments written before pages were recorded have every row on an unknown page
+    private int[] readPages(SegmentEntry entry) throws IOException {
+        int[] pages = new int[entry.rows()];
+        Path file = pagesFile(entry.id());
+        if (Files.exists(file)) {
+            ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(pages);
+        }
+        return pages;
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void write(Path file, ByteBuffer content) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(false);
+        }
+    }
+
+    private Path vectorFile(long id) {
+        return directory.resolve("seg-" + id + ".vec");
+    }
+
+    private Path textFile(long id) {
+        return directory.resolve("seg-" + id + ".txt");
+    }
+
+    private Path codesFile(long id) {
+        return directory.resolve("seg-" + id + ".codes");
+    }
+
+    private Path pagesFile(long id) {
+        return directory.resolve("seg-" + id + ".pages");
+    }
+}
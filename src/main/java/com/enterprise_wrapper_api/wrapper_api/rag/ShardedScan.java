@@ -0,0 +1,190 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scatter-gather brute-force scan on a dedicated ForkJoin pool.
+ *
+ * A namespace's segments are cut into up to {@code shards} contiguous runs
+ * of similar row count. Each shard is scanned into its own top-K, and the
+ * per-shard lists, already best-first, are combined with a k-way heap merge.
+ *
+ * One query occupies at most {@code maxParallelism} threads: the calling
+ * thread plus helpers submitted to the pool, all taking shards from a
+ * shared counter. A query never waits for a helper that has not started,
+ * so a busy pool slows large scans down instead of stalling them, and
+ * concurrent queries share the cores rather than queueing behind one scan.
+ */
+final class ShardedScan implements AutoCloseable {
+
+    // Fewer rows than this per shard and forking costs more than the scan it saves
+    static final int MIN_SHARD_ROWS = 4096;
+
+    /**
+     * Scans one segment into the collector.
+     */
+    @FunctionalInterface
+    interface SegmentScan {
+        void scan(int segment, TopKCollector collector);
+    }
+
+    private final int shards;
+    private final int maxParallelism;
+    private final ForkJoinPool pool;
+
+    ShardedScan(int shards, int maxParallelism) {
+        this.shards = Math.max(1, shards);
+        this.maxParallelism = maxParallelism <= 0 ? this.shards : Math.min(this.shards, maxParallelism);
+        this.pool = this.shards == 1 ? null : new ForkJoinPool(this.shards, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("rag-search-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    int shards() {
+        return shards;
+    }
+
+    /**
+     * Top {@code k} ids over all segments, best first. {@code rows[i]} is
+     * the number of rows segment {@code i} will offer, used to balance the
+     * shards.
+     */
+    int[] scan(int[] rows, int k, SegmentScan scan) {
+        int[] bounds = plan(rows);
+        int shardCount = bounds.length - 1;
+        if (shardCount == 1) {
+            TopKCollector collector = new TopKCollector(k);
+            for (int i = 0; i < rows.length; i++) {
+                scan.scan(i, collector);
+            }
+            return collector.drainDescending();
+        }
+
+        int[][] ids = new int[shardCount][];
+        float[][] scores = new float[shardCount][];
+        AtomicInteger nextShard = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(shardCount);
+        Runnable worker = () -> {
+            for (int s; (s = nextShard.getAndIncrement()) < shardCount; ) {
+                try {
+                    TopKCollector collector = new TopKCollector(k);
+                    for (int i = bounds[s]; i < bounds[s + 1]; i++) {
+                        scan.scan(i, collector);
+                    }
+                    scores[s] = new float[collector.size()];
+                    ids[s] = collector.drainDescending(scores[s]);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+
+        for (int helper = 1; helper < Math.min(maxParallelism, shardCount); helper++) {
+            pool.execute(worker);
+        }
+        worker.run();
+        awaitUninterruptibly(done);
+
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (e != null) {
+            throw new IllegalStateException("Sharded scan failed", e);
+        }
+        return merge(ids, scores, k);
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * K-way merge of best-first lists: a max-heap holds the head of every
+     * list, so taking the next best costs {@code O(log shards)}.
+     */
+    static int[] merge(int[][] ids, float[][] scores, int k) {
+        int available = 0;
+        for (int[] list : ids) {
+            available += list.length;
+        }
+        int[] heads = new int[ids.length];
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, ids.length),
+                (a, b) -> Float.compare(scores[b][heads[b]], scores[a][heads[a]]));
+        for (int s = 0; s < ids.length; s++) {
+            if (ids[s].length > 0) {
+                heap.add(s);
+            }
+        }
+
+        int[] merged = new int[Math.min(k, available)];
+        for (int i = 0; i < merged.length; i++) {
+            int s = heap.poll();
+            merged[i] = ids[s][heads[s]++];
+            if (heads[s] < ids[s].length) {
+                heap.add(s);
+            }
+        }
+        return merged;
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    /**
+     * Segment boundaries of each shard: shard {@code s} covers segments
+     * {@code [bounds[s], bounds[s + 1])}. Cuts fall where the running row
+     * count crosses the next equal share.
+     */
+    private int[] plan(int[] rows) {
+        long total = 0;
+        for (int r : rows) {
+            total += r;
+        }
+        int count = (int) Math.max(1, Math.min(Math.min(shards, rows.length), total / MIN_SHARD_ROWS));
+
+        int[] bounds = new int[count + 1];
+        int shard = 1;
+        long seen = 0;
+        for (int i = 0; i < rows.length - 1 && shard < count; i++) {
+            seen += rows[i];
+            if (seen * count >= total * shard) {
+                bounds[shard++] = i + 1;
+            }
+        }
+        // Fewer cuts than planned when a few segments hold most rows
+        bounds[shard] = rows.length;
+        return Arrays.copyOf(bounds, shard + 1);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
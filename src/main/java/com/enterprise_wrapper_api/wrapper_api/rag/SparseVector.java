@@ -0,0 +1,42 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+/**
+ * Non-zero entries of a vector as parallel primitive arrays, indices
+ * ascending. Scoring a row against it touches only those entries.
+ */
+record SparseVector(int dimension, int[] indices, float[] values) {
+
+    /**
+     * Sparse view of {@code dense}, or {@code null} when more than
+     * {@code maxFill} of its entries are non-zero and a plain dense dot
+     * product is cheaper.
+     */
+    static SparseVector of(float[] dense, float maxFill) {
+        int nonZeros = 0;
+        for (float v : dense) {
+            if (v != 0f) {
+                nonZeros++;
+            }
+        }
+        if (nonZeros > dense.length * maxFill) {
+            return null;
+        }
+        int[] indices = new int[nonZeros];
+        float[] values = new float[nonZeros];
+        for (int i = 0, j = 0; i < dense.length; i++) {
+            if (dense[i] != 0f) {
+                indices[j] = i;
+                values[j++] = dense[i];
+            }
+        }
+        return new SparseVector(dense.length, indices, values);
+    }
+
+    float[] toDense() {
+        float[] dense = new float[dimension];
+        for (int i = 0; i < indices.length; i++) {
+            dense[indices[i]] = values[i];
+        }
+        return dense;
+    }
+}
@@ -1,28 +1,88 @@
 package com.enterprise_wrapper_api.wrapper_api.rag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Holds the configured {@link TextChunker}: {@code rag.chunk.size} and
+ * {@code rag.chunk.overlap}, measured in {@code rag.chunk.unit} (chars or
+ * estimated tokens).
+ */
 @Service
 public class TextChunkService {
 
+    private final TextChunker chunker;
+
+    public TextChunkService() {
+        this(800, 100, "chars");
+    }
+
+    @Autowired
+    public TextChunkService(@Value("${rag.chunk.size:800}") int size,
+                            @Value("${rag.chunk.overlap:100}") int overlap,
+                            @Value("${rag.chunk.unit:chars}") String unit) {
+        this.chunker = switch (unit.trim().toLowerCase()) {
+            case "chars" -> new TextChunker(size, overlap);
+            case "tokens" -> TextChunker.ofTokens(size, overlap);
+            default -> throw new IllegalArgumentException("Unknown chunk unit: " + unit);
+        };
+    }
+
+    TextChunker chunker() {
+        return chunker;
+    }
+
+    /**
+     * Chunks a complete text, materializing each chunk as a string.
+     */
+    public List<String> chunkText(CharSequence text) {
+        List<String> chunks = new ArrayList<>();
+        chunker.chunk(text, (source, start, end, offset) -> chunks.add(source.subSequence(start, end).toString()));
+        return chunks;
+    }
+
     /**
      * Splits text into chunks of a fixed number of words.
      *
      * @param text the full text
      * @param chunkSize number of words per chunk
      * @return list of text chunks
+     * @deprecated word-count chunks ignore sentence boundaries; use
+     * {@link #chunkText(CharSequence)}
      */
+    @Deprecated
     public List<String> splitText(String text, int chunkSize) {
         List<String> chunks = new ArrayList<>();
-        String[] words = text.split("\\s+"); // split by spaces
+        StringBuilder chunk = new StringBuilder();
+        int words = 0;
 
-        for (int i = 0; i < words.length; i += chunkSize) {
-            int end = Math.min(i + chunkSize, words.length);
-            String chunk = String.join(" ", Arrays.copyOfRange(words, i, end));
-            chunks.add(chunk);
+        // One scan over word spans instead of a regex split and join
+        for (int i = 0, n = text.length(); i < n; ) {
+            while (i < n && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < n && !Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (start == i) {
+                break;
+            }
+            if (words > 0) {
+                chunk.append(' ');
+            }
+            chunk.append(text, start, i);
+            if (++words == chunkSize) {
+                chunks.add(chunk.toString());
+                chunk.setLength(0);
+                words = 0;
+            }
+        }
+        if (words > 0) {
+            chunks.add(chunk.toString());
         }
 
         return chunks;
@@ -0,0 +1,197 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+/**
+ * Single-pass chunking engine that works on offsets.
+ *
+ * A chunk is at most {@code size} characters. It ends at the last sentence
+ * boundary in the second half of its window, else at the last whitespace,
+ * else it is cut hard at {@code size}. The next chunk starts up to
+ * {@code overlap} characters earlier, at a word boundary. Chunks are reported
+ * as (start, end) spans, so nothing is copied unless the consumer keeps the
+ * chunk.
+ *
+ * Each character is visited a bounded number of times, so chunking is
+ * linear in the text length. {@link Feed} applies the same rules to text
+ * that arrives in pieces and produces exactly the same chunks.
+ */
+final class TextChunker {
+
+    // Rough English average, used when sizes are configured in tokens
+    static final int CHARS_PER_TOKEN = 4;
+
+    /**
+     * Receives one chunk: {@code text[start, end)}. The text is only valid
+     * during the call. {@code offset} is the chunk's position in the whole
+     * document.
+     */
+    @FunctionalInterface
+    interface SpanConsumer {
+        void accept(CharSequence text, int start, int end, long offset);
+    }
+
+    private final int size;
+    private final int overlap;
+
+    TextChunker(int size, int overlap) {
+        // A chunk ends no earlier than half its window, so an overlap below half keeps every step forward
+        if (size <= 1 || overlap < 0 || overlap >= size / 2) {
+            throw new IllegalArgumentException("Chunk overlap must be less than half the chunk size");
+        }
+        this.size = size;
+        this.overlap = overlap;
+    }
+
+    static TextChunker ofTokens(int sizeTokens, int overlapTokens) {
+        return new TextChunker(sizeTokens * CHARS_PER_TOKEN, overlapTokens * CHARS_PER_TOKEN);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int overlap() {
+        return overlap;
+    }
+
+    /**
+     * Chunks a complete text.
+     *
+     * @return number of chunks emitted
+     */
+    int chunk(CharSequence text, SpanConsumer consumer) {
+        int[] count = new int[1];
+        run(text, 0, text.length(), true, 0, (t, start, end, offset) -> {
+            count[0]++;
+            consumer.accept(t, start, end, offset);
+        });
+        return count[0];
+    }
+
+    Feed feed(SpanConsumer consumer) {
+        return new Feed(consumer);
+    }
+
+    /**
+     * Chunks text that arrives in pieces. Only the not yet chunked tail is
+     * buffered between pieces.
+     */
+    final class Feed {
+
+        private final SpanConsumer consumer;
+        private final StringBuilder buffer = new StringBuilder();
+        private long base;
+        private int start;
+        private int emitted;
+        private boolean finished;
+
+        private Feed(SpanConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        void append(CharSequence piece) {
+            if (finished) {
+                throw new IllegalStateException("Feed is already finished");
+            }
+            buffer.append(piece);
+            start = run(buffer, start, buffer.length(), false, base, this::emit);
+
+            // Drop the consumed prefix once it dominates the buffer, so copying stays amortized linear
+            if (start > 8192 && start > buffer.length() / 2) {
+                buffer.delete(0, start);
+                base += start;
+                start = 0;
+            }
+        }
+
+        /**
+         * Emits the final chunk(s).
+         *
+         * @return number of chunks emitted over the whole feed
+         */
+        int finish() {
+            if (!finished) {
+                finished = true;
+                run(buffer, start, buffer.length(), true, base, this::emit);
+                buffer.setLength(0);
+            }
+            return emitted;
+        }
+
+        private void emit(CharSequence text, int from, int to, long offset) {
+            emitted++;
+            consumer.accept(text, from, to, offset);
+        }
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    /**
+     * Emits every chunk that can be decided from {@code text[start, length)}
+     * and returns where the next chunk starts. Unless {@code last}, a chunk
+     * is only cut once a full window plus one character of lookahead is
+     * available, which is what makes fed and whole-text chunking agree.
+     */
+    private int run(CharSequence text, int start, int length, boolean last, long base, SpanConsumer consumer) {
+        while (true) {
+            start = skipWhitespace(text, start, length);
+            if (start == length || (!last && length - start <= size)) {
+                return start;
+            }
+            if (length - start <= size) {
+                consumer.accept(text, start, trimEnd(text, start, length), base + start);
+                return length;
+            }
+            int end = breakAt(text, start);
+            consumer.accept(text, start, trimEnd(text, start, end), base + start);
+            start = overlapStart(text, start, end);
+        }
+    }
+
+    // Last sentence end in the back half of the window, else the last whitespace, else a hard cut
+    private int breakAt(CharSequence text, int start) {
+        int limit = start + size;
+        int minEnd = start + size / 2;
+        int whitespace = -1;
+        for (int end = limit; end > minEnd; end--) {
+            char next = text.charAt(end);
+            if (Character.isWhitespace(next)) {
+                char last = text.charAt(end - 1);
+                if (last == '.' || last == '!' || last == '?' || (next == '\n' && last == '\n')) {
+                    return end;
+                }
+                if (whitespace < 0) {
+                    whitespace = end;
+                }
+            }
+        }
+        return whitespace >= 0 ? whitespace : limit;
+    }
+
+    // Back up by the overlap, then forward to the start of the next word
+    private int overlapStart(CharSequence text, int start, int end) {
+        if (overlap == 0) {
+            return end;
+        }
+        int next = Math.max(start + 1, end - overlap);
+        while (next < end && !Character.isWhitespace(text.charAt(next - 1))) {
+            next++;
+        }
+        return next;
+    }
+
+    private static int skipWhitespace(CharSequence text, int from, int length) {
+        while (from < length && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(CharSequence text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
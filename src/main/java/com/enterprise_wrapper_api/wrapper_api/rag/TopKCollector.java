@@ -0,0 +1,102 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+/**
+ * Fixed-size min-heap over (id, score) pairs kept in primitive arrays.
+ * The root is always the weakest of the current top-K, so most offers are
+ * rejected with a single comparison once the heap is full.
+ */
+final class TopKCollector {
+
+    private final int k;
+    private final float[] scores;
+    private final int[] ids;
+    private int size;
+
+    TopKCollector(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("topK must not be negative");
+        }
+        this.k = k;
+        this.scores = new float[k];
+        this.ids = new int[k];
+    }
+
+    void offer(int id, float score) {
+        if (size < k) {
+            scores[size] = score;
+            ids[size] = id;
+            siftUp(size++);
+        } else if (k > 0 && score > scores[0]) {
+            scores[0] = score;
+            ids[0] = id;
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Drains the heap and returns ids ordered by descending score.
+     */
+    int[] drainDescending() {
+        return drainDescending(null);
+    }
+
+    /**
+     * Same, also writing each id's score into {@code scoresOut} at the same
+     * index when it is not {@code null}.
+     */
+    int[] drainDescending(float[] scoresOut) {
+        int[] out = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            out[i] = ids[0];
+            if (scoresOut != null) {
+                scoresOut[i] = scores[0];
+            }
+            size--;
+            scores[0] = scores[size];
+            ids[0] = ids[size];
+            siftDown(0);
+        }
+        return out;
+    }
+
+    private void siftUp(int i) {
+        float score = scores[i];
+        int id = ids[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            scores[i] = scores[parent];
+            ids[i] = ids[parent];
+            i = parent;
+        }
+        scores[i] = score;
+        ids[i] = id;
+    }
+
+    private void siftDown(int i) {
+        float score = scores[i];
+        int id = ids[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && scores[right] < scores[child]) {
+                child = right;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            scores[i] = scores[child];
+            ids[i] = ids[child];
+            i = child;
+        }
+        scores[i] = score;
+        ids[i] = id;
+    }
+}
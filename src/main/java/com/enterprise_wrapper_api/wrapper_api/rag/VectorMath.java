@@ -0,0 +1,46 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+/**
+ * Primitive vector helpers shared by the in-process stores.
+ */
+final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    static float dot(float[] a, int aOffset, float[] b, int dimension) {
+        float sum = 0f;
+        for (int i = 0; i < dimension; i++) {
+            sum += a[aOffset + i] * b[i];
+        }
+        return sum;
+    }
+
+    // Only the query's non-zero entries are read from the row
+    static float dot(float[] a, int aOffset, SparseVector b) {
+        int[] indices = b.indices();
+        float[] values = b.values();
+        float sum = 0f;
+        for (int i = 0; i < indices.length; i++) {
+            sum += a[aOffset + indices[i]] * values[i];
+        }
+        return sum;
+    }
+
+    // L2-normalizes into a fresh array so callers can keep their input
+    static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] out = new float[vector.length];
+        if (norm == 0.0) {
+            return out;
+        }
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            out[i] = vector[i] * inv;
+        }
+        return out;
+    }
+}
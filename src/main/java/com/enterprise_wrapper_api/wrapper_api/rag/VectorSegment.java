@@ -0,0 +1,56 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+/**
+ * Immutable run of chunks belonging to one document. Segments are only ever
+ * published whole, so readers can scan them without synchronization.
+ */
+interface VectorSegment {
+
+    String documentId();
+
+    int dimension();
+
+    int size();
+
+    String content(int row);
+
+    /**
+     * Scores every row against a unit-length query, reporting row {@code r}
+     * to the collector as id {@code idBase + r}.
+     */
+    void scan(float[] unitQuery, TopKCollector collector, int idBase);
+
+    /**
+     * Same as {@link #scan(float[], TopKCollector, int)} for a query with
+     * few non-zero entries; only those entries of each row are read.
+     */
+    void scan(SparseVector unitQuery, TopKCollector collector, int idBase);
+
+    /**
+     * Exact score of one row, used to re-rank a quantized shortlist.
+     */
+    float dot(int row, float[] unitQuery);
+
+    float dot(int row, SparseVector unitQuery);
+
+    /**
+     * Copies row {@code row}'s unit-length vector into {@code target}.
+     */
+    void copyVector(int row, float[] target);
+
+    /**
+     * Compressed codes for approximate scans, or {@code null} when the
+     * segment only has full-precision vectors.
+     */
+    QuantizedCodes codes();
+
+    /**
+     * Inverted index over this segment's contents for BM25 scoring.
+     */
+    LexicalIndex lexical();
+
+    /**
+     * Upload time and per-row page column, for filtered searches.
+     */
+    ChunkMetadata metadata();
+}
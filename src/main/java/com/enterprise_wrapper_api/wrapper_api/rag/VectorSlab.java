@@ -0,0 +1,75 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable row-major slab of unit-length float vectors. Row {@code r}
+ * occupies {@code data[r * dimension .. (r + 1) * dimension)}.
+ */
+final class VectorSlab {
+
+    private static final int INITIAL_ROWS = 64;
+
+    private final int dimension;
+    private float[] data;
+    private int size;
+
+    VectorSlab(int dimension) {
+        this.dimension = dimension;
+        this.data = new float[INITIAL_ROWS * dimension];
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Normalizes once here so every search is a plain dot product
+    int append(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Embedding dimensions do not match");
+        }
+        int needed = (size + 1) * dimension;
+        if (needed > data.length) {
+            data = Arrays.copyOf(data, Math.max(needed, data.length * 2));
+        }
+        System.arraycopy(VectorMath.normalize(vector), 0, data, size * dimension, dimension);
+        return size++;
+    }
+
+    float dot(int row, float[] unitQuery) {
+        return VectorMath.dot(data, row * dimension, unitQuery, dimension);
+    }
+
+    /**
+     * Scores every row against the query and keeps the best into the
+     * collector, reporting row {@code r} as id {@code idBase + r}.
+     */
+    void scan(float[] unitQuery, TopKCollector collector, int idBase) {
+        for (int row = 0, offset = 0; row < size; row++, offset += dimension) {
+            collector.offer(idBase + row, VectorMath.dot(data, offset, unitQuery, dimension));
+        }
+    }
+
+    float dot(int row, SparseVector unitQuery) {
+        return VectorMath.dot(data, row * dimension, unitQuery);
+    }
+
+    void scan(SparseVector unitQuery, TopKCollector collector, int idBase) {
+        for (int row = 0, offset = 0; row < size; row++, offset += dimension) {
+            collector.offer(idBase + row, VectorMath.dot(data, offset, unitQuery));
+        }
+    }
+
+    void copyRow(int row, float[] target) {
+        System.arraycopy(data, row * dimension, target, 0, dimension);
+    }
+
+    void writeTo(FloatBuffer target) {
+        target.put(data, 0, size * dimension);
+    }
+}
@@ -0,0 +1,44 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Vector store size gauges. They are read on scrape, so nothing is counted
+ * on the insert or search path.
+ */
+@Component
+public class VectorStoreMetrics implements MeterBinder {
+
+    private final VectorStoreService vectorStoreService;
+
+    public VectorStoreMetrics(VectorStoreService vectorStoreService) {
+        this.vectorStoreService = vectorStoreService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("rag.store.namespaces", vectorStoreService, store -> store.stats().namespaces())
+                .description("Namespaces holding at least one document")
+                .register(registry);
+        Gauge.builder("rag.store.chunks", vectorStoreService, store -> store.stats().chunks())
+                .description("Chunks across all namespaces")
+                .register(registry);
+        Gauge.builder("rag.store.vector.bytes", vectorStoreService, store -> store.stats().heapVectorBytes())
+                .description("Full-precision vector bytes")
+                .tag("storage", "heap")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("rag.store.vector.bytes", vectorStoreService, store -> store.stats().mappedVectorBytes())
+                .description("Full-precision vector bytes")
+                .tag("storage", "mapped")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("rag.store.code.bytes", vectorStoreService, store -> store.stats().codeBytes())
+                .description("Quantized code bytes, PQ codebooks included")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
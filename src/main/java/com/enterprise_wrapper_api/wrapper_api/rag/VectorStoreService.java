@@ -1,72 +1,829 @@
 package com.enterprise_wrapper_api.wrapper_api.rag;
 
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Multi-tenant in-memory vector store.
+ *
+ * Each namespace (tenant) holds an array of immutable per-document segments.
+ * Readers take the current array with one volatile read and never lock.
+ * Writers build a document's segments privately, then swap in a new array
+ * under a lock striped by namespace, so uploads to different tenants never
+ * contend and re-uploading a document replaces only that document.
+ *
+ * When {@link SegmentFileStore} is enabled every committed segment is written
+ * to disk and served from a memory mapping, and the store reopens from the
+ * manifest on startup without re-reading any vectors.
+ *
+ * With {@code rag.store.quantization} set to {@code int8} or {@code pq}, each
+ * segment also carries compressed codes. Searches scan the codes into a
+ * shortlist of {@code topK * rerank-factor} rows and re-rank that shortlist
+ * against the full-precision vectors.
+ *
+ * Every segment also carries a BM25 inverted index over its chunks.
+ * {@link #searchHybrid} uses the lexical hits as the candidate set, ranks
+ * only those candidates by vector similarity and fuses the two rankings
+ * with reciprocal rank fusion.
+ *
+ * A query vector that is mostly zeros, as hashed-feature query embeddings
+ * are, is scored through a sparse dot product that reads only its non-zero
+ * entries from each row.
+ *
+ * Searches can take a {@link MetadataFilter}. It is evaluated per segment
+ * before any vector is read: segments of other documents or upload times
+ * are skipped outright, and a page range becomes a bitmap of rows from the
+ * segment's page index, so only matching rows are scored.
+ *
+ * Brute-force scans are split across {@code rag.store.shards} threads
+ * (default: one per core). Each query groups its namespace's segments into
+ * shards of similar row count, scans them in parallel into per-shard top-K
+ * lists and merges those; {@code rag.store.shard-parallelism} caps how many
+ * threads a single query may occupy.
+ */
 @Service
 public class VectorStoreService {
 
-    private static class VectorEntry {
-        private final String content;
-        private final List<Double> embedding;
+    public static final String DEFAULT_NAMESPACE = "default";
 
-        public VectorEntry(String content, List<Double> embedding) {
-            this.content = content;
-            this.embedding = embedding;
+    private static final int SEGMENT_ROWS = 4096;
+    private static final int WRITE_STRIPES = 16;
+
+    // BM25 term-frequency saturation and length normalization
+    private static final float BM25_K1 = 1.2f;
+    private static final float BM25_B = 0.75f;
+
+    // Reciprocal rank fusion damping; 60 is the usual choice
+    private static final int RRF_K = 60;
+
+    // Queries with at most this share of non-zero entries are scored through the sparse path
+    private static final float SPARSE_QUERY_MAX_FILL = 0.25f;
+
+    private static final class Namespace {
+        private volatile VectorSegment[] segments = new VectorSegment[0];
+        // Dimension frequencies and the segments they were counted over
+        private volatile CountedFrequencies frequencies;
+    }
+
+    private record CountedFrequencies(VectorSegment[] segments, DimensionFrequencies frequencies) {
+    }
+
+    private final Map<String, Namespace> namespaces = new ConcurrentHashMap<>();
+    private final Object[] writeLocks = new Object[WRITE_STRIPES];
+    private final SegmentFileStore segmentFiles;
+    private final QuantizationMode quantization;
+    private final int rerankFactor;
+    private final int pqSubspaces;
+    private final int hybridCandidates;
+    private final ShardedScan shardedScan;
+
+    public VectorStoreService() {
+        this(new SegmentFileStore(null, null), QuantizationMode.NONE);
+    }
+
+    VectorStoreService(SegmentFileStore segmentFiles, QuantizationMode quantization) {
+        this(segmentFiles, quantization, 1, 1);
+    }
+
+    VectorStoreService(SegmentFileStore segmentFiles, QuantizationMode quantization, int shards, int shardParallelism) {
+        this(segmentFiles, quantization.name(), 4, 0, 100, shards, shardParallelism);
+    }
+
+    @Autowired
+    public VectorStoreService(SegmentFileStore segmentFiles,
+                              @Value("${rag.store.quantization:none}") String quantization,
+                              @Value("${rag.store.rerank-factor:4}") int rerankFactor,
+                              @Value("${rag.store.pq.subspaces:0}") int pqSubspaces,
+                              @Value("${rag.store.hybrid.candidates:100}") int hybridCandidates,
+                              @Value("${rag.store.shards:0}") int shards,
+                              @Value("${rag.store.shard-parallelism:0}") int shardParallelism) {
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
         }
+        this.segmentFiles = segmentFiles;
+        this.quantization = QuantizationMode.parse(quantization);
+        this.rerankFactor = Math.max(1, rerankFactor);
+        this.pqSubspaces = pqSubspaces;
+        this.hybridCandidates = Math.max(1, hybridCandidates);
+        // 0 means one shard per core
+        this.shardedScan = new ShardedScan(shards > 0 ? shards : Runtime.getRuntime().availableProcessors(),
+                shardParallelism);
+
+        for (SegmentFileStore.LoadedSegment loaded : segmentFiles.load()) {
+            Namespace ns = namespaces.computeIfAbsent(loaded.namespace(), key -> new Namespace());
+            VectorSegment[] current = ns.segments;
+            VectorSegment[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = loaded.segment();
+            ns.segments = next;
+        }
+    }
+
+    /**
+     * Starts (re)writing a document. Nothing is visible to searches until
+     * {@link DocumentWriter#commit()}, which atomically replaces any previous
+     * version of the same document.
+     */
+    public DocumentWriter openDocument(String namespace, String documentId) {
+        return new DocumentWriter(namespace, documentId);
+    }
 
-        public String getContent() {
-            return content;
+    public boolean deleteDocument(String namespace, String documentId) {
+        Namespace ns = namespaces.get(namespace);
+        if (ns == null) {
+            return false;
         }
+        VectorSegment[] current;
+        VectorSegment[] kept;
+        synchronized (lockFor(namespace)) {
+            current = ns.segments;
+            kept = withoutDocument(current, documentId);
+            ns.segments = kept;
+        }
+        if (kept.length == current.length) {
+            return false;
+        }
+        afterPublish(removed(current, kept));
+        return true;
+    }
 
-        public List<Double> getEmbedding() {
-            return embedding;
+    public boolean deleteNamespace(String namespace) {
+        Namespace removed;
+        synchronized (lockFor(namespace)) {
+            removed = namespaces.remove(namespace);
         }
+        if (removed == null) {
+            return false;
+        }
+        afterPublish(Arrays.asList(removed.segments));
+        return true;
+    }
+
+    public Set<String> namespaces() {
+        return Set.copyOf(namespaces.keySet());
+    }
+
+    // Search topK similar chunks in the default namespace
+    public List<String> search(float[] queryEmbedding, int topK) {
+        return search(DEFAULT_NAMESPACE, queryEmbedding, topK);
+    }
+
+    // Search topK similar chunks within one namespace
+    public List<String> search(String namespace, float[] queryEmbedding, int topK) {
+        return texts(searchChunks(namespace, queryEmbedding, topK));
     }
 
-    private final List<VectorEntry> store = new ArrayList<>();
-    public void clear() {
-        store.clear();
+    // Same as search, but keeps the document each chunk came from
+    public List<RetrievedChunk> searchChunks(String namespace, float[] queryEmbedding, int topK) {
+        return searchChunks(namespace, queryEmbedding, topK, MetadataFilter.NONE);
     }
-    // Store chunk + embedding
-    public void store(String content, List<Double> embedding) {
-        System.out.println("Storing embedding. Current size before insert: " + store.size());
-        store.add(new VectorEntry(content, embedding));
-        System.out.println("Size after insert: " + store.size());    }
 
-    // Search topK similar chunks
-    public List<String> search(List<Double> queryEmbedding, int topK) {
-        System.out.println("Searching top " + topK + " vectors...");
-        System.out.println("Current vector store size: " + store.size());
+    // Only rows matching the filter are scored
+    public List<RetrievedChunk> searchChunks(String namespace, float[] queryEmbedding, int topK,
+                                             MetadataFilter filter) {
+        Namespace ns = namespaces.get(namespace);
+        VectorSegment[] segments = ns == null ? new VectorSegment[0] : ns.segments;
+        RoaringBitmap[] rows = matchingRows(segments, filter);
 
-        return store.stream()
-                .sorted(Comparator.comparingDouble(entry ->
-                        -cosineSimilarity(queryEmbedding, entry.getEmbedding())))
-                .limit(topK)
-                .map(VectorEntry::getContent)
-                .toList();
+        int total = total(segments, rows);
+        if (total == 0 || topK <= 0) {
+            return List.of();
+        }
+        if (queryEmbedding.length != segments[0].dimension()) {
+            throw new IllegalArgumentException("Embedding dimensions do not match");
+        }
+
+        float[] unitQuery = VectorMath.normalize(queryEmbedding);
+        SparseVector sparseQuery = SparseVector.of(unitQuery, SPARSE_QUERY_MAX_FILL);
+        int[] bases = bases(segments);
+        return contents(segments, bases, vectorScan(segments, bases, rows, unitQuery, sparseQuery, topK, total));
+    }
+
+    /**
+     * Hybrid lexical + vector search within one namespace. The top
+     * {@code rag.store.hybrid.candidates} BM25 hits are ranked by vector
+     * similarity and the two rankings are fused with reciprocal rank fusion,
+     * so only the candidates' vectors are touched. When the query has fewer
+     * lexical hits than {@code topK}, the full vector ranking is fused in
+     * instead.
+     */
+    public List<String> searchHybrid(String namespace, String query, float[] queryEmbedding, int topK) {
+        return texts(searchHybridChunks(namespace, query, queryEmbedding, topK));
+    }
+
+    public List<RetrievedChunk> searchHybridChunks(String namespace, String query, float[] queryEmbedding, int topK) {
+        return searchHybridChunks(namespace, query, queryEmbedding, topK, MetadataFilter.NONE);
     }
 
-    // Cosine Similarity
-    private double cosineSimilarity(List<Double> v1, List<Double> v2) {
+    public List<RetrievedChunk> searchHybridChunks(String namespace, String query, float[] queryEmbedding, int topK,
+                                                   MetadataFilter filter) {
+        Namespace ns = namespaces.get(namespace);
+        VectorSegment[] segments = ns == null ? new VectorSegment[0] : ns.segments;
+        RoaringBitmap[] rows = matchingRows(segments, filter);
 
-        if (v1.size() != v2.size()) {
+        int total = total(segments, rows);
+        if (total == 0 || topK <= 0) {
+            return List.of();
+        }
+        if (queryEmbedding.length != segments[0].dimension()) {
             throw new IllegalArgumentException("Embedding dimensions do not match");
         }
 
-        double dot = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+        float[] unitQuery = VectorMath.normalize(queryEmbedding);
+        SparseVector sparseQuery = SparseVector.of(unitQuery, SPARSE_QUERY_MAX_FILL);
+        int[] bases = bases(segments);
+        int[] lexical = lexicalScan(segments, bases, rows, LexicalIndex.terms(query), Math.max(topK, hybridCandidates));
+
+        int[] vector;
+        if (lexical.length >= topK) {
+            TopKCollector byVector = new TopKCollector(lexical.length);
+            for (int id : lexical) {
+                int segment = segmentOf(bases, id);
+                byVector.offer(id, score(segments[segment], id - bases[segment], unitQuery, sparseQuery));
+            }
+            vector = byVector.drainDescending();
+        } else {
+            // Too few exact-term hits to fill the answer on their own
+            vector = vectorScan(segments, bases, rows, unitQuery, sparseQuery, topK, total);
+        }
+
+        return contents(segments, bases, fuse(lexical, vector, Math.min(topK, total)));
+    }
+
+    // rows is null when every row matches; otherwise rows[i] is null when all of segment i does
+    private int[] vectorScan(VectorSegment[] segments, int[] bases, RoaringBitmap[] rows, float[] unitQuery,
+                             SparseVector sparseQuery, int topK, int total) {
+        return quantization == QuantizationMode.NONE
+                ? exactScan(segments, bases, rows, unitQuery, sparseQuery, Math.min(topK, total))
+                : quantizedScan(segments, bases, rows, unitQuery, sparseQuery, topK, total);
+    }
+
+    private int[] exactScan(VectorSegment[] segments, int[] bases, RoaringBitmap[] rows, float[] unitQuery,
+                            SparseVector sparseQuery, int topK) {
+        return shardedScan.scan(rowCounts(segments, rows), topK, (i, collector) -> {
+            if (rows != null && rows[i] != null) {
+                scanRows(segments[i], rows[i], unitQuery, sparseQuery, collector, bases[i]);
+            } else if (sparseQuery != null) {
+                segments[i].scan(sparseQuery, collector, bases[i]);
+            } else {
+                segments[i].scan(unitQuery, collector, bases[i]);
+            }
+        });
+    }
+
+    // Approximate pass over the codes, then exact re-rank of the shortlist
+    private int[] quantizedScan(VectorSegment[] segments, int[] bases, RoaringBitmap[] rows, float[] unitQuery,
+                                SparseVector sparseQuery, int topK, int total) {
+        int shortlistSize = (int) Math.min(total, (long) topK * rerankFactor);
+        // PQ scores run low next to int8 or exact ones, so PQ-coded segments get their own shortlist
+        int[] shortlist = concat(
+                shortlist(segments, bases, rows, unitQuery, sparseQuery, shortlistSize, true),
+                shortlist(segments, bases, rows, unitQuery, sparseQuery, shortlistSize, false));
+
+        // The shortlists hold at most 2 * topK * rerank-factor rows; re-ranking them is not worth forking
+        TopKCollector collector = new TopKCollector(Math.min(topK, total));
+        for (int id : shortlist) {
+            int segment = segmentOf(bases, id);
+            collector.offer(id, score(segments[segment], id - bases[segment], unitQuery, sparseQuery));
+        }
+        return collector.drainDescending();
+    }
+
+    // Shortlist over either the PQ-coded segments or all the others
+    private int[] shortlist(VectorSegment[] segments, int[] bases, RoaringBitmap[] rows, float[] unitQuery,
+                            SparseVector sparseQuery, int size, boolean productQuantized) {
+        int[] counts = rowCounts(segments, rows);
+        boolean any = false;
+        for (int i = 0; i < segments.length; i++) {
+            if (isProductQuantized(segments[i], rows, i) != productQuantized) {
+                counts[i] = 0;
+            }
+            any |= counts[i] > 0;
+        }
+        if (!any) {
+            return new int[0];
+        }
+        return shardedScan.scan(counts, size, (i, collector) -> {
+            QuantizedCodes codes = segments[i].codes();
+            if (isProductQuantized(segments[i], rows, i) != productQuantized) {
+                return;
+            }
+            if (rows != null && rows[i] != null) {
+                // Codes cover whole segments; filtered rows are few enough to score exactly
+                scanRows(segments[i], rows[i], unitQuery, sparseQuery, collector, bases[i]);
+            } else if (codes != null) {
+                codes.scan(unitQuery, collector, bases[i]);
+            } else if (sparseQuery != null) {
+                segments[i].scan(sparseQuery, collector, bases[i]);
+            } else {
+                segments[i].scan(unitQuery, collector, bases[i]);
+            }
+        });
+    }
+
+    private static boolean isProductQuantized(VectorSegment segment, RoaringBitmap[] rows, int i) {
+        return segment.codes() instanceof ProductQuantizedCodes && (rows == null || rows[i] == null);
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        int[] both = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, both, a.length, b.length);
+        return both;
+    }
+
+    private static float score(VectorSegment segment, int row, float[] unitQuery, SparseVector sparseQuery) {
+        return sparseQuery != null ? segment.dot(row, sparseQuery) : segment.dot(row, unitQuery);
+    }
+
+    private static void scanRows(VectorSegment segment, RoaringBitmap rows, float[] unitQuery,
+                                 SparseVector sparseQuery, TopKCollector collector, int idBase) {
+        PeekableIntIterator it = rows.getIntIterator();
+        while (it.hasNext()) {
+            int row = it.next();
+            collector.offer(idBase + row, score(segment, row, unitQuery, sparseQuery));
+        }
+    }
+
+    // Per-segment matching rows, or null when the filter lets everything through
+    private static RoaringBitmap[] matchingRows(VectorSegment[] segments, MetadataFilter filter) {
+        if (filter.matchesEverything()) {
+            return null;
+        }
+        RoaringBitmap[] rows = new RoaringBitmap[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            rows[i] = filter.rows(segments[i]);
+        }
+        return rows;
+    }
+
+    private static int total(VectorSegment[] segments, RoaringBitmap[] rows) {
+        int total = 0;
+        for (int count : rowCounts(segments, rows)) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Rows each segment offers to a scan
+    private static int[] rowCounts(VectorSegment[] segments, RoaringBitmap[] rows) {
+        int[] counts = new int[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            counts[i] = rows == null || rows[i] == null ? segments[i].size() : rows[i].getCardinality();
+        }
+        return counts;
+    }
 
-        for (int i = 0; i < v1.size(); i++) {
-            dot += v1.get(i) * v2.get(i);
-            norm1 += Math.pow(v1.get(i), 2);
-            norm2 += Math.pow(v2.get(i), 2);
+    /**
+     * BM25 over the whole namespace. Document frequencies and the average
+     * length are summed across segments, then each segment scores only the
+     * rows on the query terms' posting lists. Filtered-out rows still count
+     * towards the statistics but are never offered.
+     */
+    private static int[] lexicalScan(VectorSegment[] segments, int[] bases, RoaringBitmap[] filtered, List<String> terms,
+                                     int limit) {
+        if (terms.isEmpty()) {
+            return new int[0];
+        }
+        LexicalIndex[] indexes = new LexicalIndex[segments.length];
+        long rows = 0;
+        long totalLength = 0;
+        for (int i = 0; i < segments.length; i++) {
+            indexes[i] = segments[i].lexical();
+            rows += indexes[i].rows();
+            totalLength += indexes[i].totalLength();
+        }
+        float averageLength = Math.max(1f, totalLength / (float) rows);
+
+        float[] idf = new float[terms.size()];
+        for (int t = 0; t < idf.length; t++) {
+            long df = 0;
+            for (LexicalIndex index : indexes) {
+                LexicalIndex.Postings postings = index.postings(terms.get(t));
+                df += postings == null ? 0 : postings.rows().length;
+            }
+            idf[t] = (float) Math.log(1 + (rows - df + 0.5) / (df + 0.5));
         }
 
-        return dot / (Math.sqrt(norm1) * Math.sqrt(norm2) + 1e-10);
+        TopKCollector collector = new TopKCollector(limit);
+        for (int i = 0; i < indexes.length; i++) {
+            RoaringBitmap matching = filtered == null ? null : filtered[i];
+            if (matching != null && matching.isEmpty()) {
+                continue;
+            }
+            LexicalIndex index = indexes[i];
+            float[] scores = null;
+            int[] touched = null;
+            int touchedCount = 0;
+            for (int t = 0; t < idf.length; t++) {
+                LexicalIndex.Postings postings = index.postings(terms.get(t));
+                if (postings == null) {
+                    continue;
+                }
+                if (scores == null) {
+                    scores = new float[index.rows()];
+                    touched = new int[index.rows()];
+                }
+                int[] postingRows = postings.rows();
+                int[] freqs = postings.freqs();
+                for (int p = 0; p < postingRows.length; p++) {
+                    int row = postingRows[p];
+                    float norm = BM25_K1 * (1 - BM25_B + BM25_B * index.length(row) / averageLength);
+                    if (scores[row] == 0f) {
+                        touched[touchedCount++] = row;
+                    }
+                    scores[row] += idf[t] * freqs[p] * (BM25_K1 + 1) / (freqs[p] + norm);
+                }
+            }
+            for (int j = 0; j < touchedCount; j++) {
+                if (matching == null || matching.contains(touched[j])) {
+                    collector.offer(bases[i] + touched[j], scores[touched[j]]);
+                }
+            }
+        }
+        return collector.drainDescending();
+    }
+
+    // Reciprocal rank fusion of two best-first id rankings
+    private static int[] fuse(int[] first, int[] second, int topK) {
+        Map<Integer, Float> fused = new HashMap<>((first.length + second.length) * 2);
+        for (int rank = 0; rank < first.length; rank++) {
+            fused.merge(first[rank], 1f / (RRF_K + rank + 1), Float::sum);
+        }
+        for (int rank = 0; rank < second.length; rank++) {
+            fused.merge(second[rank], 1f / (RRF_K + rank + 1), Float::sum);
+        }
+        TopKCollector collector = new TopKCollector(Math.min(topK, fused.size()));
+        fused.forEach(collector::offer);
+        return collector.drainDescending();
+    }
+
+    /**
+     * Receives one stored chunk with a fresh copy of its unit-length vector.
+     */
+    @FunctionalInterface
+    public interface ChunkVisitor {
+        void accept(String documentId, String content, float[] unitVector);
+    }
+
+    /**
+     * Visits every chunk of {@code documentId} in the namespace, or of every
+     * document when it is {@code null}, as committed at the time of the call.
+     * Lets secondary indexes such as the HNSW graphs be built from the store.
+     */
+    public void forEachChunk(String namespace, String documentId, ChunkVisitor visitor) {
+        Namespace ns = namespaces.get(namespace);
+        if (ns == null) {
+            return;
+        }
+        for (VectorSegment segment : ns.segments) {
+            if (documentId != null && !documentId.equals(segment.documentId())) {
+                continue;
+            }
+            for (int row = 0; row < segment.size(); row++) {
+                float[] vector = new float[segment.dimension()];
+                segment.copyVector(row, vector);
+                visitor.accept(segment.documentId(), segment.content(row), vector);
+            }
+        }
+    }
+
+    /**
+     * Per dimension, how many of a namespace's stored rows are non-zero
+     * there. For hashed-feature embeddings that is each bucket's document
+     * frequency, which queries are IDF-weighted by.
+     */
+    public record DimensionFrequencies(long rows, int[] nonZeroRows) {
+        public static final DimensionFrequencies NONE = new DimensionFrequencies(0, new int[0]);
+    }
+
+    /**
+     * Counted from the committed vectors, so replacing or deleting a
+     * document takes its rows back out and a reopened store recounts its
+     * mapped segments on first use. Only segments added or removed since the
+     * previous call are read.
+     */
+    public DimensionFrequencies dimensionFrequencies(String namespace) {
+        Namespace ns = namespaces.get(namespace);
+        if (ns == null) {
+            return DimensionFrequencies.NONE;
+        }
+        VectorSegment[] segments = ns.segments;
+        CountedFrequencies counted = ns.frequencies;
+        if (counted != null && counted.segments() == segments) {
+            return counted.frequencies();
+        }
+        if (counted == null && segments.length == 0) {
+            return DimensionFrequencies.NONE;
+        }
+
+        Set<VectorSegment> previous = counted == null ? Set.of() : Set.of(counted.segments());
+        Set<VectorSegment> current = Set.of(segments);
+        int[] nonZero = counted == null
+                ? new int[segments[0].dimension()]
+                : counted.frequencies().nonZeroRows().clone();
+        long rows = counted == null ? 0 : counted.frequencies().rows();
+        for (VectorSegment segment : previous) {
+            if (!current.contains(segment)) {
+                rows -= countNonZero(segment, nonZero, -1);
+            }
+        }
+        for (VectorSegment segment : segments) {
+            if (!previous.contains(segment)) {
+                rows += countNonZero(segment, nonZero, 1);
+            }
+        }
+        // Concurrent callers may count the same segments; either result is correct for them
+        DimensionFrequencies frequencies = new DimensionFrequencies(rows, nonZero);
+        ns.frequencies = new CountedFrequencies(segments, frequencies);
+        return frequencies;
+    }
+
+    public int size(String namespace) {
+        Namespace ns = namespaces.get(namespace);
+        if (ns == null) {
+            return 0;
+        }
+        int total = 0;
+        for (VectorSegment segment : ns.segments) {
+            total += segment.size();
+        }
+        return total;
+    }
+
+    /**
+     * Chunk count and full-precision vector bytes across all namespaces,
+     * split by whether the vectors live on the heap or in mapped files, plus
+     * the quantized code bytes (PQ codebooks included).
+     */
+    public record Stats(int namespaces, long chunks, long heapVectorBytes, long mappedVectorBytes,
+                        long codeBytes) {
+    }
+
+    public Stats stats() {
+        int count = 0;
+        long chunks = 0;
+        long heapBytes = 0;
+        long mappedBytes = 0;
+        long codeBytes = 0;
+        for (Namespace ns : namespaces.values()) {
+            count++;
+            for (VectorSegment segment : ns.segments) {
+                long bytes = (long) segment.size() * segment.dimension() * Float.BYTES;
+                chunks += segment.size();
+                if (segment instanceof MappedVectorSegment) {
+                    mappedBytes += bytes;
+                } else {
+                    heapBytes += bytes;
+                }
+                if (segment.codes() != null) {
+                    codeBytes += segment.codes().buffer().capacity();
+                }
+            }
+        }
+        return new Stats(count, chunks, heapBytes, mappedBytes, codeBytes);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        shardedScan.close();
+    }
+
+    /**
+     * Buffers one document's chunks into segments off to the side. Appends
+     * are synchronized so parallel embedding stages can share a writer.
+     * With persistence enabled each full segment is written out as soon as it
+     * is sealed, so a large document never holds more than one open segment
+     * on the heap.
+     */
+    public final class DocumentWriter {
+
+        private final String namespace;
+        private final String documentId;
+        private final long uploadedAt = System.currentTimeMillis();
+        private final List<VectorSegment> sealed = new ArrayList<>();
+        private VectorSlab slab;
+        private final List<String> contents = new ArrayList<>();
+        private int[] pages = new int[64];
+        private boolean committed;
+
+        private DocumentWriter(String namespace, String documentId) {
+            this.namespace = namespace;
+            this.documentId = documentId;
+        }
+
+        // Store chunk + embedding
+        public synchronized void append(String content, float[] embedding) {
+            append(content, ChunkMetadata.UNKNOWN_PAGE, embedding);
+        }
+
+        // Same, recording the (1-based) page the chunk starts on
+        public synchronized void append(String content, int page, float[] embedding) {
+            if (committed) {
+                throw new IllegalStateException("Document " + documentId + " is already committed");
+            }
+            if (slab == null) {
+                slab = new VectorSlab(embedding.length);
+            }
+            slab.append(embedding);
+            if (contents.size() == pages.length) {
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            }
+            pages[contents.size()] = page;
+            contents.add(content);
+            if (slab.size() == SEGMENT_ROWS) {
+                seal();
+            }
+        }
+
+        // Bulk insert; row i of embeddings belongs to contents.get(i)
+        public synchronized void appendAll(List<String> contents, float[][] embeddings) {
+            appendAll(contents, null, embeddings);
+        }
+
+        // Same, with pages[i] the page of contents.get(i); null when pages are unknown
+        public synchronized void appendAll(List<String> contents, int[] pages, float[][] embeddings) {
+            if (contents.size() != embeddings.length || (pages != null && pages.length != embeddings.length)) {
+                throw new IllegalArgumentException("Contents and embeddings do not line up");
+            }
+            for (int i = 0; i < embeddings.length; i++) {
+                append(contents.get(i), pages == null ? ChunkMetadata.UNKNOWN_PAGE : pages[i], embeddings[i]);
+            }
+        }
+
+        public synchronized int size() {
+            int rows = contents.size();
+            for (VectorSegment segment : sealed) {
+                rows += segment.size();
+            }
+            return rows;
+        }
+
+        public synchronized void commit() {
+            if (committed) {
+                return;
+            }
+            seal();
+            committed = true;
+
+            VectorSegment[] current;
+            VectorSegment[] kept;
+            synchronized (lockFor(namespace)) {
+                Namespace ns = namespaces.computeIfAbsent(namespace, key -> new Namespace());
+                current = ns.segments;
+                kept = withoutDocument(current, documentId);
+                if (!sealed.isEmpty() && kept.length > 0
+                        && kept[0].dimension() != sealed.get(0).dimension()) {
+                    sealed.forEach(segmentFiles::delete);
+                    throw new IllegalArgumentException("Embedding dimensions do not match");
+                }
+                VectorSegment[] next = Arrays.copyOf(kept, kept.length + sealed.size());
+                for (int i = 0; i < sealed.size(); i++) {
+                    next[kept.length + i] = sealed.get(i);
+                }
+                ns.segments = next;
+            }
+            afterPublish(removed(current, kept));
+        }
+
+        /**
+         * Discards everything appended so far, including segment files that
+         * were already written.
+         */
+        public synchronized void abort() {
+            if (committed) {
+                return;
+            }
+            committed = true;
+            sealed.forEach(segmentFiles::delete);
+            sealed.clear();
+            slab = null;
+            contents.clear();
+        }
+
+        private void seal() {
+            if (slab == null || slab.size() == 0) {
+                return;
+            }
+            if (!sealed.isEmpty() && sealed.get(0).dimension() != slab.dimension()) {
+                throw new IllegalArgumentException("Embedding dimensions do not match");
+            }
+            int subspaces = pqSubspaces > 0 ? pqSubspaces : Math.max(1, slab.dimension() / 8);
+            HeapVectorSegment segment = new HeapVectorSegment(documentId, slab, contents.toArray(new String[0]),
+                    new ChunkMetadata(uploadedAt, Arrays.copyOf(pages, contents.size())),
+                    QuantizedCodes.encode(quantization, slab, subspaces));
+            // The mapped copy replaces the heap one straight away
+            sealed.add(segmentFiles.enabled() ? segmentFiles.persist(namespace, segment) : segment);
+            slab = null;
+            contents.clear();
+        }
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    // Records the new state in the manifest, then drops files nobody references
+    private void afterPublish(List<VectorSegment> removed) {
+        if (!segmentFiles.enabled()) {
+            return;
+        }
+        segmentFiles.writeManifest(() -> {
+            Map<String, VectorSegment[]> snapshot = new HashMap<>();
+            namespaces.forEach((name, ns) -> snapshot.put(name, ns.segments));
+            return snapshot;
+        });
+        removed.forEach(segmentFiles::delete);
+    }
+
+    private static List<VectorSegment> removed(VectorSegment[] before, VectorSegment[] after) {
+        List<VectorSegment> removed = new ArrayList<>();
+        Set<VectorSegment> kept = Set.of(after);
+        for (VectorSegment segment : before) {
+            if (!kept.contains(segment)) {
+                removed.add(segment);
+            }
+        }
+        return removed;
+    }
+
+    // Adds sign to each dimension the segment's rows are non-zero in; returns the rows read
+    private static int countNonZero(VectorSegment segment, int[] nonZero, int sign) {
+        float[] vector = new float[segment.dimension()];
+        for (int row = 0; row < segment.size(); row++) {
+            segment.copyVector(row, vector);
+            for (int d = 0; d < vector.length; d++) {
+                if (vector[d] != 0f) {
+                    nonZero[d] += sign;
+                }
+            }
+        }
+        return segment.size();
+    }
+
+    private Object lockFor(String namespace) {
+        return writeLocks[(namespace.hashCode() & 0x7fffffff) % WRITE_STRIPES];
+    }
+
+    private static int[] bases(VectorSegment[] segments) {
+        int[] bases = new int[segments.length];
+        int base = 0;
+        for (int i = 0; i < segments.length; i++) {
+            bases[i] = base;
+            base += segments[i].size();
+        }
+        return bases;
+    }
+
+    private static List<RetrievedChunk> contents(VectorSegment[] segments, int[] bases, int[] ids) {
+        List<RetrievedChunk> results = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            int segment = segmentOf(bases, id);
+            results.add(new RetrievedChunk(segments[segment].documentId(), segments[segment].content(id - bases[segment])));
+        }
+        return results;
+    }
+
+    private static List<String> texts(List<RetrievedChunk> chunks) {
+        List<String> texts = new ArrayList<>(chunks.size());
+        for (RetrievedChunk chunk : chunks) {
+            texts.add(chunk.text());
+        }
+        return texts;
+    }
+
+    private static VectorSegment[] withoutDocument(VectorSegment[] segments, String documentId) {
+        List<VectorSegment> kept = new ArrayList<>(segments.length);
+        for (VectorSegment segment : segments) {
+            if (!segment.documentId().equals(documentId)) {
+                kept.add(segment);
+            }
+        }
+        return kept.size() == segments.length ? segments : kept.toArray(new VectorSegment[0]);
+    }
+
+    private static int segmentOf(int[] bases, int id) {
+        int index = Arrays.binarySearch(bases, id);
+        if (index >= 0) {
+            // Skip over empty segments that share the same base
+            while (index + 1 < bases.length && bases[index + 1] == id) {
+                index++;
+            }
+            return index;
+        }
+        return -index - 2;
     }
 }
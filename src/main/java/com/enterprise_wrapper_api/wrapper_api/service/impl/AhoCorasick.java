@@ -0,0 +1,226 @@
+package com.enterprise_wrapper_api.wrapper_api.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Multi-pattern matcher: one pass over the text finds every occurrence of
+ * every pattern, whatever the number of patterns.
+ *
+ * Matching is case-insensitive and treats any run of whitespace as one
+ * space. A pattern only matches as a whole word: an alphanumeric first or
+ * last character must not continue into a letter or digit of the text, so
+ * "java" is not found in "javascript" while "c++" and ".net" still are.
+ *
+ * The automaton is compiled into a dense transition table over the
+ * characters the patterns use, with failure links already folded in, so
+ * scanning costs one array lookup per character.
+ *
+ * {@link #scan} reports every occurrence, overlapping ones included;
+ * {@link #scanLongest} keeps only the leftmost-longest of overlapping
+ * matches, so "spring boot" does not also report "spring".
+ */
+final class AhoCorasick {
+
+    private static final int ASCII = 128;
+
+    // Pattern characters mapped to columns 1..n; column 0 is every other character
+    private final int[] asciiColumn = new int[ASCII];
+    private final char[] otherChars;
+    private final int columns;
+
+    private final int[] next;
+    // Pattern ending at each state, or -1
+    private final int[] output;
+    // Nearest state on the failure chain that ends a pattern, or -1
+    private final int[] outputLink;
+    private final int[] lengths;
+    private final boolean[] wordStart;
+    private final boolean[] wordEnd;
+    private final int maxLength;
+
+    AhoCorasick(List<String> patterns) {
+        List<String> normalized = new ArrayList<>(patterns.size());
+        TreeSet<Character> alphabet = new TreeSet<>();
+        for (String pattern : patterns) {
+            String p = normalize(pattern);
+            if (p.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern");
+            }
+            normalized.add(p);
+            for (int i = 0; i < p.length(); i++) {
+                alphabet.add(p.charAt(i));
+            }
+        }
+
+        StringBuilder others = new StringBuilder();
+        int column = 1;
+        for (char c : alphabet) {
+            if (c < ASCII) {
+                asciiColumn[c] = column++;
+            } else {
+                others.append(c);
+            }
+        }
+        this.otherChars = others.toString().toCharArray();
+        int firstOther = column;
+        this.columns = firstOther + otherChars.length;
+
+        // Trie, grown as flat arrays; 0 is the root and means "no edge" during construction
+        int capacity = 1 + normalized.stream().mapToInt(String::length).sum();
+        int[] trie = new int[capacity * columns];
+        int[] out = new int[capacity];
+        Arrays.fill(out, -1);
+        int states = 1;
+        this.lengths = new int[normalized.size()];
+        this.wordStart = new boolean[normalized.size()];
+        this.wordEnd = new boolean[normalized.size()];
+        int longest = 0;
+        for (int id = 0; id < normalized.size(); id++) {
+            String p = normalized.get(id);
+            int state = 0;
+            for (int i = 0; i < p.length(); i++) {
+                int edge = state * columns + column(p.charAt(i));
+                if (trie[edge] == 0) {
+                    trie[edge] = states++;
+                }
+                state = trie[edge];
+            }
+            // Duplicate patterns keep the first id
+            if (out[state] < 0) {
+                out[state] = id;
+            }
+            lengths[id] = p.length();
+            wordStart[id] = Character.isLetterOrDigit(p.charAt(0));
+            wordEnd[id] = Character.isLetterOrDigit(p.charAt(p.length() - 1));
+            longest = Math.max(longest, p.length());
+        }
+        this.maxLength = longest;
+
+        // Breadth-first: a state's failure target is shallower, so its row is already final
+        this.next = Arrays.copyOf(trie, states * columns);
+        this.output = Arrays.copyOf(out, states);
+        this.outputLink = new int[states];
+        int[] failure = new int[states];
+        Arrays.fill(outputLink, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < columns; c++) {
+            if (next[c] != 0) {
+                queue.add(next[c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int fail = failure[state];
+            outputLink[state] = output[fail] >= 0 ? fail : outputLink[fail];
+            for (int c = 0; c < columns; c++) {
+                int child = next[state * columns + c];
+                if (child != 0) {
+                    failure[child] = next[fail * columns + c];
+                    queue.add(child);
+                } else {
+                    next[state * columns + c] = next[fail * columns + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports the id (index in the constructor's list) of every whole-word
+     * occurrence, in order of where it ends.
+     */
+    void scan(CharSequence text, IntConsumer onMatch) {
+        scan(text, (id, end) -> onMatch.accept(id));
+    }
+
+    /**
+     * Reports non-overlapping whole-word occurrences, in text order: of the
+     * matches starting leftmost the longest wins, and any match overlapping
+     * one already kept is dropped.
+     */
+    void scanLongest(CharSequence text, IntConsumer onMatch) {
+        // {start, end, id}; sorted by start, then longest first
+        List<long[]> found = new ArrayList<>();
+        scan(text, (id, end) -> found.add(new long[]{end - lengths[id] + 1, end, id}));
+        found.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+        long keptEnd = -1;
+        for (long[] match : found) {
+            if (match[0] > keptEnd) {
+                keptEnd = match[1];
+                onMatch.accept((int) match[2]);
+            }
+        }
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    // A match of pattern id ending at position end of the normalized text
+    private interface MatchSink {
+        void accept(int id, long end);
+    }
+
+    private void scan(CharSequence text, MatchSink onMatch) {
+        // Last characters fed to the automaton, to check the character before a match
+        int mask = Integer.highestOneBit(Math.max(1, maxLength)) * 2 - 1;
+        char[] recent = new char[mask + 1];
+        long fed = 0;
+        int state = 0;
+        boolean pendingSpace = false;
+
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = fed > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                pendingSpace = false;
+                state = step(state, ' ', recent, fed++, mask, text, i, onMatch);
+            }
+            state = step(state, Character.toLowerCase(c), recent, fed++, mask, text, i + 1, onMatch);
+        }
+    }
+
+    private int step(int state, char c, char[] recent, long position, int mask,
+                     CharSequence text, int following, MatchSink onMatch) {
+        recent[(int) (position & mask)] = c;
+        state = next[state * columns + column(c)];
+        for (int s = output[state] >= 0 ? state : outputLink[state]; s >= 0; s = outputLink[s]) {
+            int id = output[s];
+            if (isWholeWord(id, recent, position, mask, text, following)) {
+                onMatch.accept(id, position);
+            }
+        }
+        return state;
+    }
+
+    private boolean isWholeWord(int id, char[] recent, long end, int mask, CharSequence text, int following) {
+        if (wordStart[id]) {
+            long before = end - lengths[id];
+            if (before >= 0 && Character.isLetterOrDigit(recent[(int) (before & mask)])) {
+                return false;
+            }
+        }
+        return !wordEnd[id] || following >= text.length() || !Character.isLetterOrDigit(text.charAt(following));
+    }
+
+    private int column(char c) {
+        if (c < ASCII) {
+            return asciiColumn[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index < 0 ? 0 : columns - otherChars.length + index;
+    }
+
+    // Lower-cased with whitespace runs collapsed, as the scanner sees text
+    private static String normalize(String pattern) {
+        return pattern.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+}
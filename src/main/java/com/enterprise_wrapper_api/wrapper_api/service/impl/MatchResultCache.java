@@ -0,0 +1,209 @@
+package com.enterprise_wrapper_api.wrapper_api.service.impl;
+
+import com.enterprise_wrapper_api.wrapper_api.cache.ContentHash;
+import com.enterprise_wrapper_api.wrapper_api.cache.DiskCache;
+import com.enterprise_wrapper_api.wrapper_api.model.ResumeMatchResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of successful LLM match results, keyed by a SHA-256 of the
+ * normalized resume text, job description, model name and prompt version.
+ *
+ * The memory tier is bounded by {@code match.cache.max-entries} and expires
+ * entries {@code match.cache.ttl} after they were written. When
+ * {@code match.cache.disk-dir} is set, results are also written through as
+ * JSON with their write time, so they survive restarts under the same TTL.
+ * The disk tier is swept at startup and every
+ * {@code match.cache.disk.sweep-interval}: expired files are deleted, then the
+ * oldest ones beyond {@code match.cache.disk.max-entries}.
+ *
+ * The disk tier is best-effort. A failed read is a miss and a failed write
+ * only logs, so a result the LLM already paid for is never turned into an
+ * error.
+ */
+@Component
+public class MatchResultCache {
+
+    record StoredResult(long storedAt, ResumeMatchResponse response) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(MatchResultCache.class);
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final long diskMaxEntries;
+    private final Clock clock;
+    private final Cache<String, StoredResult> memory;
+    private final DiskCache disk;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService sweeper;
+
+    public MatchResultCache(boolean enabled, long maxEntries, Duration ttl, String diskDir,
+                            ObjectMapper objectMapper) {
+        this(enabled, maxEntries, ttl, diskDir, 100_000, Duration.ZERO, objectMapper, Clock.systemUTC());
+    }
+
+    @Autowired
+    public MatchResultCache(
+            @Value("${match.cache.enabled:true}") boolean enabled,
+            @Value("${match.cache.max-entries:10000}") long maxEntries,
+            @Value("${match.cache.ttl:24h}") Duration ttl,
+            @Value("${match.cache.disk-dir:}") String diskDir,
+            @Value("${match.cache.disk.max-entries:100000}") long diskMaxEntries,
+            @Value("${match.cache.disk.sweep-interval:10m}") Duration sweepInterval,
+            ObjectMapper objectMapper) {
+        this(enabled, maxEntries, ttl, diskDir, diskMaxEntries, sweepInterval, objectMapper, Clock.systemUTC());
+    }
+
+    // A zero sweep interval never sweeps on its own; tests call sweepDisk
+    MatchResultCache(boolean enabled, long maxEntries, Duration ttl, String diskDir, long diskMaxEntries,
+                     Duration sweepInterval, ObjectMapper objectMapper, Clock clock) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.diskMaxEntries = Math.max(0, diskMaxEntries);
+        this.clock = clock;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .recordStats()
+                .build();
+        this.disk = enabled && diskDir != null && !diskDir.isBlank() ? new DiskCache(Path.of(diskDir)) : null;
+        this.objectMapper = objectMapper;
+
+        if (disk != null && !sweepInterval.isZero() && !sweepInterval.isNegative()) {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "match-cache-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(this::sweepDisk, 0, sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    public static String key(String resumeText, String jobDescription, String model, String promptVersion) {
+        return ContentHash.sha256(
+                model,
+                promptVersion,
+                ContentHash.normalizeText(resumeText == null ? "" : resumeText),
+                ContentHash.normalizeText(jobDescription == null ? "" : jobDescription));
+    }
+
+    /**
+     * Returns a copy of the cached result, or {@code null} on a miss or when
+     * the entry is older than the TTL.
+     */
+    public ResumeMatchResponse get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        StoredResult stored = memory.getIfPresent(key);
+        if (stored == null && disk != null) {
+            stored = readDisk(key);
+            if (stored != null) {
+                memory.put(key, stored);
+            }
+        }
+        return stored == null || expired(stored) ? null : copy(stored.response());
+    }
+
+    public void put(String key, ResumeMatchResponse response) {
+        if (!enabled) {
+            return;
+        }
+        StoredResult stored = new StoredResult(clock.millis(), copy(response));
+        memory.put(key, stored);
+        if (disk != null) {
+            try {
+                disk.put(key, objectMapper.writeValueAsBytes(stored));
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Could not persist match result {}; it stays cached in memory only", key, e);
+            }
+        }
+    }
+
+    public long size() {
+        return memory.estimatedSize();
+    }
+
+    // Deletes expired disk entries, then the oldest beyond the disk cap
+    void sweepDisk() {
+        if (disk == null) {
+            return;
+        }
+        try {
+            disk.evict(clock.instant().minus(ttl), diskMaxEntries);
+        } catch (UncheckedIOException e) {
+            log.warn("Could not sweep the match result disk cache", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private boolean expired(StoredResult stored) {
+        return clock.millis() - stored.storedAt() >= ttl.toMillis();
+    }
+
+    // Entries keep their original write time, so the TTL keeps counting across restarts
+    private StoredResult readDisk(String key) {
+        try {
+            byte[] bytes = disk.get(key);
+            if (bytes == null) {
+                return null;
+            }
+            StoredResult stored = objectMapper.readValue(bytes, StoredResult.class);
+            return expired(stored) ? discard(key) : stored;
+        } catch (IOException e) {
+            // A corrupt entry is just a miss
+            return discard(key);
+        } catch (UncheckedIOException e) {
+            log.warn("Could not read match result {} from disk", key, e);
+            return null;
+        }
+    }
+
+    private StoredResult discard(String key) {
+        try {
+            disk.remove(key);
+        } catch (UncheckedIOException e) {
+            log.warn("Could not delete match result {} from disk", key, e);
+        }
+        return null;
+    }
+
+    private static ResumeMatchResponse copy(ResumeMatchResponse response) {
+        return new ResumeMatchResponse(
+                response.getMatchScore(),
+                response.getMissingSkills() == null ? List.of() : List.copyOf(response.getMissingSkills()),
+                response.getSummary());
+    }
+}
@@ -1,117 +1,336 @@
 package com.enterprise_wrapper_api.wrapper_api.service.impl;
 
+import com.enterprise_wrapper_api.wrapper_api.extract.DocumentExtractor;
+import com.enterprise_wrapper_api.wrapper_api.llm.LlmGateway;
+import com.enterprise_wrapper_api.wrapper_api.model.BatchMatchEvent;
+import com.enterprise_wrapper_api.wrapper_api.model.CandidateResume;
 import com.enterprise_wrapper_api.wrapper_api.model.ResumeMatchRequest;
 import com.enterprise_wrapper_api.wrapper_api.model.ResumeMatchResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.tika.Tika;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ResumeMatchService {
 
-    private final WebClient webClient;
+    // Bump whenever buildPrompt changes, so cached results from the old prompt are not served
+    private static final String PROMPT_VERSION = "v1";
+
+    private final LlmGateway gateway;
     private final ObjectMapper objectMapper;
-    private final Tika tika = new Tika();
+    private final MatchResultCache resultCache;
+    private final int batchConcurrency;
+    private final int maxBatchSize;
+    private final DocumentExtractor extractor;
+    private final SkillPrefilter prefilter;
+
+    private final Timer extractTimer;
+    private final Timer llmTimer;
+    private final Timer prefilterTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter escalatedCandidates;
+    private final Counter localCandidates;
 
     public ResumeMatchService(
-            WebClient.Builder builder,
-            @Value("${groq.api.url}") String groqUrl,
-            @Value("${groq.api.key}") String apiKey,
-            ObjectMapper objectMapper
+            LlmGateway gateway,
+            ObjectMapper objectMapper,
+            MatchResultCache resultCache,
+            DocumentExtractor extractor,
+            SkillPrefilter prefilter,
+            @Value("${match.batch.concurrency:8}") int batchConcurrency,
+            @Value("${match.batch.max-size:500}") int maxBatchSize,
+            MeterRegistry meterRegistry
     ) {
-        this.webClient = builder
-                .baseUrl(groqUrl)
-                .defaultHeader("Authorization", "Bearer " + apiKey)
-                .defaultHeader("Content-Type", "application/json")
-                .build();
+        this.gateway = gateway;
         this.objectMapper = objectMapper;
+        this.resultCache = resultCache;
+        this.extractor = extractor;
+        this.prefilter = prefilter;
+        this.batchConcurrency = batchConcurrency;
+        this.maxBatchSize = maxBatchSize;
+
+        this.extractTimer = stageTimer(meterRegistry, "extract");
+        this.llmTimer = stageTimer(meterRegistry, "llm");
+        this.prefilterTimer = stageTimer(meterRegistry, "prefilter");
+        this.cacheHits = meterRegistry.counter("match.cache.requests", "result", "hit");
+        this.cacheMisses = meterRegistry.counter("match.cache.requests", "result", "miss");
+        this.escalatedCandidates = meterRegistry.counter("match.prefilter.candidates", "outcome", "escalated");
+        this.localCandidates = meterRegistry.counter("match.prefilter.candidates", "outcome", "local");
     }
 
     // =============================
     // PUBLIC METHODS
     // =============================
 
-    public ResumeMatchResponse getMatch(ResumeMatchRequest request) {
-        try {
-            String prompt = buildPrompt(
-                    request.getResumeText(),
-                    request.getJobDescription()
-            );
-
-            Map<String, Object> body = Map.of(
-                    "model", "llama-3.1-8b-instant",
-                    "messages", List.of(
-                            Map.of("role", "user", "content", prompt)
-                    ),
-                    "temperature", 0.2,
-                    "max_tokens", 500,
-                    "response_format", Map.of("type", "json_object")
-            );
-
-            Map<String, Object> response = webClient.post()
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(body)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
-
-            return parseGroqResponse(response);
-
-        } catch (WebClientResponseException e) {
-            return new ResumeMatchResponse(
-                    0,
-                    Collections.emptyList(),
-                    "GROQ ERROR: " + e.getResponseBodyAsString()
-            );
-        } catch (Exception e) {
-            return new ResumeMatchResponse(
-                    0,
-                    Collections.emptyList(),
-                    "ERROR: " + e.getMessage()
-            );
-        }
+    /**
+     * Matches one resume without blocking: the LLM call completes on the
+     * WebClient event loop. Failures are folded into the response. With the
+     * skill prefilter on, a resume below {@code match.prefilter.min-score}
+     * (or any resume in {@code local} mode) gets its skill match instead.
+     */
+    public Mono<ResumeMatchResponse> getMatch(ResumeMatchRequest request) {
+        return Mono.defer(() -> {
+                    String resumeText = request.getResumeText();
+                    String jobDescription = request.getJobDescription();
+                    if (prefilter.mode() == SkillPrefilter.Mode.OFF) {
+                        return requestMatch(resumeText, jobDescription);
+                    }
+                    SkillPrefilter.JobProfile job = prefilter.profile(jobDescription);
+                    SkillPrefilter.SkillScore skills = scoreSkills(job, resumeText);
+                    return escalate(job, List.of(skills))[0]
+                            ? requestMatch(resumeText, jobDescription)
+                            : Mono.just(localMatch(skills));
+                })
+                .onErrorResume(e -> Mono.just(new ResumeMatchResponse(
+                        0,
+                        Collections.emptyList(),
+                        describe(e)
+                )));
     }
 
-    public ResumeMatchResponse matchUploadedResume(
+    public Mono<ResumeMatchResponse> matchUploadedResume(
             MultipartFile file,
             String jobDescription) {
 
-        try {
-            validateFile(file);
-
-            String resumeText =
-                    tika.parseToString(file.getInputStream());
-
-            ResumeMatchRequest request = new ResumeMatchRequest();
-            request.setResumeText(resumeText);
-            request.setJobDescription(jobDescription);
+        // Extraction blocks on the parse pool, so it runs on the bounded elastic scheduler
+        return Mono.fromCallable(() -> parseResume(file))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(resumeText -> {
+                    ResumeMatchRequest request = new ResumeMatchRequest();
+                    request.setResumeText(resumeText);
+                    request.setJobDescription(jobDescription);
+                    return request;
+                })
+                .onErrorResume(e -> Mono.empty())
+                .flatMap(this::getMatch)
+                .defaultIfEmpty(new ResumeMatchResponse(
+                        0,
+                        Collections.emptyList(),
+                        "Failed to process resume file"
+                ));
+    }
 
-            return getMatch(request);
+    /**
+     * Screens many resume texts against one job description. See
+     * {@link #screen(String, List)} for the stream layout.
+     */
+    public Flux<BatchMatchEvent> screenResumes(String jobDescription, List<CandidateResume> resumes) {
+        List<Candidate> candidates = new ArrayList<>(resumes.size());
+        for (int i = 0; i < resumes.size(); i++) {
+            CandidateResume resume = resumes.get(i);
+            String candidateId = resume.getCandidateId() != null ? resume.getCandidateId() : String.valueOf(i);
+            candidates.add(new Candidate(i, candidateId,
+                    Mono.fromSupplier(() -> Objects.requireNonNullElse(resume.getResumeText(), ""))));
+        }
+        return screen(jobDescription, candidates);
+    }
 
-        } catch (Exception e) {
-            return new ResumeMatchResponse(
-                    0,
-                    Collections.emptyList(),
-                    "Failed to process resume file"
-            );
+    /**
+     * Screens uploaded resume files against one job description. Files are
+     * extracted on the bounded elastic scheduler, several at a time.
+     */
+    public Flux<BatchMatchEvent> screenFiles(String jobDescription, List<MultipartFile> files) {
+        List<Candidate> candidates = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            String candidateId = file.getOriginalFilename() != null ? file.getOriginalFilename() : String.valueOf(i);
+            candidates.add(new Candidate(i, candidateId,
+                    Mono.fromCallable(() -> parseResume(file)).subscribeOn(Schedulers.boundedElastic())));
         }
+        return screen(jobDescription, candidates);
+    }
+
+    public int maxBatchSize() {
+        return maxBatchSize;
     }
 
     // =============================
     // PRIVATE HELPERS
     // =============================
 
+    // Resume text is loaded lazily so file parsing runs inside the batch pipeline
+    private record Candidate(int index, String candidateId, Mono<String> resumeText) {
+    }
+
+    // A candidate whose resume was read and scored against the job's skills, or that failed to load
+    private record ScoredCandidate(Candidate candidate, String resumeText, SkillPrefilter.SkillScore skills,
+                                   String error) {
+    }
+
+    /**
+     * Emits one {@code result} event per candidate in completion order, each
+     * carrying either the match or its own error, followed by a single
+     * {@code ranking} event ordering the successful matches by score.
+     */
+    private Flux<BatchMatchEvent> screen(String jobDescription, List<Candidate> candidates) {
+        if (prefilter.mode() != SkillPrefilter.Mode.OFF) {
+            return prefilteredScreen(jobDescription, candidates);
+        }
+        return Flux.defer(() -> {
+            List<BatchMatchEvent> matched = Collections.synchronizedList(new ArrayList<>());
+
+            Flux<BatchMatchEvent> results = Flux.fromIterable(candidates)
+                    .flatMap(candidate -> candidate.resumeText()
+                            .flatMap(resumeText -> requestMatch(resumeText, jobDescription))
+                            .map(match -> BatchMatchEvent.result(candidate.index(), candidate.candidateId(), match))
+                            .onErrorResume(e -> Mono.just(BatchMatchEvent.failure(
+                                    candidate.index(), candidate.candidateId(), describe(e)))),
+                            batchConcurrency)
+                    .doOnNext(event -> {
+                        if (event.getMatch() != null) {
+                            matched.add(event);
+                        }
+                    });
+
+            return results.concatWith(Mono.fromSupplier(() -> BatchMatchEvent.ranking(matched)));
+        });
+    }
+
+    /**
+     * Like {@link #screen}, but every resume is first scored locally against
+     * the job's skills and only the candidates the prefilter picks are sent
+     * to the LLM. The others' results, and load failures, come first, in
+     * submission order; the LLM verdicts follow as they complete.
+     */
+    private Flux<BatchMatchEvent> prefilteredScreen(String jobDescription, List<Candidate> candidates) {
+        return Flux.defer(() -> {
+            SkillPrefilter.JobProfile job = prefilter.profile(jobDescription);
+            List<BatchMatchEvent> matched = Collections.synchronizedList(new ArrayList<>());
+
+            // Who is escalated depends on the whole pool, so every resume is read and scored first
+            return Flux.fromIterable(candidates)
+                    .flatMapSequential(candidate -> candidate.resumeText()
+                            .map(text -> new ScoredCandidate(candidate, text, scoreSkills(job, text), null))
+                            .onErrorResume(e -> Mono.just(new ScoredCandidate(candidate, null, null, describe(e)))),
+                            batchConcurrency)
+                    .collectList()
+                    .flatMapMany(scored -> {
+                        List<ScoredCandidate> loaded = scored.stream().filter(s -> s.error() == null).toList();
+                        boolean[] escalated = escalate(job, loaded.stream().map(ScoredCandidate::skills).toList());
+
+                        List<BatchMatchEvent> immediate = new ArrayList<>();
+                        List<ScoredCandidate> toLlm = new ArrayList<>();
+                        for (ScoredCandidate s : scored) {
+                            if (s.error() != null) {
+                                immediate.add(BatchMatchEvent.failure(
+                                        s.candidate().index(), s.candidate().candidateId(), s.error()));
+                            }
+                        }
+                        for (int i = 0; i < loaded.size(); i++) {
+                            ScoredCandidate s = loaded.get(i);
+                            if (escalated[i]) {
+                                toLlm.add(s);
+                            } else {
+                                immediate.add(BatchMatchEvent.result(s.candidate().index(), s.candidate().candidateId(),
+                                        localMatch(s.skills()), s.skills().score(), false));
+                            }
+                        }
+                        immediate.sort(Comparator.comparingInt(BatchMatchEvent::getIndex));
+
+                        Flux<BatchMatchEvent> verdicts = Flux.fromIterable(toLlm)
+                                .flatMap(s -> requestMatch(s.resumeText(), jobDescription)
+                                                .map(match -> BatchMatchEvent.result(s.candidate().index(),
+                                                        s.candidate().candidateId(), match, s.skills().score(), true))
+                                                .onErrorResume(e -> Mono.just(BatchMatchEvent.failure(
+                                                        s.candidate().index(), s.candidate().candidateId(), describe(e)))),
+                                        batchConcurrency);
+                        return Flux.fromIterable(immediate).concatWith(verdicts);
+                    })
+                    .doOnNext(event -> {
+                        if (event.getMatch() != null) {
+                            matched.add(event);
+                        }
+                    })
+                    .concatWith(Mono.fromSupplier(() -> BatchMatchEvent.ranking(matched)));
+        });
+    }
+
+    private SkillPrefilter.SkillScore scoreSkills(SkillPrefilter.JobProfile job, String resumeText) {
+        return prefilterTimer.record(() -> prefilter.score(job, resumeText));
+    }
+
+    // Counts how many candidates the prefilter sends to the LLM
+    private boolean[] escalate(SkillPrefilter.JobProfile job, List<SkillPrefilter.SkillScore> scores) {
+        boolean[] escalated = prefilter.escalate(job, scores);
+        for (boolean e : escalated) {
+            (e ? escalatedCandidates : localCandidates).increment();
+        }
+        return escalated;
+    }
+
+    private static ResumeMatchResponse localMatch(SkillPrefilter.SkillScore skills) {
+        return new ResumeMatchResponse(skills.score(), skills.missingSkills(),
+                "Scored locally by skill overlap; not sent to the LLM.");
+    }
+
+    /**
+     * Calls the LLM for one resume, serving repeats from the result cache.
+     * Failures are signalled as errors rather than folded into the response.
+     */
+    private Mono<ResumeMatchResponse> requestMatch(String resumeText, String jobDescription) {
+        String cacheKey = MatchResultCache.key(resumeText, jobDescription, gateway.model(), PROMPT_VERSION);
+        ResumeMatchResponse cached = resultCache.get(cacheKey);
+        if (cached != null) {
+            cacheHits.increment();
+            return Mono.just(cached);
+        }
+        cacheMisses.increment();
+
+        String prompt = buildPrompt(resumeText, jobDescription);
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return gateway.complete(prompt, 500, true)
+                    .handle((content, sink) -> {
+                        try {
+                            sink.next(parseMatch(content));
+                        } catch (Exception e) {
+                            sink.error(e);
+                        }
+                    })
+                    .cast(ResumeMatchResponse.class)
+                    .doOnTerminate(() -> llmTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    // Only successful parses are cached; failures are retried on the next call
+                    .doOnNext(result -> resultCache.put(cacheKey, result));
+        });
+    }
+
+    private String parseResume(MultipartFile file) throws Exception {
+        validateFile(file);
+        return extractTimer.recordCallable(() -> extractor.extract(file, file.getContentType()));
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("match.stage")
+                .description("Time spent in one stage of matching a resume")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static String describe(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return "GROQ ERROR: " + response.getResponseBodyAsString();
+        }
+        return "ERROR: " + e.getMessage();
+    }
+
     private String buildPrompt(String resumeText, String jobDescription) {
         return """
                 Compare the resume with the job description.
@@ -130,16 +349,7 @@ public class ResumeMatchService {
                 """.formatted(resumeText, jobDescription);
     }
 
-    private ResumeMatchResponse parseGroqResponse(
-            Map<String, Object> response) throws Exception {
-
-        List<Map<String, Object>> choices =
-                (List<Map<String, Object>>) response.get("choices");
-
-        Map<String, Object> message =
-                (Map<String, Object>) choices.get(0).get("message");
-
-        String content = (String) message.get("content");
+    ResumeMatchResponse parseMatch(String content) throws Exception {
 
         Map<String, Object> json =
                 objectMapper.readValue(content, Map.class);
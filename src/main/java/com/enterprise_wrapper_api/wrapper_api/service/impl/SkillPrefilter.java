@@ -0,0 +1,211 @@
+package com.enterprise_wrapper_api.wrapper_api.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Deterministic local skill matching, used to decide which candidates are
+ * worth an LLM call.
+ *
+ * Skills come from a dictionary with one skill per line: its display name,
+ * then any aliases, comma-separated ({@code Kubernetes, k8s}). All names
+ * are compiled into one Aho-Corasick automaton, so a document is scanned
+ * once however large the dictionary is. Where names overlap only the
+ * longest counts, so "Spring Boot" is not also a mention of Spring.
+ *
+ * A job description's skills are weighted by how often it mentions them
+ * ({@code 1 + ln(count)}); a resume scores the weighted share of those
+ * skills it mentions at all, from 0 to 100.
+ */
+@Component
+public class SkillPrefilter {
+
+    static final String BUNDLED_DICTIONARY = "skills.txt";
+
+    public enum Mode {
+        // Every candidate goes to the LLM
+        OFF,
+        // Only candidates scoring at least min-score, and at most the top-n of them, go to the LLM
+        ESCALATE,
+        // Nobody goes to the LLM; the skill score is the result
+        LOCAL
+    }
+
+    /**
+     * Skills a job asks for. {@code skills} holds dictionary ids, heaviest
+     * first.
+     */
+    public record JobProfile(int[] skills, float[] weights, float totalWeight) {
+
+        public boolean isEmpty() {
+            return skills.length == 0;
+        }
+    }
+
+    public record SkillScore(double score, List<String> missingSkills) {
+    }
+
+    private final Mode mode;
+    private final int topN;
+    private final double minScore;
+    private final List<String> names;
+    private final int[] skillOfPattern;
+    private final AhoCorasick automaton;
+
+    @Autowired
+    public SkillPrefilter(
+            @Value("${match.prefilter.mode:off}") String mode,
+            @Value("${match.prefilter.dictionary:}") String dictionary,
+            @Value("${match.prefilter.top-n:20}") int topN,
+            @Value("${match.prefilter.min-score:30}") double minScore) {
+        this(Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)), readDictionary(dictionary), topN, minScore);
+    }
+
+    SkillPrefilter(Mode mode, List<String> dictionary, int topN, double minScore) {
+        this.mode = mode;
+        this.topN = topN;
+        this.minScore = minScore;
+
+        List<String> skillNames = new ArrayList<>();
+        List<String> patterns = new ArrayList<>();
+        List<Integer> skillIds = new ArrayList<>();
+        for (String line : dictionary) {
+            String entry = line.strip();
+            if (entry.isEmpty() || entry.startsWith("#")) {
+                continue;
+            }
+            String[] aliases = entry.split(",");
+            int skill = skillNames.size();
+            skillNames.add(aliases[0].strip());
+            for (String alias : aliases) {
+                if (!alias.isBlank()) {
+                    patterns.add(alias);
+                    skillIds.add(skill);
+                }
+            }
+        }
+        this.names = List.copyOf(skillNames);
+        this.skillOfPattern = skillIds.stream().mapToInt(Integer::intValue).toArray();
+        this.automaton = new AhoCorasick(patterns);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public JobProfile profile(String jobDescription) {
+        int[] counts = count(jobDescription);
+        Integer[] order = new Integer[counts.length];
+        int required = 0;
+        for (int skill = 0; skill < counts.length; skill++) {
+            if (counts[skill] > 0) {
+                order[required++] = skill;
+            }
+        }
+        Integer[] skills = Arrays.copyOf(order, required);
+        Arrays.sort(skills, Comparator.comparingInt((Integer skill) -> -counts[skill]).thenComparingInt(skill -> skill));
+
+        int[] ids = new int[required];
+        float[] weights = new float[required];
+        float total = 0f;
+        for (int i = 0; i < required; i++) {
+            ids[i] = skills[i];
+            weights[i] = 1f + (float) Math.log(counts[skills[i]]);
+            total += weights[i];
+        }
+        return new JobProfile(ids, weights, total);
+    }
+
+    /**
+     * Weighted share of the job's skills the resume mentions, and the ones
+     * it does not, heaviest first. A job without dictionary skills gives
+     * every resume 0.
+     */
+    public SkillScore score(JobProfile job, String resumeText) {
+        if (job.isEmpty()) {
+            return new SkillScore(0, List.of());
+        }
+        int[] counts = count(resumeText);
+        float matched = 0f;
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < job.skills().length; i++) {
+            if (counts[job.skills()[i]] > 0) {
+                matched += job.weights()[i];
+            } else {
+                missing.add(names.get(job.skills()[i]));
+            }
+        }
+        return new SkillScore(Math.round(1000.0 * matched / job.totalWeight()) / 10.0, missing);
+    }
+
+    /**
+     * Which candidates to send to the LLM, given their scores in submission
+     * order. A job without dictionary skills cannot be judged locally, so in
+     * {@code ESCALATE} mode all of its candidates are sent.
+     */
+    public boolean[] escalate(JobProfile job, List<SkillScore> scores) {
+        boolean[] escalated = new boolean[scores.size()];
+        if (mode == Mode.OFF || mode == Mode.ESCALATE && job.isEmpty()) {
+            Arrays.fill(escalated, true);
+            return escalated;
+        }
+        if (mode == Mode.LOCAL) {
+            return escalated;
+        }
+        // Highest score first; ties keep submission order
+        Integer[] order = new Integer[scores.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> -scores.get(i).score()));
+        int limit = topN > 0 ? topN : order.length;
+        for (int rank = 0; rank < Math.min(limit, order.length); rank++) {
+            if (scores.get(order[rank]).score() < minScore) {
+                break;
+            }
+            escalated[order[rank]] = true;
+        }
+        return escalated;
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    // Occurrences of each dictionary skill, through any of its names; "Java EE" counts Java EE, not Java
+    private int[] count(String text) {
+        int[] counts = new int[names.size()];
+        if (text != null) {
+            automaton.scanLongest(text, pattern -> counts[skillOfPattern[pattern]]++);
+        }
+        return counts;
+    }
+
+    private static List<String> readDictionary(String dictionary) {
+        try {
+            if (dictionary == null || dictionary.isBlank()) {
+                try (InputStream in = SkillPrefilter.class.getClassLoader().getResourceAsStream(BUNDLED_DICTIONARY)) {
+                    if (in == null) {
+                        throw new IOException(BUNDLED_DICTIONARY + " not found on the classpath");
+                    }
+                    return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+                }
+            }
+            return Files.readAllLines(Path.of(dictionary), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load skill dictionary", e);
+        }
+    }
+}
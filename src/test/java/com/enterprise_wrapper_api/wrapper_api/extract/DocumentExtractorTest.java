@@ -0,0 +1,100 @@
+package com.enterprise_wrapper_api.wrapper_api.extract;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DocumentExtractorTest {
+
+    @TempDir
+    Path diskDir;
+
+    private DocumentExtractor extractor;
+
+    @AfterEach
+    void shutdown() {
+        extractor.shutdown();
+    }
+
+    @Test
+    void repeatedUploadIsServedFromCacheWithoutParsing() {
+        extractor = new DocumentExtractor(true, 1 << 20, null, 1, 1, Duration.ofSeconds(10), 1000);
+        AtomicInteger opens = new AtomicInteger();
+        InputStreamSource upload = () -> {
+            opens.incrementAndGet();
+            return text("Senior Java developer, ten years of Spring.");
+        };
+
+        assertEquals("Senior Java developer, ten years of Spring.", extractor.extract(upload, "text/plain").trim());
+        // Once to hash, once to parse
+        assertEquals(2, opens.get());
+
+        assertEquals("Senior Java developer, ten years of Spring.", extractor.extract(upload, "text/plain").trim());
+        // Only hashed
+        assertEquals(3, opens.get());
+    }
+
+    @Test
+    void failedDiskCacheWritesDoNotFailTheExtraction() throws IOException {
+        extractor = new DocumentExtractor(true, 1 << 20, diskDir.toString(), 1, 1, Duration.ofSeconds(10), 1000);
+        InputStreamSource upload = () -> text("Senior Java developer, ten years of Spring.");
+        String key = extractor.cacheKey(upload, "text/plain");
+        // A file where the fan-out directory should be makes the disk write fail
+        Files.createFile(diskDir.resolve(key.substring(0, 2)));
+
+        assertEquals("Senior Java developer, ten years of Spring.", extractor.extract(upload, "text/plain").trim());
+        assertEquals("Senior Java developer, ten years of Spring.", extractor.cached(key).trim());
+    }
+
+    @Test
+    void textBeyondTheLimitIsCutOffAndNotCached() {
+        extractor = new DocumentExtractor(true, 1 << 20, null, 1, 1, Duration.ofSeconds(10), 10);
+        InputStreamSource upload = () -> text("abcdefghij".repeat(50));
+
+        assertEquals(new ExtractedText("abcdefghij", true), extractor.extractDocument(upload, "text/plain"));
+        // Streamed ingestion reads the same entries and must not see a cut-off text
+        assertNull(extractor.cached(extractor.cacheKey(upload, "text/plain")));
+        assertEquals(new ExtractedText("abcdefghij", true), extractor.extractDocument(upload, "text/plain"));
+    }
+
+    @Test
+    void slowDocumentTimesOut() {
+        extractor = new DocumentExtractor(false, 0, null, 1, 1, Duration.ofMillis(100), 1000);
+        InputStreamSource stuck = () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return text("too late");
+        };
+
+        assertThrows(DocumentExtractionException.class, () -> extractor.extract(stuck, "text/plain"));
+    }
+
+    @Test
+    void streamedPdfFailuresReachTheCaller() {
+        extractor = new DocumentExtractor(false, 0, null, 1, 1, Duration.ofSeconds(10), 1000);
+
+        assertThrows(DocumentExtractionException.class,
+                () -> extractor.streamPdf(() -> text("not a pdf"), 2, (text, lastPage, pages) -> { }));
+    }
+
+    private static InputStream text(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,164 @@
+package com.enterprise_wrapper_api.wrapper_api.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmGatewayTest {
+
+    private static final String COMPLETION = "{\"choices\":[{\"message\":{\"content\":\"answer\"}}]}";
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer groq;
+
+    @AfterEach
+    void stopStubGroq() {
+        groq.stop(0);
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneUpstreamCall() throws IOException {
+        LlmGateway gateway = gatewayFor(0, exchange -> {
+            sleep(300);
+            reply(exchange, COMPLETION);
+        });
+
+        List<String> answers = Flux.range(0, 20)
+                .flatMap(i -> gateway.complete("popular question", 100, false))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(20, answers.size());
+        assertTrue(answers.stream().allMatch("answer"::equals));
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(19, meterRegistry.get("llm.coalesced").counter().count());
+
+        // Once the shared call finished, the next request goes upstream again
+        gateway.complete("popular question", 100, false).block(Duration.ofSeconds(10));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void requestsBeyondMaxWaitFailWithoutCallingUpstream() throws IOException {
+        // Two requests per minute: the third would wait ~30s, well past the 2s max wait
+        LlmGateway gateway = gatewayFor(2, exchange -> reply(exchange, COMPLETION));
+
+        gateway.complete("a", 10, false).block(Duration.ofSeconds(10));
+        gateway.complete("b", 10, false).block(Duration.ofSeconds(10));
+
+        assertThrows(LlmRateLimitException.class,
+                () -> gateway.complete("c", 10, false).block(Duration.ofSeconds(10)));
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(1, meterRegistry.get("llm.errors").tag("reason", "throttled").counter().count());
+    }
+
+    @Test
+    void streamsContentDeltasUntilDone() throws IOException {
+        LlmGateway gateway = gatewayFor(0, exchange -> stream(exchange, out -> {
+            write(out, "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}\n\n");
+            write(out, "data: {\"choices\":[{\"delta\":{\"content\":\"Revenue \"}}]}\n\n");
+            write(out, "data: {\"choices\":[{\"delta\":{\"content\":\"grew 4%.\"}}]}\n\n");
+            write(out, "data: {\"choices\":[{\"delta\":{},\"finish_reason\":\"stop\"}]}\n\n");
+            write(out, "data: [DONE]\n\n");
+        }));
+
+        List<String> tokens = gateway.stream("q", 100).collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("Revenue ", "grew 4%."), tokens);
+    }
+
+    @Test
+    void cancellingTheStreamClosesTheUpstreamConnection() throws Exception {
+        CountDownLatch disconnected = new CountDownLatch(1);
+        LlmGateway gateway = gatewayFor(0, exchange -> stream(exchange, out -> {
+            try {
+                // Keep generating until the write fails because the client went away
+                for (int i = 0; i < 10_000; i++) {
+                    write(out, "data: {\"choices\":[{\"delta\":{\"content\":\"t" + i + " \"}}]}\n\n");
+                    sleep(5);
+                }
+            } catch (IOException e) {
+                disconnected.countDown();
+            }
+        }));
+
+        List<String> firstTokens = gateway.stream("q", 100).take(3).collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("t0 ", "t1 ", "t2 "), firstTokens);
+        assertTrue(disconnected.await(10, TimeUnit.SECONDS), "upstream kept streaming after cancel");
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private interface StreamBody {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private LlmGateway gatewayFor(int requestsPerMinute, Handler handler) throws IOException {
+        groq = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        groq.setExecutor(Executors.newCachedThreadPool());
+        groq.createContext("/", exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            handler.handle(exchange);
+        });
+        groq.start();
+        return new LlmGateway(WebClient.builder(), "http://localhost:" + groq.getAddress().getPort(), "key",
+                "test-model", 50, Duration.ofSeconds(60), requestsPerMinute, 0, Duration.ofSeconds(2),
+                new ObjectMapper(), meterRegistry);
+    }
+
+    private static void reply(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static void stream(HttpExchange exchange, StreamBody body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            body.write(out);
+        } catch (IOException ignored) {
+            // client disconnected
+        }
+    }
+
+    private static void write(OutputStream out, String chunk) throws IOException {
+        out.write(chunk.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
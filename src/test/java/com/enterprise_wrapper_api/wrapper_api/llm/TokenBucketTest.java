@@ -0,0 +1,34 @@
+package com.enterprise_wrapper_api.wrapper_api.llm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void burstIsSpreadAsGrowingDelays() {
+        TokenBucket bucket = new TokenBucket(60, 0);
+
+        for (int i = 0; i < 60; i++) {
+            assertEquals(0, bucket.nanosUntil(1, 0));
+            bucket.take(1, 0);
+        }
+        // Each reservation beyond the burst waits one more refill interval
+        assertEquals(SECOND, bucket.nanosUntil(1, 0));
+        bucket.take(1, 0);
+        assertEquals(2 * SECOND, bucket.nanosUntil(1, 0));
+        assertEquals(SECOND, bucket.nanosUntil(1, SECOND));
+    }
+
+    @Test
+    void oversizedRequestsWaitForAFullBucketOnly() {
+        TokenBucket bucket = new TokenBucket(600, 0);
+        bucket.take(600, 0);
+
+        assertEquals(60 * SECOND, bucket.nanosUntil(5_000, 0));
+        assertEquals(0, new TokenBucket(0, 0).nanosUntil(5_000, 0));
+    }
+}
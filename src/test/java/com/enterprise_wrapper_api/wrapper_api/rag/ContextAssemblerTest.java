@@ -0,0 +1,72 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextAssemblerTest {
+
+    private static final String REPORT =
+            "Revenue grew four percent in the third quarter. Operating costs fell after the plant consolidation. "
+                    + "The board approved a new buyback programme. Guidance for the full year was raised slightly.";
+
+    @Test
+    void overlappingChunksOfOneDocumentAreSentOnce() {
+        List<String> chunks = new TextChunkService(60, 20, "chars").chunkText(REPORT);
+        assertTrue(chunks.size() > 2);
+
+        // Retrieval order is by relevance, not by position in the document
+        List<RetrievedChunk> ranked = new ArrayList<>();
+        for (int i = chunks.size() - 1; i >= 0; i--) {
+            ranked.add(new RetrievedChunk("report", chunks.get(i)));
+        }
+
+        List<String> packed = new ContextAssembler(1000, 8, 0.9).pack(ranked);
+
+        assertEquals(List.of(REPORT), packed);
+    }
+
+    @Test
+    void nearDuplicatesFromOtherDocumentsAreDropped() {
+        String copy = REPORT.replace("slightly", "a little");
+        List<RetrievedChunk> ranked = List.of(
+                new RetrievedChunk("a", REPORT),
+                new RetrievedChunk("b", copy),
+                new RetrievedChunk("c", "Headcount stayed flat across all regions."));
+
+        List<String> packed = new ContextAssembler(1000, 8, 0.8).pack(ranked);
+
+        assertEquals(List.of(REPORT, "Headcount stayed flat across all regions."), packed);
+    }
+
+    @Test
+    void fillsTheBudgetInRelevanceOrder() {
+        String large = "x".repeat(400);
+        String small = "Headcount stayed flat.";
+        List<RetrievedChunk> ranked = List.of(
+                new RetrievedChunk("a", REPORT),
+                new RetrievedChunk("b", large),
+                new RetrievedChunk("c", small));
+
+        ContextAssembler assembler = new ContextAssembler(70, 8, 0.9);
+        List<String> packed = assembler.pack(ranked);
+
+        // The large passage does not fit what is left, the smaller one after it does
+        assertEquals(List.of(REPORT, small), packed);
+        String prompt = assembler.buildPrompt(ranked, "How did revenue do?");
+        assertEquals("Use the following context to answer the question:\n" + REPORT + "\n---\n" + small
+                + "\nQuestion: How did revenue do?", prompt);
+    }
+
+    @Test
+    void overlapFindsLongestSuffixPrefixOrContainment() {
+        assertEquals(3, ContextAssembler.overlap("abcabcab", "cabxx"));
+        assertEquals(3, ContextAssembler.overlap("the cat sat", "sat on"));
+        assertEquals(3, ContextAssembler.overlap("xxcatxx", "cat"));
+        assertEquals(0, ContextAssembler.overlap("abc", "xyz"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmbeddingCacheTest {
+
+    @TempDir
+    Path diskDir;
+
+    @Test
+    void repeatedAndReformattedTextsSkipEmbedding() {
+        CountingEmbeddingService service = new CountingEmbeddingService(new EmbeddingCache(true, 1 << 20, null));
+
+        float[] first = service.embed("What is the  revenue?");
+        float[] second = service.embed("  What is the revenue?\n");
+        service.embedBatch(List.of("What is the revenue?", "new text", "new text"));
+
+        assertArrayEquals(first, second);
+        assertEquals(List.of("What is the  revenue?", "new text"), service.computed);
+    }
+
+    @Test
+    void diskTierSurvivesANewMemoryTier() {
+        float[] original = new CountingEmbeddingService(
+                new EmbeddingCache(true, 1 << 20, diskDir.toString())).embed("chunk");
+
+        EmbeddingCache restarted = new EmbeddingCache(true, 1 << 20, diskDir.toString());
+        CountingEmbeddingService service = new CountingEmbeddingService(restarted);
+
+        assertArrayEquals(original, service.embed("chunk"));
+        assertEquals(List.of(), service.computed);
+        assertEquals(1, restarted.stats().diskHits());
+    }
+
+    @Test
+    void metricsReportBothTiers() {
+        String onDisk = EmbeddingCache.key("model", "on disk");
+        new EmbeddingCache(true, 1 << 20, diskDir.toString()).put(onDisk, new float[]{1, 2});
+        EmbeddingCache cache = new EmbeddingCache(true, 1 << 20, diskDir.toString());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new EmbeddingCacheMetrics(cache).bindTo(registry);
+
+        cache.get(onDisk);
+        cache.get(onDisk);
+        cache.get(EmbeddingCache.key("model", "missing"));
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", "embeddings").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("rag.embedding.cache.disk.hits").functionCounter().count());
+        assertEquals(1, registry.get("rag.embedding.cache.misses").functionCounter().count());
+    }
+
+    private static final class CountingEmbeddingService extends EmbeddingService {
+        private final List<String> computed = new ArrayList<>();
+
+        CountingEmbeddingService(EmbeddingCache cache) {
+            super(cache);
+        }
+
+        @Override
+        protected float[][] computeBatch(List<String> texts) {
+            computed.addAll(texts);
+            return super.computeBatch(texts);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedFeatureEmbedderTest {
+
+    private final HashedFeatureEmbedder embedder = new HashedFeatureEmbedder(768);
+
+    @Test
+    void vectorsAreUnitLengthAndRankRelatedTextHigher() {
+        float[] text = embedder.embed("Quarterly revenue grew in the retail segment.");
+
+        assertArrayEquals(text, embedder.embed("Quarterly revenue grew in the retail segment."));
+        assertEquals(1.0, dot(text, text), 1e-5);
+
+        float related = dot(text, embedder.embed("Revenue growth in retail this quarter"));
+        float unrelated = dot(text, embedder.embed("The office will be closed on public holidays"));
+        assertTrue(related > unrelated + 0.2f, related + " vs " + unrelated);
+    }
+
+    @Test
+    void queryWeightsFavourRareFeatures() {
+        int[] documentFrequency = new int[768];
+        for (int i = 0; i < 50; i++) {
+            countNonZero(embedder.embed("annual report section " + i), documentFrequency);
+        }
+        countNonZero(embedder.embed("revenue figures"), documentFrequency);
+
+        float[] query = embedder.embedQuery("revenue report", 51, documentFrequency);
+
+        // Both documents share one query word; the rare one counts for more
+        assertTrue(dot(query, embedder.embed("revenue summary")) > dot(query, embedder.embed("report summary")));
+        // Without documents there is nothing to weight by
+        assertArrayEquals(embedder.embed("revenue report"), embedder.embedQuery("revenue report", 0, new int[0]));
+    }
+
+    @Test
+    void sparseDotMatchesDenseDot() {
+        float[] query = embedder.embedQuery("vector search", 0, new int[0]);
+        float[] document = embedder.embed("Hybrid vector and keyword search over uploaded documents");
+
+        SparseVector sparse = SparseVector.of(query, 0.25f);
+
+        assertNotNull(sparse);
+        assertArrayEquals(query, sparse.toDense());
+        assertEquals(dot(query, document), VectorMath.dot(document, 0, sparse), 1e-6);
+    }
+
+    private static void countNonZero(float[] vector, int[] documentFrequency) {
+        for (int i = 0; i < vector.length; i++) {
+            if (vector[i] != 0f) {
+                documentFrequency[i]++;
+            }
+        }
+    }
+
+    private static float dot(float[] a, float[] b) {
+        return VectorMath.dot(a, 0, b, a.length);
+    }
+}
@@ -0,0 +1,65 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexRegistryTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void graphIsRebuiltFromTheStoreAfterARestart() {
+        VectorStoreService store = persistentStore();
+        write(store, "tenant", "doc#1", "left", new float[]{1, 0.1f});
+        write(store, "tenant", "doc#2", "right", new float[]{0.1f, 1});
+        new HnswIndexRegistry(store, 8, 50, 32, 0.3).indexDocument("tenant", "doc#2");
+
+        HnswIndexRegistry restarted = new HnswIndexRegistry(persistentStore(), 8, 50, 32, 0.3);
+
+        assertEquals(List.of(new RetrievedChunk("doc#2", "right"), new RetrievedChunk("doc#1", "left")),
+                restarted.searchChunks("tenant", new float[]{0, 1}, 5));
+        assertEquals(List.of(), restarted.search("empty", new float[]{0, 1}, 5));
+        assertNull(restarted.index("empty"));
+    }
+
+    @Test
+    void reuploadsAreCompactedOnceTombstonesPassTheThreshold() {
+        VectorStoreService store = new VectorStoreService();
+        HnswIndexRegistry registry = new HnswIndexRegistry(store, 8, 50, 32, 0.3);
+        for (int d = 0; d < 10; d++) {
+            write(store, "tenant", "doc-" + d, "doc " + d, new float[]{1, d});
+            registry.indexDocument("tenant", "doc-" + d);
+        }
+
+        for (int version = 0; version < 50; version++) {
+            write(store, "tenant", "doc-0", "doc 0 v" + version, new float[]{1, 0});
+            registry.indexDocument("tenant", "doc-0");
+
+            HnswVectorIndex graph = registry.index("tenant");
+            assertEquals(10, graph.size());
+            assertTrue(graph.tombstones() <= 0.3 * (graph.size() + graph.tombstones()),
+                    "tombstones: " + graph.tombstones());
+        }
+        assertEquals(List.of("doc 0 v49"), registry.search("tenant", new float[]{1, 0}, 1));
+    }
+
+    private VectorStoreService persistentStore() {
+        return new VectorStoreService(new SegmentFileStore(dataDir.toString(), new ObjectMapper()), QuantizationMode.NONE);
+    }
+
+    private static void write(VectorStoreService store, String namespace, String documentId, String content,
+                              float[] vector) {
+        VectorStoreService.DocumentWriter writer = store.openDocument(namespace, documentId);
+        writer.append(content, vector);
+        writer.commit();
+    }
+}
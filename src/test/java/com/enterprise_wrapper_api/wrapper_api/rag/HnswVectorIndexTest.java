@@ -0,0 +1,115 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswVectorIndexTest {
+
+    private static final int DIMENSION = 64;
+    private static final int CORPUS = 10_000;
+    private static final int QUERIES = 200;
+    private static final int TOP_K = 10;
+
+    /**
+     * Builds the index with concurrent inserters and checks recall against
+     * the exact brute-force store. Latency is measured by
+     * {@code HnswSearchBenchmark}.
+     */
+    @Test
+    void recallAgainstBruteForceStore() throws Exception {
+        Random random = new Random(7);
+        float[][] centroids = new float[100][];
+        for (int i = 0; i < centroids.length; i++) {
+            centroids[i] = gaussian(random, 1.0);
+        }
+        float[][] corpus = new float[CORPUS][];
+        for (int i = 0; i < CORPUS; i++) {
+            corpus[i] = around(centroids[random.nextInt(centroids.length)], random);
+        }
+        float[][] queries = new float[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = around(centroids[random.nextInt(centroids.length)], random);
+        }
+
+        VectorStoreService exact = new VectorStoreService();
+        VectorStoreService.DocumentWriter writer = exact.openDocument(VectorStoreService.DEFAULT_NAMESPACE, "corpus");
+        for (int i = 0; i < CORPUS; i++) {
+            writer.append("doc-" + i, corpus[i]);
+        }
+        writer.commit();
+
+        HnswVectorIndex index = new HnswVectorIndex(16, 200, 64);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            pool.submit(() -> {
+                for (int i = offset; i < CORPUS; i += 4) {
+                    index.save("doc-" + i, corpus[i], "doc-" + i);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+        assertEquals(CORPUS, index.size());
+
+        List<Set<String>> truth = new java.util.ArrayList<>();
+        for (float[] query : queries) {
+            truth.add(new HashSet<>(exact.search(query, TOP_K)));
+        }
+
+        // Recall only grows with the beam width
+        double previous = 0;
+        for (int ef : new int[]{16, 64, 128}) {
+            index.setEfSearch(ef);
+            int hits = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                for (String id : index.search(queries[q], TOP_K)) {
+                    if (truth.get(q).contains(id)) {
+                        hits++;
+                    }
+                }
+            }
+            double recall = hits / (double) (QUERIES * TOP_K);
+            assertTrue(recall >= previous - 0.01, "recall@10 fell to " + recall + " at efSearch=" + ef);
+            previous = recall;
+        }
+        assertTrue(previous >= 0.9, "recall@10 at efSearch=128 was " + previous);
+    }
+
+    @Test
+    void resavingAnIdReplacesItsText() {
+        HnswVectorIndex index = new HnswVectorIndex(8, 50, 32);
+        index.save("a", new float[]{1, 0, 0}, "old");
+        index.save("b", new float[]{0, 1, 0}, "other");
+        index.save("a", new float[]{1, 0.1f, 0}, "new");
+
+        assertEquals(2, index.size());
+        assertEquals(List.of("new", "other"), index.search(new float[]{1, 0, 0}, 5));
+    }
+
+    private static float[] gaussian(Random random, double scale) {
+        float[] v = new float[DIMENSION];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = (float) (random.nextGaussian() * scale);
+        }
+        return v;
+    }
+
+    private static float[] around(float[] centroid, Random random) {
+        float[] noise = gaussian(random, 0.8);
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] += centroid[i];
+        }
+        return noise;
+    }
+}
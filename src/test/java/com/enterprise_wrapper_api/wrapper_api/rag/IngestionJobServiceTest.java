@@ -0,0 +1,144 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionJobServiceTest {
+
+    private final VectorStoreService store = new VectorStoreService();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile Error failure;
+    private RagService ragService;
+    private IngestionJobService jobs;
+
+    @TempDir
+    Path spoolDir;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        jobs.shutdown();
+        ragService.shutdown();
+    }
+
+    @Test
+    void fullQueueRejectsAndFinishedJobsReportProgress() throws Exception {
+        // One worker and one queue slot: the first job runs, the second waits, the third is turned away
+        jobs = jobService(1, 1);
+
+        IngestionJobStatus first = jobs.submit(upload(), "ns", "a");
+        IngestionJobStatus second = jobs.submit(upload(), "ns", "b");
+        assertThrows(RejectedExecutionException.class, () -> jobs.submit(upload(), "ns", "c"));
+        assertEquals(IngestionJobStatus.State.QUEUED, second.state());
+
+        release.countDown();
+        IngestionJobStatus done = awaitFinished(first.jobId());
+        awaitFinished(second.jobId());
+
+        assertEquals(IngestionJobStatus.State.SUCCEEDED, done.state());
+        assertEquals(4, done.pagesDone());
+        assertEquals(4, done.pagesTotal());
+        assertEquals(40, done.chunksStored());
+        assertTrue(done.finishedAt() != null && done.runMillis() >= 0);
+        assertEquals(80, store.size("ns"));
+
+        // Spool files are removed once their job finishes
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+        assertNull(jobs.status("unknown"));
+    }
+
+    @Test
+    void errorsFailTheJobInsteadOfLeavingItRunning() throws Exception {
+        failure = new AssertionError("parser blew up");
+        jobs = jobService(1, 1);
+
+        IngestionJobStatus submitted = jobs.submit(upload(), "ns", "a");
+        release.countDown();
+        IngestionJobStatus done = awaitFinished(submitted.jobId());
+
+        assertEquals(IngestionJobStatus.State.FAILED, done.state());
+        assertEquals("parser blew up", done.error());
+    }
+
+    @Test
+    void shutdownFailsQueuedJobsAndDeletesTheirSpoolFiles() {
+        jobs = jobService(1, 1);
+
+        jobs.submit(upload(), "ns", "a");
+        IngestionJobStatus queued = jobs.submit(upload(), "ns", "b");
+        jobs.shutdown();
+
+        IngestionJobStatus status = jobs.status(queued.jobId());
+        assertEquals(IngestionJobStatus.State.FAILED, status.state());
+        assertTrue(status.finishedAt() != null);
+        assertFalse(Files.exists(spoolDir.resolve(queued.jobId() + ".pdf")));
+    }
+
+    private IngestionJobStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            IngestionJobStatus status = jobs.status(jobId);
+            if (status.finishedAt() != null) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("job " + jobId + " did not finish");
+    }
+
+    private IngestionJobService jobService(int workers, int queueCapacity) {
+        // Four "pages" of ten chunks each; the first job holds its worker until released
+        PdfService pdfService = new PdfService(8) {
+            @Override
+            public int streamChunks(InputStreamSource file, PdfService.ChunkSink sink, IngestProgress progress) {
+                awaitRelease();
+                if (failure != null) {
+                    throw failure;
+                }
+                for (int page = 1; page <= 4; page++) {
+                    for (int i = 0; i < 10; i++) {
+                        sink.accept("page " + page + " chunk " + i, page);
+                    }
+                    progress.pagesExtracted(page, 4);
+                }
+                return 40;
+            }
+        };
+        ragService = new RagService(pdfService, new EmbeddingService(), store, new HnswIndexRegistry(store, 8, 50, 32, 0.3),
+                false, 7, 2, meterRegistry);
+        return new IngestionJobService(ragService, workers, queueCapacity, spoolDir.toString(),
+                Duration.ofHours(1), meterRegistry);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MockMultipartFile upload() {
+        return new MockMultipartFile("file", "doc.pdf", "application/pdf", new byte[]{1, 2, 3});
+    }
+}
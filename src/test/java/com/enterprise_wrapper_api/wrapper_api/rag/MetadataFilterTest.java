@@ -0,0 +1,40 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetadataFilterTest {
+
+    @Test
+    void parsesAndIntersectsClauses() {
+        MetadataFilter filter = MetadataFilter.parse(
+                "document in (q3-report, 'q4-report') AND page >= 2 and page < 10 and document = q4-report"
+                        + " and uploaded >= 2025-01-01 and uploaded <= 2025-06-30T12:00:00Z");
+
+        assertEquals(Set.of("q4-report"), filter.documentIds());
+        assertEquals(2, filter.minPage());
+        assertEquals(9, filter.maxPage());
+        assertEquals(Instant.parse("2025-01-01T00:00:00Z").toEpochMilli(), filter.uploadedFrom());
+        assertEquals(Instant.parse("2025-06-30T12:00:00Z").toEpochMilli(), filter.uploadedTo());
+    }
+
+    @Test
+    void blankExpressionsMatchEverything() {
+        assertTrue(MetadataFilter.parse(null).matchesEverything());
+        assertTrue(MetadataFilter.parse("  ").matchesEverything());
+    }
+
+    @Test
+    void rejectsUnsupportedClauses() {
+        assertThrows(IllegalArgumentException.class, () -> MetadataFilter.parse("tenant = acme"));
+        assertThrows(IllegalArgumentException.class, () -> MetadataFilter.parse("page in (1, 2)"));
+        assertThrows(IllegalArgumentException.class, () -> MetadataFilter.parse("document > a"));
+        assertThrows(IllegalArgumentException.class, () -> MetadataFilter.parse("uploaded >= yesterday"));
+    }
+}
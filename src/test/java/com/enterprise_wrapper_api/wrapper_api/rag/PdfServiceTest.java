@@ -0,0 +1,92 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import com.enterprise_wrapper_api.wrapper_api.extract.DocumentExtractionException;
+import com.enterprise_wrapper_api.wrapper_api.extract.DocumentExtractor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfServiceTest {
+
+    @Test
+    void streamedChunksMatchWholeDocumentChunking() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "doc.pdf", "application/pdf", pdf(23));
+        PdfService pdfService = new PdfService(3);
+
+        List<String> streamed = new ArrayList<>();
+        int count = pdfService.streamChunks(file, streamed::add);
+
+        List<String> whole = pdfService.chunkText(pdfService.extractText(file));
+        assertEquals(whole, streamed);
+        assertEquals(whole.size(), count);
+        assertTrue(count > 23);
+    }
+
+    @Test
+    void chunksCarryThePageTheyStartOn() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "doc.pdf", "application/pdf", pdf(5));
+        PdfService pdfService = new PdfService(2);
+
+        List<String> chunks = new ArrayList<>();
+        List<Integer> pages = new ArrayList<>();
+        pdfService.streamChunks(file, (chunk, page) -> {
+            chunks.add(chunk);
+            pages.add(page);
+        }, IngestProgress.NONE);
+
+        assertEquals(1, pages.get(0));
+        assertEquals(5, pages.get(pages.size() - 1));
+        for (int i = 0; i < chunks.size(); i++) {
+            assertTrue(i == 0 || pages.get(i) >= pages.get(i - 1));
+            // Each page's text names its zero-based page number
+            assertTrue(chunks.get(i).contains("Page " + (pages.get(i) - 1)), chunks.get(i));
+        }
+    }
+
+    @Test
+    void parsingRunsOutOfTimeOnTheExtractorPool() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "doc.pdf", "application/pdf", pdf(5));
+        DocumentExtractor extractor = new DocumentExtractor(false, 0, null, 1, 1, Duration.ofNanos(1), 1000);
+        PdfService pdfService = new PdfService(2, new TextChunkService(), extractor, new SimpleMeterRegistry());
+
+        List<String> chunks = new ArrayList<>();
+        assertThrows(DocumentExtractionException.class, () -> pdfService.streamChunks(file, chunks::add));
+        assertTrue(chunks.isEmpty());
+    }
+
+    private static byte[] pdf(int pages) throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 9);
+                    content.setLeading(11);
+                    content.newLineAtOffset(40, 740);
+                    for (int line = 0; line < 12; line++) {
+                        content.showText("Page " + p + " line " + line + " of the quarterly revenue report for the RAG pipeline.");
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PineconeClientTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PineconeStubServer pinecone;
+    private PineconeClient client;
+
+    @AfterEach
+    void stop() {
+        client.close();
+        pinecone.close();
+    }
+
+    @Test
+    void concurrentSavesAreBatchedWithBoundedInFlightUpserts() throws Exception {
+        pinecone = new PineconeStubServer().latency(30);
+        client = client(10, Duration.ofSeconds(10), 2);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < 24; i++) {
+                        client.save("t" + thread + "-" + i, new float[]{thread, i}, "chunk " + i);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        client.flush();
+
+        assertEquals(96, pinecone.vectorCount(""));
+        // Nine full batches and the six left over, sent by flush
+        assertEquals(10, pinecone.batchSizes().size());
+        assertEquals(6, pinecone.batchSizes().stream().mapToInt(Integer::intValue).min().orElseThrow());
+        assertTrue(pinecone.maxConcurrentRequests() <= 2, "in-flight upserts: " + pinecone.maxConcurrentRequests());
+    }
+
+    @Test
+    void partialBatchIsSentOnceItsDelayExpires() throws Exception {
+        pinecone = new PineconeStubServer();
+        client = client(100, Duration.ofMillis(50), 4);
+
+        client.save("a", new float[]{1, 0}, "first");
+        client.save("b", new float[]{0, 1}, "second");
+
+        for (int i = 0; i < 200 && pinecone.vectorCount("") < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(2), pinecone.batchSizes());
+    }
+
+    @Test
+    void expiredBatchesQueueForAPermitInsteadOfBlockingTheTimer() throws Exception {
+        pinecone = new PineconeStubServer().latency(200);
+        client = client(100, Duration.ofMillis(20), 1);
+
+        client.save("tenant-a", "a", new float[]{1, 0}, "a");
+        client.save("tenant-b", "b", new float[]{0, 1}, "b");
+        client.save("tenant-c", "c", new float[]{1, 1}, "c");
+
+        // All three timers fire while the first upsert holds the only permit; the rest follow it one by one
+        for (int i = 0; i < 200 && pinecone.vectorCount("tenant-c") < 1; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, pinecone.vectorCount("tenant-a"));
+        assertEquals(1, pinecone.vectorCount("tenant-b"));
+        assertEquals(1, pinecone.vectorCount("tenant-c"));
+        assertEquals(1, pinecone.maxConcurrentRequests());
+    }
+
+    @Test
+    void flushSendsBatchesStillWaitingForAPermit() throws Exception {
+        pinecone = new PineconeStubServer().latency(200);
+        client = client(100, Duration.ofMillis(10), 1);
+
+        client.save("tenant-a", "a", new float[]{1, 0}, "a");
+        client.save("tenant-b", "b", new float[]{0, 1}, "b");
+        Thread.sleep(100);
+        client.flush();
+
+        assertEquals(1, pinecone.vectorCount("tenant-a"));
+        assertEquals(1, pinecone.vectorCount("tenant-b"));
+    }
+
+    @Test
+    void throttledUpsertsAreRetriedWithBackoff() throws IOException {
+        pinecone = new PineconeStubServer().reject(2, 429);
+        client = client(10, Duration.ofSeconds(10), 4);
+
+        client.save("a", new float[]{1, 0}, "first");
+        client.flush();
+
+        assertEquals(1, pinecone.vectorCount(""));
+        assertEquals(2, meterRegistry.get("pinecone.throttled").counter().count());
+    }
+
+    @Test
+    void failedUpsertsAreCountedAndReportedByFlush() throws IOException {
+        pinecone = new PineconeStubServer().reject(1, 500);
+        client = client(10, Duration.ofSeconds(10), 4);
+
+        client.save("a", new float[]{1, 0}, "first");
+        client.save("b", new float[]{0, 1}, "second");
+
+        assertThrows(IllegalStateException.class, client::flush);
+        assertEquals(2, meterRegistry.get("pinecone.upsert.failed.vectors").counter().count());
+        // The failure is reported once
+        client.flush();
+    }
+
+    @Test
+    void closeLogsInsteadOfThrowingWhenTheLastUpsertFails() throws IOException {
+        pinecone = new PineconeStubServer().reject(1, 500);
+        client = client(10, Duration.ofSeconds(10), 4);
+
+        client.save("a", new float[]{1, 0}, "first");
+
+        assertDoesNotThrow(client::close);
+        assertEquals(1, meterRegistry.get("pinecone.upsert.failed.vectors").counter().count());
+    }
+
+    @Test
+    void searchMergesMatchesFromEveryNamespace() throws IOException {
+        pinecone = new PineconeStubServer();
+        client = client(10, Duration.ofSeconds(10), 4);
+        client.save("tenant-a", "a1", new float[]{1, 0}, "a close");
+        client.save("tenant-a", "a2", new float[]{0, 1}, "a far");
+        client.save("tenant-b", "b1", new float[]{0.9f, 0.1f}, "b close");
+        client.flush();
+
+        assertEquals(List.of("a close", "b close"),
+                client.search(List.of("tenant-a", "tenant-b"), new float[]{1, 0}, 2));
+        assertEquals(List.of("a close"), client.search(List.of("tenant-a"), new float[]{1, 0}, 1));
+    }
+
+    private PineconeClient client(int batchSize, Duration maxDelay, int maxInFlight) {
+        return new PineconeClient(WebClient.builder(), pinecone.url(), "key", "", batchSize, maxDelay,
+                maxInFlight, 8, 3, Duration.ofMillis(10), meterRegistry);
+    }
+}
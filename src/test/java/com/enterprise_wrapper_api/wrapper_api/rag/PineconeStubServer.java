@@ -0,0 +1,169 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for a Pinecone index: {@code /vectors/upsert} stores
+ * vectors per namespace and {@code /query} ranks them by dot product.
+ * Records the size of every upsert and the most requests it served at once,
+ * and can add latency or answer the first requests with 429 or 500.
+ */
+final class PineconeStubServer implements AutoCloseable {
+
+    static {
+        // Otherwise Nagle's algorithm holds each small response back ~40 ms for the client's ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private record Stored(float[] values, String text) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Map<String, Stored>> namespaces = new ConcurrentHashMap<>();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicInteger rejectionsLeft = new AtomicInteger();
+    private volatile int rejectionStatus = 429;
+    private volatile long latencyMillis;
+
+    PineconeStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/vectors/upsert", exchange -> handle(exchange, this::upsert));
+        server.createContext("/query", exchange -> handle(exchange, this::query));
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    // Delay before every response
+    PineconeStubServer latency(long millis) {
+        this.latencyMillis = millis;
+        return this;
+    }
+
+    // Answers the next count requests with status instead of serving them
+    PineconeStubServer reject(int count, int status) {
+        this.rejectionStatus = status;
+        this.rejectionsLeft.set(count);
+        return this;
+    }
+
+    List<Integer> batchSizes() {
+        return List.copyOf(batchSizes);
+    }
+
+    int vectorCount(String namespace) {
+        return namespaces.getOrDefault(namespace, Map.of()).size();
+    }
+
+    int maxConcurrentRequests() {
+        return maxActive.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // =============================
+    // PRIVATE HELPERS
+    // =============================
+
+    private interface Endpoint {
+        String respond(JsonNode request);
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        int now = active.incrementAndGet();
+        maxActive.accumulateAndGet(now, Math::max);
+        try {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (rejectionsLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                reply(exchange, rejectionStatus, "{\"message\":\"rejected by stub\"}");
+                return;
+            }
+            reply(exchange, 200, endpoint.respond(request));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private String upsert(JsonNode request) {
+        Map<String, Stored> stored = namespaces.computeIfAbsent(request.path("namespace").asText(""),
+                ns -> new ConcurrentHashMap<>());
+        JsonNode vectors = request.path("vectors");
+        for (JsonNode vector : vectors) {
+            stored.put(vector.path("id").asText(),
+                    new Stored(floats(vector.path("values")), vector.path("metadata").path("text").asText()));
+        }
+        batchSizes.add(vectors.size());
+        return "{\"upsertedCount\":" + vectors.size() + "}";
+    }
+
+    private String query(JsonNode request) {
+        float[] query = floats(request.path("vector"));
+        List<Map<String, Object>> matches = new ArrayList<>();
+        namespaces.getOrDefault(request.path("namespace").asText(""), Map.of()).forEach((id, stored) ->
+                matches.add(Map.of("id", id, "score", dot(query, stored.values()),
+                        "metadata", Map.of("text", stored.text()))));
+        matches.sort(Comparator.comparingDouble(match -> -(double) match.get("score")));
+        try {
+            return objectMapper.writeValueAsString(
+                    Map.of("matches", matches.subList(0, Math.min(request.path("topK").asInt(), matches.size()))));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static float[] floats(JsonNode array) {
+        float[] values = new float[array.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (float) array.get(i).asDouble();
+        }
+        return values;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static void reply(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+}
@@ -0,0 +1,127 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantizedSearchTest {
+
+    private static final int DIMENSION = 128;
+    private static final int CORPUS = 6_000;
+    private static final int QUERIES = 100;
+    private static final int TOP_K = 10;
+
+    /**
+     * Recall@10 and code size per vector (PQ codebooks included) for each
+     * mode against exact full-precision search over the same data. Latency
+     * is measured by {@code QuantizedSearchBenchmark}.
+     */
+    @Test
+    void recallAndFootprintAgainstFullPrecision() {
+        Random random = new Random(11);
+        float[][] centroids = new float[50][];
+        for (int i = 0; i < centroids.length; i++) {
+            centroids[i] = gaussian(random, 1.0);
+        }
+        float[][] corpus = new float[CORPUS][];
+        for (int i = 0; i < CORPUS; i++) {
+            corpus[i] = around(centroids[random.nextInt(centroids.length)], random);
+        }
+        float[][] queries = new float[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = around(centroids[random.nextInt(centroids.length)], random);
+        }
+
+        VectorStoreService exact = build(QuantizationMode.NONE, 1, corpus);
+        List<Set<String>> truth = new java.util.ArrayList<>();
+        for (float[] query : queries) {
+            truth.add(new HashSet<>(exact.search(query, TOP_K)));
+        }
+
+        Object[][] configurations = {
+                {QuantizationMode.INT8, 4, 0.98, DIMENSION + Float.BYTES},
+                {QuantizationMode.PQ, 4, 0.85, 80},
+                {QuantizationMode.PQ, 16, 0.98, 80},
+        };
+        for (Object[] configuration : configurations) {
+            QuantizationMode mode = (QuantizationMode) configuration[0];
+            int rerankFactor = (int) configuration[1];
+            VectorStoreService store = build(mode, rerankFactor, corpus);
+            int hits = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                for (String found : store.search(queries[q], TOP_K)) {
+                    if (truth.get(q).contains(found)) {
+                        hits++;
+                    }
+                }
+            }
+            double recall = hits / (double) (QUERIES * TOP_K);
+            long codeBytes = store.stats().codeBytes() / CORPUS;
+            assertTrue(recall >= (double) configuration[2], mode + " x" + rerankFactor + " recall was " + recall);
+            assertTrue(codeBytes <= (int) configuration[3], mode + " codes were " + codeBytes + " bytes/vector");
+        }
+    }
+
+    @Test
+    void smallSegmentsStillRankExactly() {
+        for (QuantizationMode mode : QuantizationMode.values()) {
+            VectorStoreService store = new VectorStoreService(new SegmentFileStore(null, null), mode);
+            VectorStoreService.DocumentWriter writer = store.openDocument("ns", "doc");
+            writer.append("x", new float[]{1, 0, 0, 0});
+            writer.append("y", new float[]{0, 1, 0, 0});
+            writer.append("z", new float[]{0, 0, 1, 1});
+            writer.commit();
+
+            assertEquals(List.of("z", "y"), store.search("ns", new float[]{0, 0.4f, 1, 1}, 2), mode.name());
+        }
+    }
+
+    @Test
+    void pqFallsBackToInt8WhenTheCodebookWouldNotPayOff() {
+        Random random = new Random(3);
+        VectorSlab slab = new VectorSlab(DIMENSION);
+        for (int i = 0; i < 500; i++) {
+            slab.append(gaussian(random, 1.0));
+        }
+
+        QuantizedCodes codes = QuantizedCodes.encode(QuantizationMode.PQ, slab, DIMENSION / 8);
+
+        assertTrue(codes instanceof Int8Codes, codes.getClass().getSimpleName());
+        assertEquals(Int8Codes.bytes(500, DIMENSION), codes.buffer().capacity());
+        assertTrue(ProductQuantizedCodes.bytes(500, DIMENSION, DIMENSION / 8) > codes.buffer().capacity());
+    }
+
+    private static VectorStoreService build(QuantizationMode mode, int rerankFactor, float[][] corpus) {
+        VectorStoreService store = new VectorStoreService(
+                new SegmentFileStore(null, null), mode.name(), rerankFactor, DIMENSION / 8, 100, 1, 1);
+        VectorStoreService.DocumentWriter writer = store.openDocument(VectorStoreService.DEFAULT_NAMESPACE, "corpus");
+        for (int i = 0; i < corpus.length; i++) {
+            writer.append("doc-" + i, corpus[i]);
+        }
+        writer.commit();
+        return store;
+    }
+
+
+    private static float[] gaussian(Random random, double scale) {
+        float[] v = new float[DIMENSION];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = (float) (random.nextGaussian() * scale);
+        }
+        return v;
+    }
+
+    private static float[] around(float[] centroid, Random random) {
+        float[] noise = gaussian(random, 0.8);
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] += centroid[i];
+        }
+        return noise;
+    }
+}
@@ -0,0 +1,90 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RagServiceTest {
+
+    private final VectorStoreService store = new VectorStoreService();
+    private final HnswIndexRegistry hnswIndexes = new HnswIndexRegistry(store, 8, 50, 32, 0.3);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RagService ragService;
+
+    @AfterEach
+    void shutdown() {
+        if (ragService != null) {
+            ragService.shutdown();
+        }
+    }
+
+    @Test
+    void parallelBatchesStoreEveryChunk() {
+        List<String> chunks = java.util.stream.IntStream.range(0, 1000).mapToObj(i -> "chunk " + i).toList();
+        ragService = ragService(chunks, new EmbeddingService());
+
+        assertEquals(1000, ragService.processPdf(upload(), "ns", "doc"));
+        assertEquals(1000, store.size("ns"));
+        assertEquals(List.of("chunk 42"), store.search("ns", new EmbeddingService().embed("chunk 42"), 1));
+
+        assertEquals(1, meterRegistry.get("rag.ingest").tag("outcome", "success").timer().count());
+        assertEquals(1000, meterRegistry.get("rag.ingest.chunks").counter().count());
+        assertEquals(1, meterRegistry.get("rag.ingest.stage").tag("stage", "embed").timer().count());
+    }
+
+    @Test
+    void failedBatchLeavesPreviousVersionInPlace() {
+        ragService = ragService(List.of("v1"), new EmbeddingService());
+        ragService.processPdf(upload(), "ns", "doc");
+
+        EmbeddingService failing = new EmbeddingService() {
+            @Override
+            public float[][] embedBatch(List<String> texts) {
+                throw new IllegalStateException("embedding backend down");
+            }
+        };
+        ragService.shutdown();
+        ragService = ragService(List.of("v2-a", "v2-b"), failing);
+
+        assertThrows(IllegalStateException.class, () -> ragService.processPdf(upload(), "ns", "doc"));
+        assertEquals(List.of("v1"), store.search("ns", new EmbeddingService().embed("v1"), 5));
+        assertEquals(List.of("v1"), hnswIndexes.search("ns", new EmbeddingService().embed("v1"), 5));
+    }
+
+    @Test
+    void reuploadReplacesTheDocumentInTheGraph() {
+        ragService = ragService(List.of("v1-a", "v1-b"), new EmbeddingService());
+        ragService.processPdf(upload(), "ns", "report#2024");
+        ragService.shutdown();
+        ragService = ragService(List.of("v2"), new EmbeddingService());
+        ragService.processPdf(upload(), "ns", "report#2024");
+
+        assertEquals(List.of(new RetrievedChunk("report#2024", "v2")),
+                hnswIndexes.searchChunks("ns", new EmbeddingService().embed("v1-a"), 5));
+
+        ragService.deleteDocument("ns", "report#2024");
+        assertEquals(List.of(), hnswIndexes.search("ns", new EmbeddingService().embed("v2"), 5));
+    }
+
+    private RagService ragService(List<String> chunks, EmbeddingService embeddingService) {
+        PdfService pdfService = new PdfService(8) {
+            @Override
+            public int streamChunks(InputStreamSource file, PdfService.ChunkSink sink, IngestProgress progress) {
+                chunks.forEach(chunk -> sink.accept(chunk, 1));
+                return chunks.size();
+            }
+        };
+        return new RagService(pdfService, embeddingService, store, hnswIndexes, true, 7, 4, meterRegistry);
+    }
+
+    private static MockMultipartFile upload() {
+        return new MockMultipartFile("file", "doc.pdf", "application/pdf", new byte[0]);
+    }
+}
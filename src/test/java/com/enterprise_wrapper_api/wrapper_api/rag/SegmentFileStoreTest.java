@@ -0,0 +1,89 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentFileStoreTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void committedSegmentsSurviveRestart() {
+        VectorStoreService store = open();
+        VectorStoreService.DocumentWriter writer = store.openDocument("tenant", "doc-1");
+        writer.append("first chunk", 1, new float[]{1, 0, 0});
+        writer.append("second chunk — ünïcode", 2, new float[]{0, 1, 0});
+        writer.commit();
+        VectorStoreService.DocumentWriter other = store.openDocument("tenant", "doc-2");
+        other.append("third chunk", new float[]{0, 0, 1});
+        other.commit();
+
+        VectorStoreService reopened = open();
+
+        assertEquals(3, reopened.size("tenant"));
+        assertEquals(List.of("second chunk — ünïcode", "first chunk"),
+                reopened.search("tenant", new float[]{0.2f, 0.9f, 0}, 2));
+        // The lexical index is rebuilt from the mapped text
+        assertEquals("third chunk", reopened.searchHybrid("tenant", "third", new float[]{1, 0, 0}, 1).get(0));
+        // So are the page bitmaps, from the persisted page column
+        assertEquals(List.of(new RetrievedChunk("doc-1", "second chunk — ünïcode")),
+                reopened.searchChunks("tenant", new float[]{1, 0, 0}, 5, MetadataFilter.parse("page = 2")));
+        // And the query weighting statistics, from the mapped vectors
+        assertEquals(3, reopened.dimensionFrequencies("tenant").rows());
+        assertArrayEquals(new int[]{1, 1, 1}, reopened.dimensionFrequencies("tenant").nonZeroRows());
+    }
+
+    @Test
+    void replacedAndDeletedDocumentsReleaseTheirFiles() throws IOException {
+        VectorStoreService store = open();
+        for (int version = 0; version < 3; version++) {
+            VectorStoreService.DocumentWriter writer = store.openDocument("tenant", "doc");
+            writer.append("v" + version, new float[]{1, 0});
+            writer.commit();
+        }
+        assertEquals(3, segmentFiles());
+        assertEquals(List.of("v2"), open().search("tenant", new float[]{1, 0}, 5));
+
+        assertTrue(store.deleteDocument("tenant", "doc"));
+        assertEquals(0, segmentFiles());
+        assertTrue(open().search("tenant", new float[]{1, 0}, 5).isEmpty());
+    }
+
+    @Test
+    void quantizedCodesAreMappedOnRestart() throws IOException {
+        VectorStoreService store = open(QuantizationMode.INT8);
+        VectorStoreService.DocumentWriter writer = store.openDocument("tenant", "doc");
+        writer.append("left", new float[]{1, 0.1f});
+        writer.append("right", new float[]{0.1f, 1});
+        writer.commit();
+        assertEquals(4, segmentFiles());
+
+        assertEquals(List.of("right", "left"), open(QuantizationMode.INT8).search("tenant", new float[]{0, 1}, 2));
+    }
+
+    private VectorStoreService open() {
+        return open(QuantizationMode.NONE);
+    }
+
+    private VectorStoreService open(QuantizationMode quantization) {
+        return new VectorStoreService(new SegmentFileStore(dataDir.toString(), new ObjectMapper()), quantization);
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dataDir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("seg-")).count();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextChunkerTest {
+
+    private static final String[] WORDS = {"revenue", "grew", "in", "the", "third", "quarter", "while",
+            "operating", "costs", "fell", "sharply", "across", "all", "regions", "supercalifragilistic"};
+
+    @Test
+    void chunksEndAtSentencesAndOverlapOnWordBoundaries() {
+        String text = "First sentence is here. Second one follows it. Third sentence closes the paragraph.";
+        List<String> chunks = new ArrayList<>();
+        new TextChunker(50, 20).chunk(text, (t, start, end, offset) -> chunks.add(t.subSequence(start, end).toString()));
+
+        assertEquals(List.of(
+                "First sentence is here. Second one follows it.",
+                "one follows it. Third sentence closes the",
+                "sentence closes the paragraph."), chunks);
+    }
+
+    @Test
+    void fedPiecesProduceTheSameSpansAsTheWholeText() {
+        Random random = new Random(3);
+        String text = randomText(random, 200_000);
+        TextChunker chunker = new TextChunker(800, 100);
+
+        List<long[]> whole = new ArrayList<>();
+        chunker.chunk(text, (t, start, end, offset) -> whole.add(new long[]{offset, offset + end - start}));
+
+        List<long[]> fed = new ArrayList<>();
+        List<String> fedText = new ArrayList<>();
+        TextChunker.Feed feed = chunker.feed((t, start, end, offset) -> {
+            fed.add(new long[]{offset, offset + end - start});
+            fedText.add(t.subSequence(start, end).toString());
+        });
+        for (int from = 0; from < text.length(); ) {
+            int to = Math.min(text.length(), from + 1 + random.nextInt(3000));
+            feed.append(text.substring(from, to));
+            from = to;
+        }
+        assertEquals(whole.size(), feed.finish());
+
+        for (int i = 0; i < whole.size(); i++) {
+            assertEquals(whole.get(i)[0], fed.get(i)[0], "start of chunk " + i);
+            assertEquals(whole.get(i)[1], fed.get(i)[1], "end of chunk " + i);
+            assertEquals(text.substring((int) whole.get(i)[0], (int) whole.get(i)[1]), fedText.get(i));
+            assertTrue(whole.get(i)[1] - whole.get(i)[0] <= 800);
+        }
+        // Consecutive chunks overlap, and together they cover the text
+        assertEquals(0, whole.get(0)[0]);
+        for (int i = 1; i < whole.size(); i++) {
+            assertTrue(whole.get(i)[0] < whole.get(i - 1)[1], "chunk " + i + " does not overlap its predecessor");
+        }
+        assertEquals(text.strip().length(), whole.get(whole.size() - 1)[1]);
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 32);
+        while (text.length() < length) {
+            int words = 4 + random.nextInt(20);
+            for (int w = 0; w < words; w++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(w == words - 1 ? "." : " ");
+            }
+            text.append(random.nextInt(10) == 0 ? "\n\n" : " ");
+        }
+        return text.toString();
+    }
+}
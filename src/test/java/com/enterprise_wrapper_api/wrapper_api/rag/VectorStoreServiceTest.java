@@ -0,0 +1,318 @@
+package com.enterprise_wrapper_api.wrapper_api.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorStoreServiceTest {
+
+    private static final int DIMENSION = 32;
+    private static final String NS = VectorStoreService.DEFAULT_NAMESPACE;
+
+    @Test
+    void searchMatchesExhaustiveCosineRanking() {
+        Random random = new Random(42);
+        float[][] vectors = new float[5000][];
+        VectorStoreService store = new VectorStoreService();
+        // Two documents so the search spans several segments
+        VectorStoreService.DocumentWriter first = store.openDocument(NS, "first");
+        VectorStoreService.DocumentWriter second = store.openDocument(NS, "second");
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+            (i % 3 == 0 ? first : second).append("chunk-" + i, vectors[i]);
+        }
+        first.commit();
+        second.commit();
+        float[] query = randomVector(random);
+
+        List<String> expected = IntStream.range(0, vectors.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> -cosine(query, vectors[i])))
+                .limit(10)
+                .map(i -> "chunk-" + i)
+                .toList();
+
+        assertEquals(expected, store.search(query, 10));
+    }
+
+    @Test
+    void sparseQueryRanksLikeTheDenseScan() {
+        Random random = new Random(7);
+        float[][] vectors = new float[2000][];
+        VectorStoreService store = new VectorStoreService();
+        VectorStoreService.DocumentWriter writer = store.openDocument(NS, "doc");
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+            writer.append("chunk-" + i, vectors[i]);
+        }
+        writer.commit();
+
+        // Four non-zero entries out of 32 takes the sparse path
+        float[] query = new float[DIMENSION];
+        for (int i = 0; i < 4; i++) {
+            query[random.nextInt(DIMENSION)] = random.nextFloat() - 0.5f;
+        }
+        List<String> expected = IntStream.range(0, vectors.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> -cosine(query, vectors[i])))
+                .limit(10)
+                .map(i -> "chunk-" + i)
+                .toList();
+
+        assertEquals(expected, store.search(query, 10));
+    }
+
+    @Test
+    void searchReturnsEverythingWhenTopKExceedsSize() {
+        VectorStoreService store = new VectorStoreService();
+        VectorStoreService.DocumentWriter writer = store.openDocument(NS, "doc");
+        writer.append("a", new float[]{1, 0});
+        writer.append("b", new float[]{0, 1});
+        assertTrue(store.search(new float[]{1, 0}, 3).isEmpty());
+
+        writer.commit();
+        assertEquals(List.of("b", "a"), store.search(new float[]{0.1f, 0.9f}, 5));
+    }
+
+    @Test
+    void rejectsMismatchedDimensions() {
+        VectorStoreService store = new VectorStoreService();
+        VectorStoreService.DocumentWriter writer = store.openDocument(NS, "doc");
+        writer.append("a", new float[]{1, 0});
+        writer.commit();
+
+        assertThrows(IllegalStateException.class, () -> writer.append("b", new float[]{1, 0}));
+        VectorStoreService.DocumentWriter other = store.openDocument(NS, "other");
+        other.append("b", new float[]{1, 0, 0});
+        assertThrows(IllegalArgumentException.class, other::commit);
+        assertThrows(IllegalArgumentException.class, () -> store.search(new float[]{1}, 1));
+    }
+
+    @Test
+    void namespacesAndDocumentsAreIsolated() {
+        VectorStoreService store = new VectorStoreService();
+        write(store, "tenant-a", "doc-1", "a1");
+        write(store, "tenant-a", "doc-2", "a2");
+        write(store, "tenant-b", "doc-1", "b1");
+
+        assertEquals(List.of("a1", "a2"), sorted(store.search("tenant-a", new float[]{1, 0}, 5)));
+        assertEquals(List.of("b1"), store.search("tenant-b", new float[]{1, 0}, 5));
+
+        // Re-upload replaces, delete removes only the named document
+        write(store, "tenant-a", "doc-1", "a1-v2");
+        assertEquals(List.of("a1-v2", "a2"), sorted(store.search("tenant-a", new float[]{1, 0}, 5)));
+        assertTrue(store.deleteDocument("tenant-a", "doc-2"));
+        assertFalse(store.deleteDocument("tenant-a", "doc-2"));
+        assertEquals(List.of("a1-v2"), store.search("tenant-a", new float[]{1, 0}, 5));
+        assertEquals(List.of("b1"), store.search("tenant-b", new float[]{1, 0}, 5));
+
+        assertTrue(store.deleteNamespace("tenant-b"));
+        assertTrue(store.search("tenant-b", new float[]{1, 0}, 5).isEmpty());
+    }
+
+    @Test
+    void dimensionFrequenciesFollowTheCommittedRows() {
+        VectorStoreService store = new VectorStoreService();
+        writeVector(store, "tenant-a", "doc-1", new float[]{1, 0, 0});
+        writeVector(store, "tenant-a", "doc-2", new float[]{1, 1, 0});
+        writeVector(store, "tenant-b", "doc-1", new float[]{0, 0, 1});
+
+        assertFrequencies(2, new int[]{2, 1, 0}, store.dimensionFrequencies("tenant-a"));
+        assertFrequencies(1, new int[]{0, 0, 1}, store.dimensionFrequencies("tenant-b"));
+
+        // Re-uploads and deletes take the old rows back out
+        writeVector(store, "tenant-a", "doc-2", new float[]{0, 1, 1});
+        assertFrequencies(2, new int[]{1, 1, 1}, store.dimensionFrequencies("tenant-a"));
+        assertTrue(store.deleteDocument("tenant-a", "doc-1"));
+        assertFrequencies(1, new int[]{0, 1, 1}, store.dimensionFrequencies("tenant-a"));
+        assertEquals(0, store.dimensionFrequencies("missing").rows());
+    }
+
+    @Test
+    void concurrentUploadsAndSearchesDoNotInterfere() throws Exception {
+        VectorStoreService store = new VectorStoreService();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            String namespace = "tenant-" + (t % 4);
+            String document = "doc-" + t;
+            futures.add(pool.submit(() -> {
+                Random random = new Random(document.hashCode());
+                for (int round = 0; round < 20; round++) {
+                    VectorStoreService.DocumentWriter writer = store.openDocument(namespace, document);
+                    for (int i = 0; i < 200; i++) {
+                        writer.append(document, randomVector(random));
+                    }
+                    writer.commit();
+                    store.search(namespace, randomVector(random), 5);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        for (int n = 0; n < 4; n++) {
+            assertEquals(400, store.size("tenant-" + n));
+        }
+    }
+
+    @Test
+    void hybridSearchSurfacesExactTermMatchesTheEmbeddingMisses() {
+        Random random = new Random(11);
+        VectorStoreService store = new VectorStoreService();
+        VectorStoreService.DocumentWriter writer = store.openDocument(NS, "contracts");
+        for (int i = 0; i < 2000; i++) {
+            writer.append("Clause " + i + " covers payment terms and delivery schedules.", randomVector(random));
+        }
+        writer.append("Invoice INV-7781 was disputed by the customer.", randomVector(random));
+        writer.append("Invoice INV-7781 was settled in March.", randomVector(random));
+        writer.commit();
+        float[] query = randomVector(random);
+
+        List<String> hybrid = store.searchHybrid(NS, "What happened to invoice INV-7781?", query, 2);
+
+        assertEquals(List.of("Invoice INV-7781 was disputed by the customer.",
+                "Invoice INV-7781 was settled in March."), sorted(hybrid));
+        assertFalse(store.search(NS, query, 2).stream().anyMatch(chunk -> chunk.contains("7781")));
+
+        // No lexical hits at all: the vector ranking fills the answer
+        assertEquals(store.search(NS, query, 3), store.searchHybrid(NS, "zebra", query, 3));
+    }
+
+    @Test
+    void filteredSearchScoresOnlyMatchingRows() {
+        Random random = new Random(5);
+        float[][] vectors = new float[3000][];
+        int[] pages = new int[vectors.length];
+        VectorStoreService store = new VectorStoreService();
+        VectorStoreService.DocumentWriter first = store.openDocument(NS, "first");
+        VectorStoreService.DocumentWriter second = store.openDocument(NS, "second");
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+            pages[i] = i / 2 % 10 + 1;
+            (i % 2 == 0 ? first : second).append("chunk-" + i, pages[i], vectors[i]);
+        }
+        first.commit();
+        second.commit();
+        float[] query = randomVector(random);
+
+        MetadataFilter filter = MetadataFilter.parse("document = first and page >= 3 and page <= 4");
+        List<String> expected = IntStream.range(0, vectors.length)
+                .filter(i -> i % 2 == 0 && pages[i] >= 3 && pages[i] <= 4)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> -cosine(query, vectors[i])))
+                .limit(10)
+                .map(i -> "chunk-" + i)
+                .toList();
+
+        List<RetrievedChunk> filtered = store.searchChunks(NS, query, 10, filter);
+        assertEquals(expected, filtered.stream().map(RetrievedChunk::text).toList());
+        assertTrue(filtered.stream().allMatch(chunk -> chunk.documentId().equals("first")));
+        assertTrue(store.searchHybridChunks(NS, "chunk", query, 10, filter).stream()
+                .allMatch(chunk -> expectedPage(chunk.text(), pages) >= 3 && expectedPage(chunk.text(), pages) <= 4));
+
+        assertTrue(store.searchChunks(NS, query, 10, MetadataFilter.parse("page > 10")).isEmpty());
+        assertTrue(store.searchChunks(NS, query, 10, MetadataFilter.parse("uploaded < 2000-01-01")).isEmpty());
+        assertEquals(store.searchChunks(NS, query, 10),
+                store.searchChunks(NS, query, 10, MetadataFilter.parse("uploaded >= 2000-01-01")));
+    }
+
+    @Test
+    void shardedScanMatchesTheSerialScan() {
+        Random random = new Random(11);
+        float[][] vectors = new float[20_000][];
+        VectorStoreService serial = new VectorStoreService();
+        VectorStoreService sharded = new VectorStoreService(new SegmentFileStore(null, null), QuantizationMode.NONE, 4, 2);
+        try {
+            // Six documents of uneven size so shards cut across segment boundaries
+            List<VectorStoreService.DocumentWriter> writers = new ArrayList<>();
+            for (VectorStoreService store : List.of(serial, sharded)) {
+                for (int d = 0; d < 6; d++) {
+                    writers.add(store.openDocument(NS, "doc-" + d));
+                }
+            }
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = randomVector(random);
+                int document = i % 10 < 4 ? 0 : i % 6;
+                writers.get(document).append("chunk-" + i, i % 20 + 1, vectors[i]);
+                writers.get(6 + document).append("chunk-" + i, i % 20 + 1, vectors[i]);
+            }
+            writers.forEach(VectorStoreService.DocumentWriter::commit);
+            float[] query = randomVector(random);
+
+            List<String> expected = IntStream.range(0, vectors.length)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(i -> -cosine(query, vectors[i])))
+                    .limit(25)
+                    .map(i -> "chunk-" + i)
+                    .toList();
+            assertEquals(expected, sharded.search(NS, query, 25));
+            assertEquals(serial.search(NS, query, 25), sharded.search(NS, query, 25));
+
+            MetadataFilter filter = MetadataFilter.parse("page <= 10");
+            assertEquals(serial.searchChunks(NS, query, 25, filter), sharded.searchChunks(NS, query, 25, filter));
+            assertEquals(vectors.length, sharded.search(NS, query, vectors.length + 1).size());
+        } finally {
+            sharded.shutdown();
+        }
+    }
+
+    private static int expectedPage(String chunk, int[] pages) {
+        return pages[Integer.parseInt(chunk.substring("chunk-".length()))];
+    }
+
+    private static void write(VectorStoreService store, String namespace, String documentId, String content) {
+        VectorStoreService.DocumentWriter writer = store.openDocument(namespace, documentId);
+        writer.append(content, new float[]{1, 0});
+        writer.commit();
+    }
+
+    private static void writeVector(VectorStoreService store, String namespace, String documentId, float[] vector) {
+        VectorStoreService.DocumentWriter writer = store.openDocument(namespace, documentId);
+        writer.append(documentId, vector);
+        writer.commit();
+    }
+
+    private static void assertFrequencies(long rows, int[] nonZeroRows,
+                                          VectorStoreService.DimensionFrequencies frequencies) {
+        assertEquals(rows, frequencies.rows());
+        assertArrayEquals(nonZeroRows, frequencies.nonZeroRows());
+    }
+
+    private static List<String> sorted(List<String> values) {
+        return values.stream().sorted().toList();
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] v = new float[DIMENSION];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = (float) random.nextGaussian();
+        }
+        return v;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / (Math.sqrt(na) * Math.sqrt(nb));
+    }
+}
@@ -0,0 +1,47 @@
+package com.enterprise_wrapper_api.wrapper_api.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AhoCorasickTest {
+
+    @Test
+    void findsOverlappingPatternsAsWholeWords() {
+        List<String> patterns = List.of("java", "javascript", "spring", "spring boot", "c++", ".net", "sql");
+
+        assertEquals(List.of("javascript", "spring", "spring boot", "c++", ".net"),
+                matches(patterns, "JavaScript, Spring  Boot, C++ and ASP.NET; PostgreSQL"));
+        assertEquals(List.of("java", "sql"), matches(patterns, "java8 (Java) / SQL"));
+    }
+
+    @Test
+    void longestScanKeepsOnlyTheLeftmostLongestOfOverlappingMatches() {
+        List<String> patterns = List.of("java", "java ee", "spring", "spring framework", "ee");
+        List<String> found = new ArrayList<>();
+        new AhoCorasick(patterns).scanLongest("Java EE on the Spring Framework, then Spring and EE",
+                id -> found.add(patterns.get(id)));
+
+        assertEquals(List.of("java ee", "spring framework", "spring", "ee"), found);
+    }
+
+    @Test
+    void whitespaceRunsMatchASingleSpace() {
+        assertEquals(List.of("machine learning"),
+                matches(List.of("machine learning"), "machine\n\t learning, machinelearning"));
+    }
+
+    @Test
+    void matchesNonAsciiPatterns() {
+        assertEquals(List.of("müller", "résumé"), matches(List.of("résumé", "müller"), "MÜLLER sent a Résumé"));
+    }
+
+    private static List<String> matches(List<String> patterns, String text) {
+        List<String> found = new ArrayList<>();
+        new AhoCorasick(patterns).scan(text, id -> found.add(patterns.get(id)));
+        return found;
+    }
+}
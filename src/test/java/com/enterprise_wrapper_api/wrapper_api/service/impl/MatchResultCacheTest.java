@@ -0,0 +1,91 @@
+package com.enterprise_wrapper_api.wrapper_api.service.impl;
+
+import com.enterprise_wrapper_api.wrapper_api.cache.DiskCache;
+import com.enterprise_wrapper_api.wrapper_api.model.ResumeMatchResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchResultCacheTest {
+
+    @TempDir
+    Path diskDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void keyIgnoresLayoutButNotModelOrPrompt() {
+        String key = MatchResultCache.key("Java  dev\n", "Backend role", "m", "v1");
+
+        assertEquals(key, MatchResultCache.key(" Java dev", "Backend   role", "m", "v1"));
+        assertNotEquals(key, MatchResultCache.key("Java dev", "Backend role", "other", "v1"));
+        assertNotEquals(key, MatchResultCache.key("Java dev", "Backend role", "m", "v2"));
+    }
+
+    @Test
+    void persistedResultsSurviveRestartUntilTtl() {
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        MatchResultCache cache = cacheAt(start);
+        cache.put("ab12", new ResumeMatchResponse(82, List.of("Kafka"), "Strong fit."));
+
+        MatchResultCache restarted = cacheAt(start.plus(Duration.ofHours(23)));
+        assertEquals(new ResumeMatchResponse(82, List.of("Kafka"), "Strong fit."), restarted.get("ab12"));
+
+        MatchResultCache expired = cacheAt(start.plus(Duration.ofHours(25)));
+        assertNull(expired.get("ab12"));
+    }
+
+    @Test
+    void failedDiskWritesKeepTheResultInMemory() throws IOException {
+        MatchResultCache cache = cacheAt(Instant.now());
+        // A file where the fan-out directory should be makes every write under it fail
+        Files.createFile(diskDir.resolve("ab"));
+
+        assertDoesNotThrow(() -> cache.put("ab12", new ResumeMatchResponse(82, List.of(), "Strong fit.")));
+        assertEquals(82, cache.get("ab12").getMatchScore());
+    }
+
+    @Test
+    void sweepDeletesExpiredThenOldestDiskEntries() throws IOException {
+        Instant now = Instant.now();
+        MatchResultCache cache = new MatchResultCache(true, 100, Duration.ofHours(24), diskDir.toString(), 2,
+                Duration.ZERO, objectMapper, Clock.fixed(now, ZoneOffset.UTC));
+        DiskCache disk = new DiskCache(diskDir);
+        String[] keys = {"a1", "b2", "c3", "d4"};
+        Duration[] ages = {Duration.ofHours(30), Duration.ofHours(2), Duration.ofHours(1), Duration.ZERO};
+        for (int i = 0; i < keys.length; i++) {
+            cache.put(keys[i] + "00", new ResumeMatchResponse(i, List.of(), "r" + i));
+            Files.setLastModifiedTime(disk.path(keys[i] + "00"), FileTime.from(now.minus(ages[i])));
+        }
+
+        cache.sweepDisk();
+
+        // Expired, then the oldest beyond the cap of two
+        assertFalse(disk.contains("a100"));
+        assertFalse(disk.contains("b200"));
+        assertTrue(disk.contains("c300"));
+        assertTrue(disk.contains("d400"));
+    }
+
+    private MatchResultCache cacheAt(Instant now) {
+        return new MatchResultCache(true, 100, Duration.ofHours(24), diskDir.toString(), 100, Duration.ZERO,
+                objectMapper, Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,165 @@
+package com.enterprise_wrapper_api.wrapper_api.service.impl;
+
+import com.enterprise_wrapper_api.wrapper_api.extract.DocumentExtractor;
+import com.enterprise_wrapper_api.wrapper_api.llm.LlmGateway;
+import com.enterprise_wrapper_api.wrapper_api.model.BatchMatchEvent;
+import com.enterprise_wrapper_api.wrapper_api.model.CandidateResume;
+import com.enterprise_wrapper_api.wrapper_api.model.RankedCandidate;
+import com.enterprise_wrapper_api.wrapper_api.model.ResumeMatchRequest;
+import com.enterprise_wrapper_api.wrapper_api.model.ResumeMatchResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResumeMatchServiceTest {
+
+    private static final Pattern SCORE = Pattern.compile("score=(\\d+)");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private HttpServer groq;
+    private LlmGateway gateway;
+    private ResumeMatchService service;
+
+    @BeforeEach
+    void startStubGroq() throws IOException {
+        // Replies with the score embedded in the resume text, or a 500 for "score=fail"
+        groq = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        groq.createContext("/", exchange -> {
+            upstreamCalls.incrementAndGet();
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            Matcher score = SCORE.matcher(request);
+            byte[] reply;
+            int status;
+            if (score.find()) {
+                String content = objectMapper.writeValueAsString(Map.of(
+                        "matchScore", Integer.parseInt(score.group(1)),
+                        "missingSkills", List.of(),
+                        "summary", "ok"));
+                reply = objectMapper.writeValueAsBytes(Map.of("choices",
+                        List.of(Map.of("message", Map.of("content", content)))));
+                status = 200;
+            } else {
+                reply = "upstream down".getBytes(StandardCharsets.UTF_8);
+                status = 500;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, reply.length);
+            exchange.getResponseBody().write(reply);
+            exchange.close();
+        });
+        groq.start();
+
+        gateway = new LlmGateway(WebClient.builder(),
+                "http://localhost:" + groq.getAddress().getPort(), "key", "test-model",
+                10, Duration.ofSeconds(60), 0, 0, Duration.ofSeconds(60), objectMapper, new SimpleMeterRegistry());
+        service = service(new SkillPrefilter(SkillPrefilter.Mode.OFF, List.of(), 0, 0));
+    }
+
+    @AfterEach
+    void stopStubGroq() {
+        groq.stop(0);
+    }
+
+    @Test
+    void batchReportsFailuresPerItemAndRanksByScore() {
+        List<CandidateResume> resumes = List.of(
+                new CandidateResume("alice", "score=40"),
+                new CandidateResume("bob", "score=fail"),
+                new CandidateResume("carol", "score=90"),
+                new CandidateResume(null, "score=65"));
+
+        List<BatchMatchEvent> events = service.screenResumes("Backend engineer", resumes)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertNotNull(events);
+        assertEquals(5, events.size());
+        BatchMatchEvent bob = events.stream()
+                .filter(e -> "bob".equals(e.getCandidateId()))
+                .findFirst()
+                .orElseThrow();
+        assertNull(bob.getMatch());
+        assertEquals("GROQ ERROR: upstream down", bob.getError());
+
+        BatchMatchEvent ranking = events.get(4);
+        assertEquals("ranking", ranking.getType());
+        assertEquals(List.of("carol", "3", "alice"),
+                ranking.getRanking().stream().map(RankedCandidate::getCandidateId).toList());
+    }
+
+    @Test
+    void singleMatchFoldsUpstreamErrorsIntoTheResponse() {
+        ResumeMatchResponse ok = service.getMatch(new ResumeMatchRequest("score=55", "Backend engineer"))
+                .block(Duration.ofSeconds(30));
+        ResumeMatchResponse failed = service.getMatch(new ResumeMatchRequest("score=fail", "Backend engineer"))
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(55, ok.getMatchScore());
+        assertEquals("GROQ ERROR: upstream down", failed.getSummary());
+    }
+
+    @Test
+    void repeatedMatchesAreServedFromCache() {
+        List<CandidateResume> resumes = List.of(new CandidateResume("a", "score=70"));
+
+        service.screenResumes("Backend engineer", resumes).blockLast(Duration.ofSeconds(30));
+        service.screenResumes("Backend  engineer\n", resumes).blockLast(Duration.ofSeconds(30));
+
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void prefilterOnlyEscalatesTheBestSkillMatches() {
+        service = service(new SkillPrefilter(SkillPrefilter.Mode.ESCALATE,
+                List.of("Java", "Spring Boot", "Kafka", "Kubernetes, k8s", "Python"), 1, 30));
+        List<CandidateResume> resumes = List.of(
+                new CandidateResume("bob", "Java and Kafka. score=60"),
+                new CandidateResume("alice", "Java, Spring Boot, Kafka and k8s. score=80"),
+                new CandidateResume("carol", "Python only. score=95"));
+
+        List<BatchMatchEvent> events = service.screenResumes(
+                "Java backend engineer: Spring Boot, Kafka, Kubernetes. Strong Java.", resumes)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertNotNull(events);
+        assertEquals(1, upstreamCalls.get());
+        BatchMatchEvent bob = events.stream()
+                .filter(e -> "bob".equals(e.getCandidateId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(false, bob.getEscalated());
+        assertEquals(List.of("Spring Boot", "Kubernetes"), bob.getMatch().getMissingSkills());
+        assertEquals(bob.getSkillScore(), bob.getMatch().getMatchScore());
+
+        BatchMatchEvent ranking = events.get(3);
+        assertEquals(List.of("alice", "bob", "carol"),
+                ranking.getRanking().stream().map(RankedCandidate::getCandidateId).toList());
+        assertEquals(80, ranking.getRanking().get(0).getMatchScore());
+    }
+
+    private ResumeMatchService service(SkillPrefilter prefilter) {
+        return new ResumeMatchService(gateway, objectMapper,
+                new MatchResultCache(true, 100, Duration.ofHours(1), null, objectMapper), DocumentExtractor.uncached(),
+                prefilter, 4, 500, new SimpleMeterRegistry());
+    }
+}
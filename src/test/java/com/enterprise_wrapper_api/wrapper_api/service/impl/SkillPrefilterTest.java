@@ -0,0 +1,67 @@
+package com.enterprise_wrapper_api.wrapper_api.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SkillPrefilterTest {
+
+    private static final List<String> DICTIONARY = List.of(
+            "# comment",
+            "Java",
+            "Kubernetes, k8s",
+            "Kafka",
+            "PostgreSQL, Postgres",
+            "");
+
+    private static final String JOB = "Java engineer. Java 17, Kafka and Kubernetes; Postgres a plus.";
+
+    @Test
+    void scoresTheWeightedShareOfJobSkills() {
+        SkillPrefilter prefilter = new SkillPrefilter(SkillPrefilter.Mode.ESCALATE, DICTIONARY, 0, 0);
+        SkillPrefilter.JobProfile job = prefilter.profile(JOB);
+
+        // Java is mentioned twice: weight 1 + ln 2 against 1 for each other skill
+        SkillPrefilter.SkillScore score = prefilter.score(job, "Built Kafka pipelines on K8S with Java.");
+        assertEquals(Math.round(1000.0 * (1 + Math.log(2) + 2) / (1 + Math.log(2) + 3)) / 10.0, score.score());
+        assertEquals(List.of("PostgreSQL"), score.missingSkills());
+
+        assertEquals(0, prefilter.score(job, "JavaScript and Kafkaesque prose").score());
+        // Heaviest first, then dictionary order
+        assertEquals(List.of("Java", "Kubernetes", "Kafka", "PostgreSQL"),
+                prefilter.score(job, "nothing relevant").missingSkills());
+    }
+
+    @Test
+    void escalatesTheTopCandidatesAboveTheMinimumScore() {
+        SkillPrefilter prefilter = new SkillPrefilter(SkillPrefilter.Mode.ESCALATE, DICTIONARY, 2, 40);
+        SkillPrefilter.JobProfile job = prefilter.profile(JOB);
+        List<SkillPrefilter.SkillScore> scores = List.of(
+                prefilter.score(job, "Java"),
+                prefilter.score(job, "Java, Kafka, k8s, Postgres"),
+                prefilter.score(job, "Kafka"),
+                prefilter.score(job, "Java and Kafka"));
+
+        assertArrayEquals(new boolean[]{false, true, false, true}, prefilter.escalate(job, scores));
+
+        // Nothing to judge by: everyone goes to the LLM
+        SkillPrefilter.JobProfile unknown = prefilter.profile("Friendly barista");
+        assertArrayEquals(new boolean[]{true, true}, prefilter.escalate(unknown, scores.subList(0, 2)));
+    }
+
+    @Test
+    void bundledDictionaryLoads() {
+        SkillPrefilter prefilter = new SkillPrefilter("local", "", 20, 30);
+        SkillPrefilter.JobProfile job = prefilter.profile("Spring Boot microservices on AWS with Kubernetes");
+
+        // Only the longest of overlapping names counts
+        assertEquals(List.of("Spring Boot", "Microservices", "AWS", "Kubernetes"),
+                prefilter.score(job, "").missingSkills());
+        // Java EE is not a mention of Java
+        assertEquals(0, prefilter.score(prefilter.profile("Java developer"), "Java EE, Spring Framework").score());
+        assertArrayEquals(new boolean[]{false}, prefilter.escalate(job, List.of(prefilter.score(job, "AWS"))));
+    }
+}